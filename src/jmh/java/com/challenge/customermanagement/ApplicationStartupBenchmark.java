@@ -0,0 +1,138 @@
+package com.challenge.customermanagement;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the packaged application, from launching the JVM until the first {@code GET /customers}
+ * has been answered, for the default configuration and for the prod profile with and without AOT and the
+ * CDS archive. Each iteration starts a fresh JVM. Besides the total that JMH reports, the time until the
+ * port accepts connections and the latency of the first request are printed per iteration and summarized
+ * at the end. Needs the output of {@code mvn -Pprod package} in {@code target/application}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ApplicationStartupBenchmark {
+    private static final Path APPLICATION = Path.of("target", "application");
+    private static final long START_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    @Param({"default", "prod", "prod-aot", "prod-aot-cds"})
+    private String config;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Long> startupMillis = new ArrayList<>();
+    private final List<Long> firstRequestMillis = new ArrayList<>();
+    private int port;
+    private Process process;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        if (!Files.exists(APPLICATION.resolve("application.jsa"))) {
+            throw new IllegalStateException("Run mvn -Pprod package first; " + APPLICATION + " has no CDS archive");
+        }
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+    }
+
+    @Benchmark
+    public int startAndServeFirstRequest() throws Exception {
+        long launched = System.nanoTime();
+        process = new ProcessBuilder(command())
+                .directory(APPLICATION.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/jmh/startup-" + config + ".log"))
+                .start();
+        while (!accepting()) {
+            if (!process.isAlive() || System.nanoTime() - launched > START_TIMEOUT_NANOS) {
+                throw new IllegalStateException(config + " did not start, see target/jmh/startup-" + config + ".log");
+            }
+            Thread.sleep(5);
+        }
+        long listening = System.nanoTime();
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/customers?limit=10")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        long answered = System.nanoTime();
+        startupMillis.add(TimeUnit.NANOSECONDS.toMillis(listening - launched));
+        firstRequestMillis.add(TimeUnit.NANOSECONDS.toMillis(answered - listening));
+        return response.statusCode();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+            process.destroyForcibly();
+        }
+        if (!startupMillis.isEmpty()) {
+            System.out.printf("%n%s: listening after %d ms, first request %d ms%n", config,
+                    startupMillis.get(startupMillis.size() - 1), firstRequestMillis.get(firstRequestMillis.size() - 1));
+        }
+    }
+
+    // The warmup iteration is included; it is a cold start like the others
+    @TearDown(Level.Trial)
+    public void summarize() {
+        System.out.printf("%n%s: median listening after %d ms, median first request %d ms over %d starts%n",
+                config, median(startupMillis), median(firstRequestMillis), startupMillis.size());
+    }
+
+    private List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (config.endsWith("-cds")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+        }
+        if (config.contains("-aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (config.startsWith("prod")) {
+            command.add("-Dspring.profiles.active=prod");
+        }
+        command.add("-jar");
+        command.add(applicationJar());
+        command.add("--server.port=" + port);
+        return command;
+    }
+
+    private static String applicationJar() {
+        File[] jars = APPLICATION.toFile().listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null || jars.length != 1) {
+            throw new IllegalStateException("Expected one application jar in " + APPLICATION);
+        }
+        return jars[0].getName();
+    }
+
+    private boolean accepting() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 100);
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static long median(List<Long> values) {
+        return values.isEmpty() ? 0 : values.stream().sorted().toList().get(values.size() / 2);
+    }
+}
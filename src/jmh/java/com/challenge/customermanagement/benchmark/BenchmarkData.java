@@ -0,0 +1,53 @@
+package com.challenge.customermanagement.benchmark;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.model.Customer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic customer datasets for benchmarks. Spend and purchase dates are spread across the
+ * tier boundaries so every branch of the tier rules is exercised.
+ */
+public final class BenchmarkData {
+    private static final BigDecimal[] SPEND = {
+            new BigDecimal("120.50"), new BigDecimal("999.99"), new BigDecimal("1000.00"), new BigDecimal("5400.00"),
+            new BigDecimal("9999.99"), new BigDecimal("10000.00"), new BigDecimal("48250.75")
+    };
+
+    private BenchmarkData() {
+    }
+
+    public static List<Customer> customers(int size) {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        List<Customer> customers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            customers.add(Customer.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .name("Customer " + i)
+                    .email("customer" + i + "@example.com")
+                    .emailNormalized("customer" + i + "@example.com")
+                    .annualSpend(SPEND[random.nextInt(SPEND.length)])
+                    .lastPurchaseDate(today.minusDays(random.nextInt(550)))
+                    .build());
+        }
+        return customers;
+    }
+
+    public static List<CreateCustomerRequest> createRequests(int from, int size) {
+        Random random = new Random(from);
+        LocalDate today = LocalDate.now();
+        List<CreateCustomerRequest> requests = new ArrayList<>(size);
+        for (int i = from; i < from + size; i++) {
+            requests.add(new CreateCustomerRequest("Customer " + i, "customer" + i + "@example.com",
+                    SPEND[random.nextInt(SPEND.length)], today.minusDays(random.nextInt(550))));
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,37 @@
+package com.challenge.customermanagement.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks with allocation profiling ({@code -prof gc}) and writes the results as JSON to
+ * {@code target/jmh/}, one file per run, so runs can be compared (e.g. with jmh.morethan.io).
+ * Accepts the standard JMH command line, e.g. {@code CustomerServiceBenchmark -p size=100 -f 1}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path result = Path.of(System.getProperty("jmh.result", "target/jmh/result-" + timestamp + ".json")).toAbsolutePath();
+        Files.createDirectories(result.getParent());
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
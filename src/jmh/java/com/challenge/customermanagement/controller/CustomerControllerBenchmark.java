@@ -0,0 +1,99 @@
+package com.challenge.customermanagement.controller;
+
+import com.challenge.customermanagement.CustomerManagementApplication;
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.challenge.customermanagement.dto.BatchItemResult;
+import com.challenge.customermanagement.service.CustomerBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput through Tomcat, Spring MVC, the service and H2. The application is started
+ * once per trial and seeded with {@code datasetSize} customers through the bulk endpoint's service.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerControllerBenchmark {
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"1000", "100000"})
+    private int datasetSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(CustomerManagementApplication.class)
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/customers";
+        httpClient = HttpClient.newHttpClient();
+
+        CustomerBatchService batchService = context.getBean(CustomerBatchService.class);
+        ids = new ArrayList<>(datasetSize);
+        for (int from = 0; from < datasetSize; from += SEED_CHUNK) {
+            batchService.createCustomers(BenchmarkData.createRequests(from, Math.min(SEED_CHUNK, datasetSize - from)))
+                    .getResults().stream()
+                    .map(BatchItemResult::getId)
+                    .forEach(ids::add);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public String getCustomerById(Cursor cursor) throws IOException, InterruptedException {
+        String id = ids.get(cursor.next++ % ids.size());
+        return get(baseUrl + "/" + id);
+    }
+
+    @Benchmark
+    public String getCustomersByEmail(Cursor cursor) throws IOException, InterruptedException {
+        return get(baseUrl + "?email=customer" + (cursor.next++ % datasetSize) + "@example.com");
+    }
+
+    @Benchmark
+    public String getCustomerPage() throws IOException, InterruptedException {
+        return get(baseUrl + "?limit=100");
+    }
+
+    @Benchmark
+    public String createCustomer(Cursor cursor) throws IOException, InterruptedException {
+        String body = "{\"name\":\"Bench Customer\",\"email\":\"bench" + cursor.next++ + "@example.com\",\"annualSpend\":2500.00}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private String get(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
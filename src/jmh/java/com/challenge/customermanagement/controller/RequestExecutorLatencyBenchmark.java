@@ -0,0 +1,86 @@
+package com.challenge.customermanagement.controller;
+
+import com.challenge.customermanagement.CustomerManagementApplication;
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.challenge.customermanagement.dto.BatchItemResult;
+import com.challenge.customermanagement.service.CustomerBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request latency percentiles on Tomcat's platform-thread pool against virtual threads
+ * with the repository limiter. Caching is switched off and the Tomcat pool is kept small so that
+ * 128 concurrent clients saturate it, which is where the two executors differ. Compare the
+ * p0.99/p0.999 rows of the two {@code executor} params.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(128)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestExecutorLatencyBenchmark {
+    private static final int DATASET_SIZE = 10_000;
+
+    @Param({"platform", "virtual"})
+    private String executor;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(CustomerManagementApplication.class)
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--spring.cache.type=none",
+                        "--server.tomcat.threads.max=32",
+                        "--spring.datasource.hikari.maximum-pool-size=10",
+                        "--spring.threads.virtual.enabled=" + executor.equals("virtual"));
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/customers";
+        httpClient = HttpClient.newHttpClient();
+        ids = context.getBean(CustomerBatchService.class)
+                .createCustomers(BenchmarkData.createRequests(0, DATASET_SIZE))
+                .getResults().stream()
+                .map(BatchItemResult::getId)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = (int) (Thread.currentThread().threadId() * 7919);
+    }
+
+    @Benchmark
+    public String getCustomerById(Cursor cursor) throws IOException, InterruptedException {
+        String id = ids.get(Math.floorMod(cursor.next++, ids.size()));
+        return get(baseUrl + "/" + id);
+    }
+
+    @Benchmark
+    public String getCustomerPage() throws IOException, InterruptedException {
+        return get(baseUrl + "?limit=100");
+    }
+
+    private String get(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
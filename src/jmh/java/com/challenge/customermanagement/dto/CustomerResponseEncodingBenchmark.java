@@ -0,0 +1,77 @@
+package com.challenge.customermanagement.dto;
+
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU per response for each wire format and content coding the API offers, for one customer and for
+ * pages of customers. Compare {@code json/identity} with the others. The encoded size of each combination
+ * is printed at setup, since JMH only reports time and allocation. gzip uses the JDK default level, as
+ * Tomcat does; zstd uses level 3, the {@code customer.compression.zstd.level} default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerResponseEncodingBenchmark {
+    private static final int ZSTD_LEVEL = 3;
+
+    @Param({"1", "1000", "10000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"identity", "gzip", "zstd"})
+    private String coding;
+
+    private ObjectMapper objectMapper;
+    private Object payload;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same settings Spring Boot applies to its ObjectMapper, for every format
+        objectMapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            default -> JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        };
+        List<CustomerResponse> responses = BenchmarkData.customers(size).stream()
+                .map(customer -> new CustomerResponse(customer.getId().toString(), customer.getName(), customer.getEmail(),
+                        customer.getAnnualSpend(), customer.getLastPurchaseDate(), "Gold"))
+                .toList();
+        // A page as GET /customers returns it, or a single customer as GET /customers/{id} does
+        payload = size == 1 ? responses.get(0) : new CustomerPage(responses, "cursor");
+        buffer = new ByteArrayOutputStream(size * 256);
+        System.out.printf("%n%s/%s, %d customers: %d bytes%n", format, coding, size, encode().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        buffer.reset();
+        try (OutputStream out = switch (coding) {
+            case "gzip" -> new GZIPOutputStream(buffer, 8192);
+            case "zstd" -> new ZstdOutputStream(buffer, ZSTD_LEVEL);
+            default -> buffer;
+        }) {
+            objectMapper.writeValue(out, payload);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,58 @@
+package com.challenge.customermanagement.dto;
+
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerResponseSerializationBenchmark {
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    // Same settings Spring Boot applies to its ObjectMapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private CustomerResponse single;
+    private List<CustomerResponse> responses;
+    private byte[] singleJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        responses = BenchmarkData.customers(size).stream()
+                .map(customer -> new CustomerResponse(customer.getId().toString(), customer.getName(), customer.getEmail(),
+                        customer.getAnnualSpend(), customer.getLastPurchaseDate(), "Gold"))
+                .toList();
+        single = responses.get(0);
+        singleJson = objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] serializeSingle() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public CustomerResponse deserializeSingle() throws IOException {
+        return objectMapper.readValue(singleJson, CustomerResponse.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.challenge.customermanagement.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a {@code BINARY(16)} primary key that already holds {@code rows} ids, with random
+ * (v4) versus time-ordered (v7) ids, against a file-backed H2 database so that page locality matters.
+ * Each invocation inserts and commits one batch. At the end of the trial the table's disk footprint
+ * ({@code DISK_SPACE_USED}, data plus primary-key index) is printed, which shows the cost of the half-empty
+ * pages left behind by random inserts. The 10M-row trials take several minutes to seed; select a size with
+ * e.g. {@code CustomerIdInsertBenchmark -p rows=1000000}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerIdInsertBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    @Param({"random", "timeOrdered"})
+    private String ids;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> generator;
+    private long inserted;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        generator = "random".equals(ids) ? UUID::randomUUID : TimeOrderedUuidGenerator::next;
+        directory = Files.createTempDirectory(Path.of(System.getProperty("java.io.tmpdir")), "customer-ids");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("ids") + ";CACHE_SIZE=65536", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE customer_id (id BINARY(16) PRIMARY KEY, name VARCHAR(50))");
+        }
+        insert = connection.prepareStatement("INSERT INTO customer_id (id, name) VALUES (?, ?)");
+        for (int seeded = 0; seeded < rows; seeded += SEED_BATCH_SIZE) {
+            insertBatch(Math.min(SEED_BATCH_SIZE, rows - seeded));
+        }
+        inserted = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        insertBatch(BATCH_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("CALL DISK_SPACE_USED('CUSTOMER_ID')")) {
+            result.next();
+            long bytes = result.getLong(1);
+            long total = rows + inserted;
+            System.out.printf("%n%s ids, %d rows: %d bytes on disk (%.1f bytes/row)%n", ids, total, bytes, (double) bytes / total);
+        }
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void insertBatch(int size) throws SQLException {
+        ByteBuffer bytes = ByteBuffer.allocate(16);
+        for (int i = 0; i < size; i++) {
+            UUID id = generator.get();
+            bytes.clear();
+            bytes.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+            insert.setBytes(1, bytes.array().clone());
+            insert.setString(2, "Customer " + (inserted + i));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+        inserted += size;
+    }
+}
@@ -0,0 +1,107 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.CustomerManagementApplication;
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.challenge.customermanagement.dto.BatchItemResult;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the read paths below the cache, run with {@code -prof gc} to compare
+ * {@code gc.alloc.rate.norm}: the {@code entity*} methods are the previous path (managed entities in a
+ * read-write transaction, then {@code mapToResponse}), the {@code projection*} methods the current one
+ * (constructor projections in a read-only transaction).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerReadPathBenchmark {
+    private static final int DATASET_SIZE = 10_000;
+
+    @Param({"1", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CustomerRepository customerRepository;
+    private final CustomerMapper mapper = new CustomerMapper();
+    private EntityManager entityManager;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private List<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(CustomerManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--customer.scheduling.enabled=false");
+        customerRepository = context.getBean(CustomerRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        ids = context.getBean(CustomerBatchService.class).createCustomers(BenchmarkData.createRequests(0, DATASET_SIZE))
+                .getResults().stream()
+                .map(BatchItemResult::getId)
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public CustomerResponse entityById(Cursor cursor) {
+        UUID id = ids.get(cursor.next++ % ids.size());
+        return readWrite.execute(status -> mapper.mapToResponse(customerRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public CustomerResponse projectionById(Cursor cursor) {
+        UUID id = ids.get(cursor.next++ % ids.size());
+        return readOnly.execute(status -> mapper.withTier(customerRepository.findResponseById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public List<CustomerResponse> entityPage() {
+        return readWrite.execute(status -> entityManager.createQuery("select c from Customer c order by c.id", Customer.class)
+                .setMaxResults(pageSize)
+                .getResultStream()
+                .map(mapper::mapToResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<CustomerResponse> projectionPage() {
+        return readOnly.execute(status -> customerRepository.findResponsesOrderedById(Limit.of(pageSize)).stream()
+                .map(mapper::withTier)
+                .toList());
+    }
+}
@@ -0,0 +1,45 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.benchmark.BenchmarkData;
+import com.challenge.customermanagement.model.Customer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerServiceBenchmark {
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private final CustomerMapper mapper = new CustomerMapper();
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        customers = BenchmarkData.customers(size);
+        LocalDate today = LocalDate.now();
+        customers.forEach(customer -> customer.setTier(mapper.evaluateTier(customer, today)));
+    }
+
+    @Benchmark
+    public void calculateTier(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            blackhole.consume(mapper.calculateTier(customer));
+        }
+    }
+
+    @Benchmark
+    public void mapToResponse(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            blackhole.consume(mapper.mapToResponse(customer));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.challenge.customermanagement.load;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic customers with plausible names and emails. Spend and last purchase date are drawn per tier
+ * band and piled up on the band edges ($1,000 and $10,000; 6 and 12 months ago), so a seeded database
+ * holds Silver, Gold and Platinum customers and the boundary cases between them. Customer {@code i} is
+ * the same on every run with the same seed, which lets several uploads generate disjoint slices.
+ */
+final class CustomerGenerator {
+    private static final String[] FIRST_NAMES = {
+            "Victoria", "James", "Olivia", "Liam", "Emma", "Noah", "Ava", "Lucas", "Mia", "Ethan",
+            "Sophia", "Mateo", "Isabella", "Elijah", "Charlotte", "Henrik", "Amelia", "Zoltan", "Harper", "Kenji",
+            "Evelyn", "Omar", "Abigail", "Ravi", "Ella", "Tomasz", "Grace", "Diego", "Chloe", "Anna"
+    };
+    private static final String[] LAST_NAMES = {
+            "Brown", "Smith", "Johnson", "Garcia", "Miller", "Davis", "Martinez", "Lopez", "Wilson", "Anderson",
+            "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Thompson", "White", "Harris", "Clark",
+            "Nagy", "Kovacs", "Tanaka", "Nowak", "Schmidt", "Rossi", "Dubois", "Khan", "Singh", "Olsen"
+    };
+    private static final String[] DOMAINS = {
+            "samplecompany.com", "example.com", "mail.test", "corp.example.org", "shop.example.net"
+    };
+    private static final BigDecimal[] SPEND_EDGES = {
+            new BigDecimal("0.00"), new BigDecimal("999.99"), new BigDecimal("1000.00"),
+            new BigDecimal("9999.99"), new BigDecimal("10000.00")
+    };
+
+    private final long seed;
+    private final String emailTag;
+    private final LocalDate today = LocalDate.now();
+
+    /**
+     * @param emailTag inserted into every email, so that customers generated for different purposes
+     *                 (seeding, creates during a replay) never collide on the unique email
+     */
+    CustomerGenerator(long seed, String emailTag) {
+        this.seed = seed;
+        this.emailTag = emailTag;
+    }
+
+    Customer customer(long i) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + i);
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String email = first.toLowerCase() + "." + last.toLowerCase() + "." + emailTag + i + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+        return new Customer(first + " " + last, email, spend(random), lastPurchaseDate(random));
+    }
+
+    BigDecimal spend(SplittableRandom random) {
+        int band = random.nextInt(100);
+        if (band < 5) {
+            return SPEND_EDGES[random.nextInt(SPEND_EDGES.length)];
+        }
+        if (band < 45) {
+            return BigDecimal.valueOf(random.nextLong(0, 100_000), 2);
+        }
+        if (band < 85) {
+            return BigDecimal.valueOf(random.nextLong(100_000, 1_000_000), 2);
+        }
+        return BigDecimal.valueOf(random.nextLong(1_000_000, 25_000_000), 2);
+    }
+
+    private LocalDate lastPurchaseDate(SplittableRandom random) {
+        int band = random.nextInt(100);
+        if (band < 3) {
+            return null;
+        }
+        if (band < 8) {
+            LocalDate edge = random.nextBoolean() ? today.minusMonths(6) : today.minusMonths(12);
+            return edge.plusDays(random.nextInt(-1, 2));
+        }
+        if (band < 55) {
+            return today.minusDays(random.nextInt(0, 183));
+        }
+        if (band < 85) {
+            return today.minusDays(random.nextInt(183, 366));
+        }
+        return today.minusDays(random.nextInt(366, 1500));
+    }
+
+    record Customer(String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate) {
+        String csv() {
+            return name + "," + email + ","
+                    + (annualSpend == null ? "" : annualSpend.toPlainString()) + ","
+                    + (lastPurchaseDate == null ? "" : lastPurchaseDate.toString()) + "\n";
+        }
+    }
+}
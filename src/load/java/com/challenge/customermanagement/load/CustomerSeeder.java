@@ -0,0 +1,122 @@
+package com.challenge.customermanagement.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk-loads generated customers through {@code POST /customers/import}. The range of customers is split
+ * into contiguous slices that are uploaded concurrently, each as one CSV body generated while it is sent,
+ * so nothing proportional to the row count is held in memory on either side. Going through the API
+ * rather than straight to the database keeps the read index, the email filter and the statistics right.
+ */
+class CustomerSeeder {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI importUri;
+    private final CustomerGenerator generator;
+
+    CustomerSeeder(String baseUrl, long seed) {
+        this.importUri = URI.create(baseUrl + "/customers/import");
+        this.generator = new CustomerGenerator(seed, "");
+    }
+
+    void seed(long first, long customers, int uploads) throws Exception {
+        long started = System.nanoTime();
+        long sliceSize = (customers + uploads - 1) / uploads;
+        List<Future<JsonNode>> reports = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long sliceStart = first; sliceStart < first + customers; sliceStart += sliceSize) {
+                long from = sliceStart;
+                long to = Math.min(from + sliceSize, first + customers);
+                reports.add(executor.submit(() -> upload(from, to)));
+            }
+        }
+        long imported = 0;
+        long rejected = 0;
+        for (Future<JsonNode> report : reports) {
+            imported += report.get().path("imported").asLong();
+            rejected += report.get().path("rejected").asLong();
+            if (!report.get().path("completed").asBoolean()) {
+                System.out.println("An upload did not complete: " + report.get());
+            } else if (report.get().path("rejected").asLong() > 0) {
+                System.out.println("First rejected rows of an upload: " + report.get().path("errors"));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Seeded %,d customers (%,d rejected) in %.1f s, %,.0f customers/s%n",
+                imported, rejected, seconds, imported / seconds);
+    }
+
+    private JsonNode upload(long from, long to) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(importUri)
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new CsvBody(from, to)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Import of customers " + from + ".." + to + " failed with "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    // Renders customers [from, to) as CSV, a row at a time, as the HTTP client reads the body
+    private class CsvBody extends InputStream {
+        private final long to;
+        private long next;
+        private byte[] row = "name,email,annualSpend,lastPurchaseDate\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private long lastProgress = System.nanoTime();
+
+        CsvBody(long from, long to) {
+            this.next = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int written = 0;
+            while (written < length) {
+                if (position == row.length) {
+                    if (next == to) {
+                        break;
+                    }
+                    row = generator.customer(next++).csv().getBytes(StandardCharsets.UTF_8);
+                    position = 0;
+                    progress();
+                }
+                int chunk = Math.min(length - written, row.length - position);
+                System.arraycopy(row, position, buffer, offset + written, chunk);
+                position += chunk;
+                written += chunk;
+            }
+            return written == 0 && length > 0 ? -1 : written;
+        }
+
+        private void progress() {
+            if (System.nanoTime() - lastProgress > TimeUnit.SECONDS.toNanos(10)) {
+                lastProgress = System.nanoTime();
+                System.out.printf("Upload ending at %,d: sent up to customer %,d%n", to, next);
+            }
+        }
+    }
+}
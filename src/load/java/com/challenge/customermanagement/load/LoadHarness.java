@@ -0,0 +1,92 @@
+package com.challenge.customermanagement.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line of the load harness, run against an application that is already up:
+ * <pre>
+ * seed   --customers=1000000 [--first=0] [--uploads=4] [--seed=42] [--url=http://localhost:8080]
+ * replay --rate=500 [--duration=PT60S] [--warmup=PT10S] [--sample=10000]
+ *        [--mix=get:50,email:15,list:5,search:10,create:10,update:10] [--url=http://localhost:8080]
+ * </pre>
+ */
+public final class LoadHarness {
+    private static final String USAGE = """
+            usage: seed   --customers=N [--first=0] [--uploads=4] [--seed=42] [--url=http://localhost:8080]
+                   replay --rate=N [--duration=PT60S] [--warmup=PT10S] [--sample=10000]
+                          [--mix=get:50,email:15,list:5,search:10,create:10,update:10] [--url=http://localhost:8080]""";
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Map<String, String> options = options(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        switch (args[0]) {
+            case "seed" -> new CustomerSeeder(url, Long.parseLong(options.getOrDefault("seed", "42"))).seed(
+                    Long.parseLong(options.getOrDefault("first", "0")),
+                    Long.parseLong(required(options, "customers")),
+                    Integer.parseInt(options.getOrDefault("uploads", "4")));
+            case "replay" -> {
+                int rate = Integer.parseInt(required(options, "rate"));
+                if (rate < 1) {
+                    throw new IllegalArgumentException("--rate must be at least 1 request per second");
+                }
+                ReplayDriver driver = new ReplayDriver(url,
+                        mix(options.getOrDefault("mix", "get:50,email:15,list:5,search:10,create:10,update:10")));
+                driver.sample(Integer.parseInt(options.getOrDefault("sample", "10000")));
+                driver.run(rate, Duration.parse(options.getOrDefault("warmup", "PT10S")),
+                        Duration.parse(options.getOrDefault("duration", "PT60S")));
+            }
+            default -> {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+        // The HTTP client's selector thread would otherwise keep the JVM alive
+        System.exit(0);
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (!args[i].startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + args[i]);
+            }
+            options.put(args[i].substring(2, equals), args[i].substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+
+    static Map<ReplayDriver.Operation, Integer> mix(String spec) {
+        Map<ReplayDriver.Operation, Integer> mix = new EnumMap<>(ReplayDriver.Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in the mix but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                mix.put(ReplayDriver.Operation.valueOf(parts[0].toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        return mix;
+    }
+}
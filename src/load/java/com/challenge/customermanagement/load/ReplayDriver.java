@@ -0,0 +1,260 @@
+package com.challenge.customermanagement.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load against the customer endpoints: requests are started on a fixed schedule of
+ * {@code rate} per second, whatever the responses are doing, and the operation of each is drawn from a
+ * weighted mix. Latency is measured from when a request was due, not from when it was actually sent, so
+ * a stalled server shows up as the queueing delay every scheduled request behind it would have seen
+ * (no coordinated omission). Requests are sent asynchronously and never wait for one another.
+ * <p>
+ * Ids and emails for the read and update operations are sampled from the existing customers first, so
+ * seed the database beforehand. Results of the warmup period are discarded.
+ */
+class ReplayDriver {
+    enum Operation {
+        GET, EMAIL, LIST, SEARCH, CREATE, UPDATE
+    }
+
+    private static final String[] TIERS = {"Silver", "Gold", "Platinum"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Map<Operation, Integer> mix;
+    private final CustomerGenerator generator;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final AtomicLong created = new AtomicLong();
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Recorder interval = new Recorder(3);
+    private final LongAdder inFlight = new LongAdder();
+
+    ReplayDriver(String baseUrl, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        // Customers created by this run get emails no seeded or earlier customer has
+        this.generator = new CustomerGenerator(System.nanoTime(), "r" + Long.toString(System.currentTimeMillis(), 36) + "-");
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void sample(int maxCustomers) throws IOException, InterruptedException {
+        String cursor = null;
+        while (ids.size() < maxCustomers) {
+            String uri = baseUrl + "/customers?limit=" + Math.min(1000, maxCustomers - ids.size())
+                    + (cursor == null ? "" : "&cursor=" + encode(cursor));
+            JsonNode page = objectMapper.readTree(client.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            for (JsonNode customer : page.path("items")) {
+                ids.add(customer.path("id").asText());
+                emails.add(customer.path("email").asText());
+            }
+            cursor = page.path("next").isTextual() ? page.path("next").asText() : null;
+            if (cursor == null) {
+                break;
+            }
+        }
+        boolean needsCustomers = mix.keySet().stream().anyMatch(operation ->
+                operation == Operation.GET || operation == Operation.EMAIL || operation == Operation.UPDATE);
+        if (ids.isEmpty() && needsCustomers) {
+            throw new IllegalStateException("No customers to read or update; run the seed command first");
+        }
+        System.out.printf("Sampled %,d customers for lookups and updates%n", ids.size());
+    }
+
+    void run(int rate, Duration warmup, Duration duration) throws IOException {
+        Operation[] schedule = weightedOperations();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long nextProgress = start + TimeUnit.SECONDS.toNanos(10);
+        Histogram total = new Histogram(3);
+
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            send(schedule[random.nextInt(schedule.length)], due, due >= measureFrom);
+            if (System.nanoTime() >= nextProgress) {
+                nextProgress += TimeUnit.SECONDS.toNanos(10);
+                progress(total, start);
+            }
+        }
+        awaitInFlight();
+        progress(total, start);
+        report(duration);
+        writeDistribution(total);
+    }
+
+    private void send(Operation operation, long due, boolean measured) {
+        inFlight.increment();
+        client.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    long latency = System.nanoTime() - due;
+                    inFlight.decrement();
+                    interval.recordValue(latency);
+                    if (!measured) {
+                        return;
+                    }
+                    latencies.get(operation).recordValue(latency);
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.get(operation).increment();
+                    }
+                });
+    }
+
+    private HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case GET -> get("/customers/" + pick(ids));
+            case EMAIL -> get("/customers?email=" + encode(pick(emails)));
+            case LIST -> get("/customers?limit=20");
+            case SEARCH -> get("/customers/search?size=20&tier=" + TIERS[random.nextInt(TIERS.length)]
+                    + "&minSpend=" + random.nextInt(0, 20_000));
+            case CREATE -> json("/customers", "POST", customerJson(generator.customer(created.getAndIncrement())));
+            case UPDATE -> json("/customers/" + pick(ids), "PUT",
+                    "{\"annualSpend\":" + generator.spend(random).toPlainString() + "}");
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofMinutes(1)).GET().build();
+    }
+
+    private HttpRequest json(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String customerJson(CustomerGenerator.Customer customer) {
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", customer.name());
+            body.put("email", customer.email());
+            body.put("annualSpend", customer.annualSpend());
+            body.put("lastPurchaseDate", customer.lastPurchaseDate() == null ? null : customer.lastPurchaseDate().toString());
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // One slot per unit of weight, so a uniform pick follows the mix
+    private Operation[] weightedOperations() {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operations");
+        }
+        return slots.toArray(Operation[]::new);
+    }
+
+    private String pick(List<String> values) {
+        return values.isEmpty() ? UUID.randomUUID().toString() : values.get(random.nextInt(values.size()));
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (inFlight.sum() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.sum() > 0) {
+            System.out.printf("%,d requests still in flight after one minute; they are not counted%n", inFlight.sum());
+        }
+    }
+
+    private void progress(Histogram total, long start) {
+        Histogram recent = interval.getIntervalHistogram();
+        total.add(recent);
+        System.out.printf("%5.0f s: %,d responses, p99 %.1f ms, max %.1f ms, %,d in flight%n",
+                (System.nanoTime() - start) / 1e9, recent.getTotalCount(),
+                millis(recent.getValueAtPercentile(99)), millis(recent.getMaxValue()), inFlight.sum());
+    }
+
+    private void report(Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%n%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Operation operation : mix.keySet()) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            all.add(histogram);
+            allErrors += errors.get(operation).sum();
+            printRow(operation.name().toLowerCase(), histogram, errors.get(operation).sum(), seconds);
+        }
+        printRow("all", all, allErrors, seconds);
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors, double seconds) {
+        System.out.printf("%-8s %,10d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds, millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+
+    // Percentile distribution of the whole run, warmup included, in the format HdrHistogram's plotter reads
+    private static void writeDistribution(Histogram total) throws IOException {
+        Path file = Path.of("target", "load", "replay-" + System.currentTimeMillis() + ".hgrm");
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            total.outputPercentileDistribution(out, 1_000_000.0);
+        }
+        System.out.println("Latency distribution (ms) written to " + file);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
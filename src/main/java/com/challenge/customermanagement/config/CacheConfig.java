@@ -0,0 +1,21 @@
+package com.challenge.customermanagement.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CUSTOMERS_BY_NAME = "customersByName";
+
+    // Declaring the caches up front lets actuator bind hit/miss/eviction metrics at startup
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> customerCacheNames() {
+        return cacheManager -> cacheManager.setCacheNames(List.of(CUSTOMERS_BY_NAME));
+    }
+}
@@ -0,0 +1,39 @@
+package com.challenge.customermanagement.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Response encodings beyond plain JSON. CBOR ({@code application/cbor}) and Smile
+ * ({@code application/x-jackson-smile}) are offered through content negotiation and use the same
+ * Jackson configuration as JSON, so field names and date formats match. Compression: Tomcat gzips
+ * responses above {@code server.compression.min-response-size}; clients that accept zstd get that instead.
+ */
+@Configuration
+public class EncodingConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "customer.compression.zstd.enabled", havingValue = "true", matchIfMissing = true)
+    public ZstdCompressionFilter zstdCompressionFilter(ServerProperties serverProperties,
+                                                       @Value("${customer.compression.zstd.level:3}") int level) {
+        return new ZstdCompressionFilter(serverProperties.getCompression(), level);
+    }
+}
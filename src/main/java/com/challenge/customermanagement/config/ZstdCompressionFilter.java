@@ -0,0 +1,327 @@
+package com.challenge.customermanagement.config;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * zstd response compression for clients that send {@code Accept-Encoding: zstd}, which Tomcat's
+ * built-in compression (gzip only) does not offer. Follows the {@code server.compression} settings: only
+ * the configured MIME types are compressed, and only once a response reaches the minimum size. Bytes are
+ * held back until then, so small responses go out unchanged with a Content-Length. Larger responses, and
+ * streamed ones, are compressed as they are written: a flush while the response is written asynchronously
+ * commits what is held back. A flush during a synchronous dispatch does not, because Spring MVC flushes after
+ * every body and the response is finished as soon as the dispatch returns. Server-sent events and
+ * non-blocking writers always go out uncompressed. A response
+ * encoded here has a Content-Encoding header, so Tomcat does not gzip it again.
+ */
+public class ZstdCompressionFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final List<MediaType> mimeTypes;
+    private final int minResponseSize;
+    private final int level;
+
+    public ZstdCompressionFilter(Compression compression, int level) {
+        this.enabled = compression.getEnabled();
+        this.mimeTypes = Arrays.stream(compression.getMimeTypes()).map(MediaType::parseMediaType).toList();
+        DataSize minSize = compression.getMinResponseSize();
+        this.minResponseSize = (int) Math.min(Integer.MAX_VALUE, minSize.toBytes());
+        this.level = level;
+    }
+
+    // Async requests are written in a later dispatch, through the wrapper created in the first one
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ZstdResponse zstdResponse = WebUtils.getNativeResponse(response, ZstdResponse.class);
+        if (zstdResponse == null) {
+            if (!enabled || !acceptsZstd(request)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            zstdResponse = new ZstdResponse(request, response);
+        }
+        try {
+            filterChain.doFilter(request, zstdResponse);
+        } catch (Throwable ex) {
+            zstdResponse.abort();
+            throw ex;
+        }
+        if (!isAsyncStarted(request)) {
+            zstdResponse.finish();
+        }
+    }
+
+    private static boolean acceptsZstd(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("zstd")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        // Events must reach the client one by one; a compressor would hold them back
+        if (MediaType.TEXT_EVENT_STREAM.isCompatibleWith(mediaType)) {
+            return false;
+        }
+        return mimeTypes.stream().anyMatch(type -> type.isCompatibleWith(mediaType));
+    }
+
+    private enum State {
+        BUFFERING, COMPRESSING, PASSING_THROUGH
+    }
+
+    private final class ZstdResponse extends HttpServletResponseWrapper {
+        private final HttpServletRequest request;
+        private State state = State.BUFFERING;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream(256);
+        private OutputStream target;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        ZstdResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        // Held back: a compressed response has a different length
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (state == State.PASSING_THROUGH) {
+                super.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        ZstdResponse.this.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        ZstdResponse.this.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return state != State.PASSING_THROUGH || ((ServletOutputStream) target).isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        ZstdResponse.this.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            flush();
+            if (state != State.BUFFERING) {
+                super.flushBuffer();
+            }
+        }
+
+        // Nothing is committed while the response may still turn out to be small
+        @Override
+        public void reset() {
+            super.reset();
+            resetBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (state == State.BUFFERING) {
+                pending.reset();
+            } else {
+                super.resetBuffer();
+            }
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (state == State.BUFFERING) {
+                if (!shouldCompress()) {
+                    passThrough();
+                } else {
+                    pending.write(b, off, len);
+                    if (pending.size() >= minResponseSize) {
+                        startCompressing();
+                    }
+                    return;
+                }
+            }
+            target.write(b, off, len);
+        }
+
+        private boolean shouldCompress() {
+            return compressible(getContentType()) && getStatus() != HttpServletResponse.SC_NO_CONTENT
+                    && getStatus() != HttpServletResponse.SC_NOT_MODIFIED && getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+        }
+
+        // A streamed response cannot wait for the minimum size: what is held back goes out, compressed if it may be
+        private void flush() throws IOException {
+            if (state == State.BUFFERING) {
+                if (!request.isAsyncStarted()) {
+                    return;
+                }
+                if (shouldCompress()) {
+                    startCompressing();
+                } else {
+                    passThrough();
+                }
+            }
+            target.flush();
+        }
+
+        // Non-blocking writes go straight to the container's stream, which is the only one that can report readiness
+        private void setWriteListener(WriteListener writeListener) {
+            if (state == State.COMPRESSING) {
+                throw new IllegalStateException("A write listener must be set before a compressed response is written");
+            }
+            if (state == State.BUFFERING) {
+                try {
+                    passThrough();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            ((ServletOutputStream) target).setWriteListener(writeListener);
+        }
+
+        private void passThrough() throws IOException {
+            state = State.PASSING_THROUGH;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+            target = getResponse().getOutputStream();
+            pending.writeTo(target);
+            pending = null;
+        }
+
+        private void startCompressing() throws IOException {
+            state = State.COMPRESSING;
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, "zstd");
+            super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            ZstdOutputStream zstd = new ZstdOutputStream(getResponse().getOutputStream(), level);
+            // flush() ends the current block, so streamed responses reach the client as they are written
+            zstd.setCloseFrameOnFlush(false);
+            target = zstd;
+            pending.writeTo(target);
+            pending = null;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            switch (state) {
+                case BUFFERING -> {
+                    if (compressible(getContentType())) {
+                        super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    }
+                    contentLength = pending.size();
+                    passThrough();
+                }
+                case COMPRESSING -> target.close();
+                case PASSING_THROUGH -> {
+                }
+            }
+        }
+
+        // The request failed: frees the compressor, and leaves an uncommitted response to the error handling
+        void abort() {
+            if (state == State.COMPRESSING) {
+                try {
+                    target.close();
+                } catch (IOException ex) {
+                    // The failure being propagated is the one that matters
+                }
+            }
+        }
+    }
+}
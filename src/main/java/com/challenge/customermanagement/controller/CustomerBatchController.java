@@ -0,0 +1,62 @@
+package com.challenge.customermanagement.controller;
+
+import com.challenge.customermanagement.dto.BatchResponse;
+import com.challenge.customermanagement.dto.BatchUpdateCustomerRequest;
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.service.CustomerBatchService;
+import com.challenge.customermanagement.store.CustomerStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// Mapped without a class-level prefix because "/customers" + ":batch" would otherwise be joined with a slash
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = CustomerStore.TYPE_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+@Tag(name = "Customer", description = "CRUD operations for customers")
+public class CustomerBatchController {
+    private final CustomerBatchService customerBatchService;
+
+    @Operation(
+            summary = "Create customers in bulk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch, or malformed body")
+            }
+    )
+    @PostMapping("/customers:batch")
+    public ResponseEntity<BatchResponse> createCustomers(@RequestBody List<CreateCustomerRequest> requests) {
+        return ResponseEntity.ok(customerBatchService.createCustomers(requests));
+    }
+
+    @Operation(
+            summary = "Update customers in bulk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch, or malformed body")
+            }
+    )
+    @PatchMapping("/customers:batch")
+    public ResponseEntity<BatchResponse> updateCustomers(@RequestBody List<BatchUpdateCustomerRequest> requests) {
+        return ResponseEntity.ok(customerBatchService.updateCustomers(requests));
+    }
+
+    @Operation(
+            summary = "Delete customers in bulk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch, or malformed body")
+            }
+    )
+    @DeleteMapping("/customers:batch")
+    public ResponseEntity<BatchResponse> deleteCustomers(@RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(customerBatchService.deleteCustomers(ids));
+    }
+}
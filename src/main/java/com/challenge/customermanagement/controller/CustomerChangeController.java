@@ -0,0 +1,67 @@
+package com.challenge.customermanagement.controller;
+
+import com.challenge.customermanagement.dto.CustomerChanges;
+import com.challenge.customermanagement.service.CustomerChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+@RestController
+@Validated
+@RequestMapping("/customers")
+@RequiredArgsConstructor
+@Tag(name = "Customer", description = "CRUD operations for customers")
+public class CustomerChangeController {
+    private final CustomerChangeFeed changeFeed;
+
+    @Value("${customer.changes.sse-timeout:PT30M}")
+    private Duration sseTimeout;
+
+    @Operation(
+            summary = "Get the customer changes after a sequence, waiting up to 'wait' seconds for one if there are none yet",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Changes returned; pass 'next' as 'since' on the next request"),
+                    @ApiResponse(responseCode = "410", description = "Changes after 'since' have been purged; re-read all customers")
+            }
+    )
+    @GetMapping("/changes")
+    public DeferredResult<CustomerChanges> getChanges(
+            @RequestParam(defaultValue = "0") @Min(value = 0, message = "Since must not be negative") long since,
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must not exceed 1000") int limit,
+            @RequestParam(defaultValue = "30") @Min(value = 0, message = "Wait must not be negative")
+            @Max(value = 60, message = "Wait must not exceed 60 seconds") int wait) {
+        return changeFeed.awaitChangesSince(since, limit, Duration.ofSeconds(wait));
+    }
+
+    @Operation(
+            summary = "Stream customer changes after a sequence as server-sent events; reconnects resume from Last-Event-ID",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Event stream opened"),
+                    @ApiResponse(responseCode = "410", description = "Changes after 'since' have been purged; re-read all customers")
+            }
+    )
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) @Min(value = 0, message = "Since must not be negative") Long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        // A reconnecting EventSource repeats the URL it was opened with, so its 'since' is stale; Last-Event-ID is
+        // where it actually got to
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since != null ? since : 0, sseTimeout);
+    }
+}
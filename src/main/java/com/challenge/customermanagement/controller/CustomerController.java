@@ -1,19 +1,35 @@
 package com.challenge.customermanagement.controller;
 
 import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
 import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.CustomerSearchRequest;
+import com.challenge.customermanagement.dto.CustomerSearchResult;
+import com.challenge.customermanagement.dto.CustomerStatsResponse;
 import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.repository.CustomerVersion;
 import com.challenge.customermanagement.service.CustomerService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +42,7 @@ import java.util.UUID;
 @Tag(name = "Customer", description = "CRUD operations for customers")
 public class CustomerController {
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     @Operation(
             summary = "Create a new customer",
@@ -36,30 +53,70 @@ public class CustomerController {
     )
     @PostMapping
     public ResponseEntity<CustomerResponse> createCustomer(@Valid @RequestBody CreateCustomerRequest request) {
-        return ResponseEntity.ok(customerService.createCustomer(request));
+        return withValidators(customerService.createCustomer(request));
     }
 
     @Operation(
             summary = "Get customer by ID",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Customer retrieved successfully"),
+                    @ApiResponse(responseCode = "304", description = "Customer unchanged since the given ETag or date"),
                     @ApiResponse(responseCode = "404", description = "Customer not found")
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable UUID id) {
-        return ResponseEntity.ok(customerService.getCustomerById(id));
+    public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable UUID id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            // Revalidation only needs the version columns, not the entity or its mapped response
+            CustomerVersion version = customerService.getCustomerVersion(id);
+            String eTag = CustomerETags.of(version.getVersion());
+            boolean notModified = version.getLastModified() == null
+                    ? webRequest.checkNotModified(eTag)
+                    : webRequest.checkNotModified(eTag, version.getLastModified().toEpochMilli());
+            if (notModified) {
+                return null;
+            }
+        }
+        return withValidators(customerService.getCustomerById(id));
     }
 
     @Operation(
-            summary = "Get all customers",
+            summary = "Get all customers, one page at a time",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "List of all customers returned successfully")
+                    @ApiResponse(responseCode = "200", description = "Page of customers returned successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
             }
     )
     @GetMapping
-    public ResponseEntity<List<CustomerResponse>> getAllCustomers() {
-        return ResponseEntity.ok(customerService.getAllCustomers());
+    public ResponseEntity<CustomerPage> getAllCustomers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must not exceed 1000") int limit) {
+        return ResponseEntity.ok(customerService.getAllCustomers(cursor, limit));
+    }
+
+    @Operation(
+            summary = "Stream all customers as newline-delimited JSON",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Customers streamed successfully")
+            }
+    )
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            customerService.streamAllCustomers(customer -> {
+                try {
+                    generator.writeObject(customer);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(
@@ -85,17 +142,59 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getCustomersByEmail(email));
     }
 
+    @Operation(
+            summary = "Get customers by tier, one page at a time",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of customers returned successfully"),
+                    @ApiResponse(responseCode = "400", description = "Unknown tier, invalid cursor or limit")
+            }
+    )
+    @GetMapping(params = "tier")
+    public ResponseEntity<CustomerPage> getCustomersByTier(
+            @RequestParam String tier,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must not exceed 1000") int limit) {
+        return ResponseEntity.ok(customerService.getCustomersByTier(tier, cursor, limit));
+    }
+
+    @Operation(
+            summary = "Search customers by name prefix, email domain, spend range, purchase date range and tier",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of matching customers returned successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid filter, sort or page size")
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<CustomerSearchResult> searchCustomers(@Valid @ParameterObject CustomerSearchRequest request) {
+        return ResponseEntity.ok(customerService.searchCustomers(request));
+    }
+
+    @Operation(
+            summary = "Get customer counts per tier and annual spend statistics",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics returned successfully")
+            }
+    )
+    @GetMapping("/stats")
+    public ResponseEntity<CustomerStatsResponse> getCustomerStats() {
+        return ResponseEntity.ok(customerService.getCustomerStats());
+    }
+
     @Operation(
             summary = "Update customer details",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Customer successfully updated"),
                     @ApiResponse(responseCode = "400", description = "Invalid input or validation error"),
-                    @ApiResponse(responseCode = "404", description = "Customer not found")
+                    @ApiResponse(responseCode = "404", description = "Customer not found"),
+                    @ApiResponse(responseCode = "409", description = "Customer was updated concurrently"),
+                    @ApiResponse(responseCode = "412", description = "Customer no longer matches the If-Match ETag")
             }
     )
     @PutMapping("/{id}")
-    public ResponseEntity<CustomerResponse> updateCustomer(@PathVariable UUID id, @Valid @RequestBody UpdateCustomerRequest request) {
-        return ResponseEntity.ok(customerService.updateCustomer(id, request));
+    public ResponseEntity<CustomerResponse> updateCustomer(@PathVariable UUID id, @Valid @RequestBody UpdateCustomerRequest request,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withValidators(customerService.updateCustomer(id, request, CustomerETags.parseIfMatch(ifMatch)));
     }
 
     @Operation(
@@ -113,4 +212,15 @@ public class CustomerController {
     return ResponseEntity.ok(response); // Use 200 OK with body
     }
 
+    private static ResponseEntity<CustomerResponse> withValidators(CustomerResponse customer) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (customer.getVersion() != null) {
+            response.eTag(CustomerETags.of(customer.getVersion()));
+        }
+        if (customer.getLastModified() != null) {
+            response.lastModified(customer.getLastModified());
+        }
+        return response.body(customer);
+    }
+
 }
@@ -0,0 +1,38 @@
+package com.challenge.customermanagement.controller;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Strong ETags derived from the customer's {@code @Version}, e.g. {@code "3"}.
+ */
+final class CustomerETags {
+    private CustomerETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Versions listed in an {@code If-Match} header, or {@code null} when the header is absent or {@code *}.
+     * Weak and unrecognised tags never match, as required for {@code If-Match}.
+     */
+    static Set<Long> parseIfMatch(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours; leave it out so it cannot match
+                }
+            }
+        }
+        return versions;
+    }
+}
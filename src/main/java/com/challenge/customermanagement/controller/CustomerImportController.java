@@ -0,0 +1,45 @@
+package com.challenge.customermanagement.controller;
+
+import com.challenge.customermanagement.dto.ImportReport;
+import com.challenge.customermanagement.service.CustomerImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/customers")
+@RequiredArgsConstructor
+@Tag(name = "Customer", description = "CRUD operations for customers")
+public class CustomerImportController {
+    private final CustomerImportService customerImportService;
+
+    @Operation(
+            summary = "Import customers from a CSV file with a header row (name,email,annualSpend,lastPurchaseDate)",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import processed; see the report for rejected rows")
+            }
+    )
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importCsv(InputStream body) {
+        return ResponseEntity.ok(customerImportService.importCustomers(body, CustomerImportService.Format.CSV));
+    }
+
+    @Operation(
+            summary = "Import customers from newline-delimited JSON, one customer object per line",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import processed; see the report for rejected rows")
+            }
+    )
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importNdjson(InputStream body) {
+        return ResponseEntity.ok(customerImportService.importCustomers(body, CustomerImportService.Format.NDJSON));
+    }
+}
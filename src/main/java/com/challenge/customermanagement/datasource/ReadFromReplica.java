@@ -0,0 +1,15 @@
+package com.challenge.customermanagement.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose queries may be served by a replica when {@code customer.replicas.enabled}
+ * is set. Whether one is actually used is decided per call by {@link ReplicaReadAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromReplica {
+}
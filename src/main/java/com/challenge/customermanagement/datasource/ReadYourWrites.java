@@ -0,0 +1,64 @@
+package com.challenge.customermanagement.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Remembers when a client last wrote, so that its reads can avoid replicas that have not caught up with the
+ * write yet. The time travels in the {@code customer-last-write} cookie, and within the request that wrote
+ * in a request attribute. The cookie expires after the maximum replica lag: by then every replica still in
+ * use has the write. Outside an HTTP request nothing is remembered.
+ */
+final class ReadYourWrites {
+    static final String COOKIE = "customer-last-write";
+    private static final String ATTRIBUTE = ReadYourWrites.class.getName() + ".lastWrite";
+
+    private ReadYourWrites() {
+    }
+
+    static Instant lastWrite() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(ATTRIBUTE) instanceof Instant written) {
+            return written;
+        }
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Instant.ofEpochMilli(Long.parseLong(cookie.getValue()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    static void recordWrite(Duration maxLag) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        Instant now = Instant.now();
+        attributes.getRequest().setAttribute(ATTRIBUTE, now);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            // Rounded up to the next millisecond, so that a replica has to have seen a later heartbeat
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now.toEpochMilli() + 1));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, maxLag.toSeconds() + 1));
+            response.addCookie(cookie);
+        }
+    }
+}
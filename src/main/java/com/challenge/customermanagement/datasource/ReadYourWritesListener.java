@@ -0,0 +1,27 @@
+package com.challenge.customermanagement.datasource;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Records every commit of a read-write transaction for {@link ReadYourWrites}, however it was started:
+ * {@code @Transactional} methods as well as the {@code TransactionTemplate}s of the batch endpoints, the import
+ * and the tier job. Spring Boot adds {@link TransactionExecutionListener} beans to the transaction manager,
+ * which calls them once per outermost transaction.
+ */
+public class ReadYourWritesListener implements TransactionExecutionListener {
+    private final Duration maxLag;
+
+    ReadYourWritesListener(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            ReadYourWrites.recordWrite(maxLag);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.challenge.customermanagement.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Splits reads from writes when {@code customer.replicas.enabled} is set. The primary is the pool Spring Boot
+ * would otherwise create from {@code spring.datasource.*}; each of {@code customer.replicas.urls} gets a pool
+ * with the same credentials. Everything that asks for the {@code DataSource}, JPA included, gets the
+ * {@link ReplicaRoutingDataSource}, which sends connections to the primary unless a {@link ReadFromReplica}
+ * method routed them elsewhere.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customer.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(HikariDataSource primaryDataSource,
+                                         DataSourceProperties properties,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${customer.replicas.urls}") List<String> urls,
+                                         @Value("${customer.replicas.pool-size:10}") int poolSize,
+                                         @Value("${customer.replicas.connection-timeout:PT1S}") Duration connectionTimeout,
+                                         @Value("${customer.replicas.max-lag:PT5S}") Duration maxLag) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("customer.replicas.urls must list at least one replica");
+        }
+        return new ReplicaMonitor(primaryDataSource, properties, urls, poolSize, connectionTimeout, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource, ReplicaMonitor replicaMonitor) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaMonitor.dataSources(), replicaMonitor);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect(ObjectProvider<ReplicaRoutingDataSource> dataSource,
+                                               ObjectProvider<ReplicaMonitor> replicaMonitor,
+                                               ObjectProvider<PlatformTransactionManager> transactionManager) {
+        return new ReplicaReadAspect(dataSource, replicaMonitor, transactionManager);
+    }
+
+    @Bean
+    public ReadYourWritesListener readYourWritesListener(@Value("${customer.replicas.max-lag:PT5S}") Duration maxLag) {
+        return new ReadYourWritesListener(maxLag);
+    }
+}
@@ -0,0 +1,169 @@
+package com.challenge.customermanagement.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the replica connection pools and decides which of them reads may use. Every check writes the current
+ * time to the primary's {@code replication_heartbeat} row and reads the row back from each replica: the
+ * replicated value is how far that replica has caught up, and its age is the replica's lag. A replica is
+ * used while its last check succeeded and its lag is within {@code customer.replicas.max-lag}; one that
+ * cannot be reached, has no heartbeat yet or falls behind is skipped until a later check finds it healthy.
+ * <p>
+ * Replicas are picked round robin. A client that has written since the heartbeat some usable replica has
+ * seen reads from the primary instead, so that it sees its own write.
+ */
+@Slf4j
+public class ReplicaMonitor implements AutoCloseable {
+    static final String PRIMARY = "primary";
+    private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> reads = new ConcurrentHashMap<>();
+
+    public ReplicaMonitor(DataSource primary, DataSourceProperties dataSourceProperties, List<String> urls,
+                          int poolSize, Duration connectionTimeout, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.maxLag = maxLag;
+        this.meterRegistry = meterRegistry;
+        for (int index = 0; index < urls.size(); index++) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(index).trim())
+                    .build();
+            dataSource.setPoolName("customer-replica-" + index);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            Replica replica = new Replica("replica-" + index, dataSource);
+            replicas.add(replica);
+            Gauge.builder("customer.replica.lag", replica, r -> r.lag(Instant.now()).map(lag -> lag.toNanos() / 1e9).orElse(Double.NaN))
+                    .description("Age of the heartbeat last read from the replica")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("customer.replica.available", replica, r -> isUsable(r, Instant.now()) ? 1 : 0)
+                    .description("Whether reads may currently go to the replica")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    Map<String, HikariDataSource> dataSources() {
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    @Scheduled(fixedDelayString = "${customer.replicas.check-interval:PT1S}")
+    public void check() {
+        try {
+            Instant beat = Instant.now();
+            if (primary.update("UPDATE replication_heartbeat SET beat = ? WHERE id = 1", beat) == 0) {
+                primary.update("INSERT INTO replication_heartbeat (id, beat) VALUES (1, ?)", beat);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try {
+                replica.seen = replica.jdbcTemplate.queryForList(READ_HEARTBEAT, Instant.class).stream().findFirst().orElse(null);
+                replica.reachable = true;
+            } catch (DataAccessException e) {
+                markDown(replica.name, e);
+            }
+        }
+    }
+
+    /**
+     * The replica the current read should use, or {@code null} for the primary.
+     *
+     * @param lastWrite when the client last wrote, if it has recently
+     */
+    String choose(Instant lastWrite) {
+        Instant now = Instant.now();
+        List<Replica> usable = replicas.stream().filter(replica -> isUsable(replica, now)).toList();
+        if (usable.isEmpty()) {
+            return routed(PRIMARY, "unavailable");
+        }
+        if (lastWrite != null && usable.stream().anyMatch(replica -> !replica.hasSeen(lastWrite))) {
+            return routed(PRIMARY, "sticky");
+        }
+        return routed(usable.get(Math.floorMod(next.getAndIncrement(), usable.size())).name, "replica");
+    }
+
+    void markDown(String name, Exception cause) {
+        replicas.stream().filter(replica -> replica.name.equals(name)).forEach(replica -> {
+            if (replica.reachable) {
+                log.warn("Replica {} is unavailable, reading from the primary: {}", name, cause.getMessage());
+            }
+            replica.reachable = false;
+        });
+    }
+
+    private boolean isUsable(Replica replica, Instant now) {
+        return replica.reachable && replica.lag(now).filter(lag -> lag.compareTo(maxLag) <= 0).isPresent();
+    }
+
+    private String routed(String target, String reason) {
+        reads.computeIfAbsent(target + "/" + reason, key -> Counter.builder("customer.replica.reads")
+                .description("Reads that could go to a replica, by where they went and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry)).increment();
+        return PRIMARY.equals(target) ? null : target;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private volatile boolean reachable;
+        // Heartbeat last read from the replica; null until it has replicated one
+        private volatile Instant seen;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        boolean hasSeen(Instant write) {
+            Instant heartbeat = seen;
+            return heartbeat != null && !heartbeat.isBefore(write);
+        }
+
+        Optional<Duration> lag(Instant now) {
+            Instant heartbeat = seen;
+            return heartbeat == null ? Optional.empty() : Optional.of(Duration.between(heartbeat, now));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.challenge.customermanagement.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * Routes {@link ReadFromReplica} methods to the replica the {@link ReplicaMonitor} picks.
+ * <p>
+ * A read the monitor keeps on the primary because the client has just written runs in a read-only
+ * transaction there. Besides pinning its connection, that keeps it out of lookups coalesced with reads
+ * that went to a replica, which might not have the write yet.
+ */
+@Aspect
+public class ReplicaReadAspect {
+    // Looked up on use: aspects are created while post-processors are still being set up, and these beans
+    // (the monitor's @Scheduled check, the JPA transaction manager) must not be created that early
+    private final ObjectProvider<ReplicaRoutingDataSource> dataSource;
+    private final ObjectProvider<ReplicaMonitor> monitor;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    ReplicaReadAspect(ObjectProvider<ReplicaRoutingDataSource> dataSource, ObjectProvider<ReplicaMonitor> monitor,
+                      ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.dataSource = dataSource;
+        this.monitor = monitor;
+        this.transactionManager = transactionManager;
+    }
+
+    @Around("@annotation(com.challenge.customermanagement.datasource.ReadFromReplica)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inside a transaction the read has to see what the transaction wrote on the primary
+        ReplicaRoutingDataSource routing = dataSource.getObject();
+        if (TransactionSynchronizationManager.isActualTransactionActive() || routing.replica() != null) {
+            return joinPoint.proceed();
+        }
+        Instant lastWrite = ReadYourWrites.lastWrite();
+        String replica = monitor.getObject().choose(lastWrite);
+        if (replica == null) {
+            return lastWrite == null ? joinPoint.proceed() : onPrimary(joinPoint);
+        }
+        routing.replica(replica);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            routing.replica(null);
+        }
+    }
+
+    private Object onPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        TransactionTemplate primaryRead = new TransactionTemplate(transactionManager.getObject());
+        primaryRead.setReadOnly(true);
+        Throwable[] failure = new Throwable[1];
+        Object result = primaryRead.execute(status -> {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                failure[0] = e;
+                status.setRollbackOnly();
+                return null;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.challenge.customermanagement.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application's {@link DataSource} when replicas are enabled. Connections come from the primary unless
+ * the current thread is inside a read that {@link ReplicaReadAspect} has sent to a replica. If that replica
+ * cannot hand out a connection, the {@link ReplicaMonitor} is told and the primary serves the read instead.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private final ThreadLocal<String> replica = new ThreadLocal<>();
+    private final DataSource primary;
+    private final ReplicaMonitor monitor;
+
+    ReplicaRoutingDataSource(DataSource primary, Map<String, ? extends DataSource> replicas, ReplicaMonitor monitor) {
+        this.primary = primary;
+        this.monitor = monitor;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(ReplicaMonitor.PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    String replica() {
+        return replica.get();
+    }
+
+    void replica(String name) {
+        if (name == null) {
+            replica.remove();
+        } else {
+            replica.set(name);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String name = replica.get();
+        return name != null ? name : ReplicaMonitor.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String name = replica.get();
+        if (name == null) {
+            return primary.getConnection();
+        }
+        try {
+            return determineTargetDataSource().getConnection();
+        } catch (SQLException e) {
+            monitor.markDown(name, e);
+            return primary.getConnection();
+        }
+    }
+}
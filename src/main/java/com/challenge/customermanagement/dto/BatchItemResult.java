@@ -0,0 +1,19 @@
+package com.challenge.customermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private int index;
+    private String id;
+    private BatchItemStatus status;
+    private Map<String, String> errors;
+}
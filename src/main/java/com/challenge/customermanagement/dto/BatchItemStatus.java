@@ -0,0 +1,10 @@
+package com.challenge.customermanagement.dto;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    INVALID,
+    NOT_FOUND,
+    FAILED
+}
@@ -0,0 +1,16 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> results;
+}
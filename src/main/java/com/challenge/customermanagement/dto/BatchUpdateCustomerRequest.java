@@ -0,0 +1,25 @@
+package com.challenge.customermanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class BatchUpdateCustomerRequest extends UpdateCustomerRequest {
+    @Schema(description = "ID of the customer to update", required = true)
+    @NotNull(message = "Customer 'id' is required")
+    private UUID id;
+
+    public BatchUpdateCustomerRequest(UUID id, String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate) {
+        super(name, email, annualSpend, lastPurchaseDate);
+        this.id = id;
+    }
+}
@@ -0,0 +1,34 @@
+package com.challenge.customermanagement.dto;
+
+import com.challenge.customermanagement.model.CustomerChangeType;
+import com.challenge.customermanagement.model.CustomerTier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerChangeEvent {
+    private long sequence;
+    private CustomerChangeType type;
+    private String customerId;
+    private Long version;
+    private Instant occurredAt;
+
+    // State after the change; null for deletions
+    private CustomerResponse customer;
+
+    // Target of the JPA constructor projection in CustomerChangeRepository
+    public CustomerChangeEvent(Long sequence, CustomerChangeType type, UUID customerId, Long version, Instant occurredAt,
+                               String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate, CustomerTier tier) {
+        this(sequence, type, customerId.toString(), version, occurredAt, type == CustomerChangeType.DELETED
+                ? null
+                : new CustomerResponse(customerId, name, email, annualSpend, lastPurchaseDate, tier, version, occurredAt));
+    }
+}
@@ -0,0 +1,17 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerChanges {
+    private List<CustomerChangeEvent> changes;
+
+    // Sequence to pass as ?since= on the next request
+    private long next;
+}
@@ -0,0 +1,15 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPage {
+    private List<CustomerResponse> items;
+    private String next;
+}
@@ -1,11 +1,15 @@
 package com.challenge.customermanagement.dto;
 
+import com.challenge.customermanagement.model.CustomerTier;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.UUID;
 
 @Data
 @NoArgsConstructor
@@ -17,4 +21,25 @@ public class CustomerResponse {
     private BigDecimal annualSpend;
     private LocalDate lastPurchaseDate;
     private String tier;
+
+    // Sent as the ETag and Last-Modified headers rather than in the body
+    @JsonIgnore
+    private Long version;
+
+    @JsonIgnore
+    private Instant lastModified;
+
+    public CustomerResponse(String id, String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate, String tier) {
+        this(id, name, email, annualSpend, lastPurchaseDate, tier, null, null);
+    }
+
+    // Targets of JPA constructor projections, which select straight into the response
+    public CustomerResponse(UUID id, String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate, CustomerTier tier) {
+        this(id, name, email, annualSpend, lastPurchaseDate, tier, null, null);
+    }
+
+    public CustomerResponse(UUID id, String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate, CustomerTier tier,
+                            Long version, Instant lastModified) {
+        this(id.toString(), name, email, annualSpend, lastPurchaseDate, tier == null ? null : tier.getLabel(), version, lastModified);
+    }
 }
@@ -0,0 +1,63 @@
+package com.challenge.customermanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSearchRequest {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Schema(description = "Case-sensitive prefix of the customer's name", example = "Vic")
+    private String namePrefix;
+
+    @Schema(description = "Email domain, matched case-insensitively", example = "samplecompany.com")
+    private String emailDomain;
+
+    @Schema(description = "Minimum annual spend (inclusive)", example = "1000.00")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Minimum spend must be a positive value")
+    private BigDecimal minSpend;
+
+    @Schema(description = "Maximum annual spend (inclusive)", example = "10000.00")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Maximum spend must be a positive value")
+    private BigDecimal maxSpend;
+
+    @Schema(description = "Earliest last purchase date (inclusive)", example = "2024-01-01")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate purchasedFrom;
+
+    @Schema(description = "Latest last purchase date (inclusive)", example = "2024-12-31")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate purchasedTo;
+
+    @Schema(description = "Membership tier", example = "Gold")
+    private String tier;
+
+    @Schema(description = "Field to sort by", example = "annualSpend", defaultValue = "id")
+    @Pattern(regexp = "id|name|email|annualSpend|lastPurchaseDate", message = "Sort must be one of id, name, email, annualSpend, lastPurchaseDate")
+    private String sort = "id";
+
+    @Schema(description = "Sort direction", example = "desc", defaultValue = "asc")
+    @Pattern(regexp = "asc|desc", message = "Direction must be asc or desc")
+    private String direction = "asc";
+
+    @Schema(description = "Zero-based page number", defaultValue = "0")
+    @Min(value = 0, message = "Page must not be negative")
+    private int page = 0;
+
+    @Schema(description = "Page size", defaultValue = "20")
+    @Min(value = 1, message = "Size must be at least 1")
+    @Max(value = MAX_PAGE_SIZE, message = "Size must not exceed " + MAX_PAGE_SIZE)
+    private int size = 20;
+}
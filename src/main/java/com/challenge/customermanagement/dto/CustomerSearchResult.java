@@ -0,0 +1,17 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSearchResult {
+    private List<CustomerResponse> items;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,22 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatsResponse {
+    private long totalCustomers;
+    private Map<String, Long> customersByTier;
+    private BigDecimal totalAnnualSpend;
+    private BigDecimal averageAnnualSpend;
+    private List<SpendBucket> spendHistogram;
+    private Instant lastReconciledAt;
+}
@@ -0,0 +1,19 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private boolean completed;
+    private List<ImportRowError> errors;
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,16 @@
+package com.challenge.customermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendBucket {
+    private BigDecimal from;
+    private BigDecimal to;
+    private long customers;
+}
@@ -0,0 +1,7 @@
+package com.challenge.customermanagement.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.challenge.customermanagement.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+public class DatabaseBusyException extends RuntimeException {
+    public static final String MESSAGE = "Database is busy, please retry later";
+
+    public DatabaseBusyException(String message) {
+        super(message);
+    }
+
+    // True if the request failed because no pooled connection freed up within the pool's connection timeout
+    public static boolean isCause(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseBusyException || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
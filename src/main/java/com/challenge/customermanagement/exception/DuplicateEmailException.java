@@ -0,0 +1,40 @@
+package com.challenge.customermanagement.exception;
+
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerEmail;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Locale;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateEmailException extends RuntimeException {
+    public static final String MESSAGE = "A customer with this email already exists";
+
+    public DuplicateEmailException() {
+        super(MESSAGE);
+    }
+
+    // True if the write failed on a duplicate email, whether the service or the unique constraint caught it
+    public static boolean isCause(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateEmailException) {
+                return true;
+            }
+            if (cause instanceof ConstraintViolationException violation && isEmailConstraint(violation.getConstraintName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The name as the dialect extracts it, which may carry a schema prefix or an index suffix
+    private static boolean isEmailConstraint(String constraintName) {
+        if (constraintName == null) {
+            return false;
+        }
+        String name = constraintName.toLowerCase(Locale.ROOT);
+        return name.contains(Customer.EMAIL_UNIQUE_CONSTRAINT) || name.contains(CustomerEmail.UNIQUE_CONSTRAINT);
+    }
+}
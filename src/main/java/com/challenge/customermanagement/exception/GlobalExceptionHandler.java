@@ -1,10 +1,16 @@
 package com.challenge.customermanagement.exception;
 
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -13,15 +19,66 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
 
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<String> handleCustomerNotFoundException(CustomerNotFoundException ex) {
+        countError("not_found");
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
+    // Hikari gives up after its connection timeout; the failure reaches here wrapped by the transaction manager
+    // or by exception translation, and anything else with these types is left to the default handling
+    @ExceptionHandler({DatabaseBusyException.class, CannotCreateTransactionException.class,
+            TransientDataAccessResourceException.class})
+    public ResponseEntity<String> handleDatabaseBusyException(Exception ex) throws Exception {
+        if (!DatabaseBusyException.isCause(ex)) {
+            throw ex;
+        }
+        countError("database_busy");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(DatabaseBusyException.MESSAGE);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException ex) {
+        countError("precondition_failed");
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<String> handleChangesExpiredException(ChangesExpiredException ex) {
+        countError("changes_expired");
+        return ResponseEntity.status(HttpStatus.GONE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ResponseEntity<String> handleDuplicateEmailException(DuplicateEmailException ex) {
+        countError("duplicate_email");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    // A duplicate that got past the service's check is rejected by the unique constraint at flush or commit
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        if (DuplicateEmailException.isCause(ex)) {
+            countError("duplicate_email");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(DuplicateEmailException.MESSAGE);
+        }
+        countError("data_integrity");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Request conflicts with the stored data");
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        countError("conflict");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Customer was modified concurrently, please retry");
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        countError("validation");
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
                 errors.put(error.getField(), error.getDefaultMessage()));
@@ -30,19 +87,27 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<String> handleConstraintViolation(ConstraintViolationException ex) {
+        countError("validation");
         return ResponseEntity.badRequest().body("Validation error: " + ex.getMessage());
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        countError("bad_request");
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<String> handleHttpMessageNotReadable(HttpMessageNotReadableException ex) {
+        countError("malformed_body");
         if (ex.getCause() instanceof UnrecognizedPropertyException) {
             return ResponseEntity.badRequest().body("Request contains unknown or forbidden fields (e.g., 'id')");
         }
         return ResponseEntity.badRequest().body("Malformed JSON or invalid request body");
     }
+
+    // Exported as customer_api_errors_total{error="..."}
+    private void countError(String error) {
+        meterRegistry.counter("customer.api.errors", "error", error).increment();
+    }
 }
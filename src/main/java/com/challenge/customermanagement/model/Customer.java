@@ -3,18 +3,39 @@ package com.challenge.customermanagement.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
+@Table(name = "customer", uniqueConstraints = {
+        @UniqueConstraint(name = Customer.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email_normalized")
+}, indexes = {
+        @Index(name = "idx_customer_name", columnList = "name"),
+        @Index(name = "idx_customer_email_domain", columnList = "email_domain"),
+        @Index(name = "idx_customer_annual_spend", columnList = "annual_spend"),
+        @Index(name = "idx_customer_last_purchase_date", columnList = "last_purchase_date"),
+        @Index(name = "idx_customer_tier", columnList = "tier, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Customer {
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_customer_email_normalized";
+
+    // Time-ordered and generated in the application, stored as 16 raw bytes. Ids generated before the
+    // switch to UUIDv7 are still valid; they just sort before or among the new ones at random
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     @NotBlank(message = "Name is required")
@@ -25,8 +46,49 @@ public class Customer {
     @Email(message = "Invalid email format")
     private String email;
 
+    // Lookup key for email searches and unique across customers; kept in sync with email on every write
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
+    // Part of the normalized email after '@', so domain searches are index lookups rather than suffix scans
+    @Column(name = "email_domain")
+    private String emailDomain;
+
     @DecimalMin(value = "0.0", inclusive = true, message = "Annual spend must be a positive value")
     private BigDecimal annualSpend;
 
     private LocalDate lastPurchaseDate;
+
+    // Stored so that tier filters are index lookups; recalculated on writes and by CustomerTierRecalculationJob
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CustomerTier tier;
+
+    // Incremented on every update; doubles as the ETag and guards against lost updates.
+    // The default covers rows inserted outside JPA
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    private Instant lastModified;
+
+    @PrePersist
+    @PreUpdate
+    void updateDerivedColumns() {
+        lastModified = Instant.now();
+        emailNormalized = normalizeEmail(email);
+        emailDomain = emailDomain(emailNormalized);
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String emailDomain(String normalizedEmail) {
+        if (normalizedEmail == null) {
+            return null;
+        }
+        return normalizedEmail.substring(normalizedEmail.indexOf('@') + 1);
+    }
 }
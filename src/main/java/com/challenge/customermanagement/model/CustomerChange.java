@@ -0,0 +1,65 @@
+package com.challenge.customermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One row of the transactional outbox: a customer write, recorded in the same transaction as the write
+ * itself, together with the customer's state after it. Rows are published to the change feed by
+ * {@code CustomerChangePublisher}, which gives them their feed sequence.
+ */
+@Entity
+@Table(name = "customer_change", indexes = {
+        @Index(name = "idx_customer_change_sequence", columnList = "feed_sequence", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerChange {
+    // Drawn just before commit, while the customer row is locked, so two changes to one customer are numbered
+    // in commit order. A pooled allocation would hand out ids ahead of time and lose that
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_change_id")
+    @SequenceGenerator(name = "customer_change_id", sequenceName = "customer_change_id_seq", allocationSize = 1)
+    private Long id;
+
+    // Position in the change feed, assigned in publish order; null until published
+    @Column(name = "feed_sequence")
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private CustomerChangeType type;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, nullable = false)
+    private UUID customerId;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    private Instant publishedAt;
+
+    // State after the change; null for deletions
+    private String name;
+
+    private String email;
+
+    private BigDecimal annualSpend;
+
+    private LocalDate lastPurchaseDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CustomerTier tier;
+}
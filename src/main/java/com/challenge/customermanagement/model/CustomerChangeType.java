@@ -0,0 +1,7 @@
+package com.challenge.customermanagement.model;
+
+public enum CustomerChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,58 @@
+package com.challenge.customermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+/**
+ * The normalized email a customer of the sharded store holds. Each shard's unique constraint only sees its
+ * own customers; this table on the main database sees all of them, so of two writes racing for one email
+ * on different shards, one fails here. Rows are written in the main transaction of the customer write; see
+ * {@code ShardedCustomerStore}.
+ */
+@Entity
+@Table(name = "customer_email", uniqueConstraints = {
+        @UniqueConstraint(name = CustomerEmail.UNIQUE_CONSTRAINT, columnNames = "email_normalized")
+})
+@Data
+@NoArgsConstructor
+public class CustomerEmail implements Persistable<UUID> {
+    public static final String UNIQUE_CONSTRAINT = "uk_customer_email_claim";
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "customer_id", length = 16)
+    private UUID customerId;
+
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
+    // Ids are assigned, so without this every save would look the row up first to tell insert from update
+    @Transient
+    private boolean stored;
+
+    public CustomerEmail(UUID customerId, String emailNormalized) {
+        this.customerId = customerId;
+        this.emailNormalized = emailNormalized;
+    }
+
+    @Override
+    public UUID getId() {
+        return customerId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.challenge.customermanagement.model;
+
+public enum CustomerTier {
+    SILVER("Silver"),
+    GOLD("Gold"),
+    PLATINUM("Platinum");
+
+    private final String label;
+
+    CustomerTier(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static CustomerTier fromLabel(String label) {
+        for (CustomerTier tier : values()) {
+            if (tier.label.equalsIgnoreCase(label)) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("Unknown customer tier: " + label);
+    }
+}
@@ -0,0 +1,23 @@
+package com.challenge.customermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A single row the primary rewrites with the current time every replica check. How old the copy of it
+ * on a replica is tells how far that replica lags behind; see {@code ReplicaMonitor}.
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicationHeartbeat {
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Instant beat;
+}
@@ -0,0 +1,17 @@
+package com.challenge.customermanagement.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id generated by {@link TimeOrderedUuidGenerator} unless one has been assigned.
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedUuid {
+}
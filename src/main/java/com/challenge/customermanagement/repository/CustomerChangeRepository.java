@@ -0,0 +1,37 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.model.CustomerChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CustomerChangeRepository extends JpaRepository<CustomerChange, Long> {
+
+    List<CustomerChange> findBySequenceIsNullOrderByIdAsc(Limit limit);
+
+    @Query("select new com.challenge.customermanagement.dto.CustomerChangeEvent(c.sequence, c.type, c.customerId, c.version, " +
+            "c.occurredAt, c.name, c.email, c.annualSpend, c.lastPurchaseDate, c.tier) from CustomerChange c " +
+            "where c.sequence > :since order by c.sequence")
+    List<CustomerChangeEvent> findPublishedAfter(@Param("since") long since, Limit limit);
+
+    @Query("select max(c.sequence) from CustomerChange c")
+    Long findLastSequence();
+
+    @Query("select min(c.sequence) from CustomerChange c")
+    Long findFirstSequence();
+
+    @Query("select max(c.sequence) from CustomerChange c where c.publishedAt < :cutoff")
+    Long findLastSequencePublishedBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from CustomerChange c where c.sequence <= :sequence")
+    int deletePublishedThrough(@Param("sequence") long sequence);
+}
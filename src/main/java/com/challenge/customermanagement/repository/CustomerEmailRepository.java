@@ -0,0 +1,11 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.CustomerEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface CustomerEmailRepository extends JpaRepository<CustomerEmail, UUID> {
+}
@@ -0,0 +1,41 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.CustomerTier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Column values for {@link CustomerWriteRepository#updateReturningPrevious}. Null fields keep their stored value.
+ * {@code emailNormalized} and {@code emailDomain} must be set whenever {@code email} is. The tier is derived in
+ * the statement from the resulting spend and purchase date: Platinum needs {@code platinumMinSpend} and a purchase
+ * after {@code platinumPurchasedAfter}, Gold needs {@code goldMinSpend} and a purchase after {@code goldPurchasedAfter}.
+ */
+public record CustomerPatch(
+        String name,
+        String email,
+        String emailNormalized,
+        String emailDomain,
+        BigDecimal annualSpend,
+        LocalDate lastPurchaseDate,
+        Instant lastModified,
+        BigDecimal platinumMinSpend,
+        LocalDate platinumPurchasedAfter,
+        BigDecimal goldMinSpend,
+        LocalDate goldPurchasedAfter) {
+
+    // The tier rule of the update statement, for stores that apply the patch in memory
+    public CustomerTier tierFor(BigDecimal spend, LocalDate lastPurchaseDate) {
+        if (spend == null || lastPurchaseDate == null) {
+            return CustomerTier.SILVER;
+        }
+        if (spend.compareTo(platinumMinSpend) >= 0) {
+            return lastPurchaseDate.isAfter(platinumPurchasedAfter) ? CustomerTier.PLATINUM : CustomerTier.SILVER;
+        }
+        if (spend.compareTo(goldMinSpend) >= 0 && lastPurchaseDate.isAfter(goldPurchasedAfter)) {
+            return CustomerTier.GOLD;
+        }
+        return CustomerTier.SILVER;
+    }
+}
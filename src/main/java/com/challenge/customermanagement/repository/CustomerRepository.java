@@ -1,17 +1,97 @@
 package com.challenge.customermanagement.repository;
 
+import com.challenge.customermanagement.dto.CustomerResponse;
 import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerSearchRepository, CustomerWriteRepository {
+    // Read paths select straight into the response, so no managed entities or dirty-checking snapshots are created
+    String SELECT_RESPONSE = "select new com.challenge.customermanagement.dto.CustomerResponse(" +
+            "c.id, c.name, c.email, c.annualSpend, c.lastPurchaseDate, c.tier, c.version, c.lastModified) from Customer c ";
+
     Optional<Customer> findByName(String name);
     Optional<Customer> findByEmail(String email);
     List<Customer> findAllByName(String name);
     List<Customer> findAllByEmail(String email);
+
+    Optional<CustomerVersion> findVersionById(UUID id);
+
+    @Query(SELECT_RESPONSE + "where c.id = :id")
+    Optional<CustomerResponse> findResponseById(@Param("id") UUID id);
+
+    @Query(SELECT_RESPONSE + "where c.id in :ids")
+    List<CustomerResponse> findResponsesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(SELECT_RESPONSE + "where c.name = :name")
+    List<CustomerResponse> findResponsesByName(@Param("name") String name);
+
+    @Query(SELECT_RESPONSE + "where c.emailNormalized = :emailNormalized")
+    List<CustomerResponse> findResponsesByEmailNormalized(@Param("emailNormalized") String emailNormalized);
+
+    @Query(SELECT_RESPONSE + "order by c.id")
+    List<CustomerResponse> findResponsesOrderedById(Limit limit);
+
+    @Query(SELECT_RESPONSE + "where c.id > :after order by c.id")
+    List<CustomerResponse> findResponsesAfterId(@Param("after") UUID after, Limit limit);
+
+    @Query(SELECT_RESPONSE + "where c.tier = :tier order by c.id")
+    List<CustomerResponse> findResponsesByTier(@Param("tier") CustomerTier tier, Limit limit);
+
+    @Query(SELECT_RESPONSE + "where c.tier = :tier and c.id > :after order by c.id")
+    List<CustomerResponse> findResponsesByTierAfterId(@Param("tier") CustomerTier tier, @Param("after") UUID after, Limit limit);
+
+    @Query(SELECT_RESPONSE + "where c.tier is null and (:after is null or c.id > :after) order by c.id")
+    List<CustomerResponse> findResponsesWithoutTier(@Param("after") UUID after, Limit limit);
+
+    @Query("select c.id as id, c.name as name, c.email as email, c.tier as tier, c.annualSpend as annualSpend, " +
+            "c.version as version from Customer c where c.id in :ids")
+    List<CustomerSnapshot> findSnapshots(@Param("ids") Collection<UUID> ids);
+
+    @Query("select c.tier as tier, count(c) as customers, count(c.annualSpend) as customersWithSpend, " +
+            "sum(c.annualSpend) as totalSpend from Customer c group by c.tier")
+    List<TierAggregate> aggregateByTier();
+
+    long countByAnnualSpendGreaterThanEqualAndAnnualSpendLessThan(BigDecimal from, BigDecimal to);
+    long countByAnnualSpendGreaterThanEqual(BigDecimal from);
+
+    @Query(SELECT_RESPONSE + "where c.tier = :tier and c.lastPurchaseDate < :purchasedBefore " +
+            "and (:after is null or c.id > :after) order by c.id")
+    List<CustomerResponse> findTierRecalculationCandidates(@Param("tier") CustomerTier tier,
+                                                   @Param("purchasedBefore") LocalDate purchasedBefore,
+                                                   @Param("after") UUID after,
+                                                   Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "order by c.id")
+    Stream<CustomerResponse> streamAllResponsesOrderedById();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.emailNormalized from Customer c where c.emailNormalized is not null")
+    Stream<String> streamAllEmailsNormalized();
+
+    @Transactional
+    @Modifying
+    @Query("update Customer c set c.emailNormalized = lower(trim(c.email)), " +
+            "c.emailDomain = substring(lower(trim(c.email)), locate('@', lower(trim(c.email))) + 1) where c.id in " +
+            "(select c2.id from Customer c2 where c2.emailDomain is null order by c2.id limit :batchSize)")
+    int backfillEmailLookupColumns(@Param("batchSize") int batchSize);
 }
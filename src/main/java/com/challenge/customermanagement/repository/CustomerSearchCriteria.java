@@ -0,0 +1,22 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.CustomerTier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Filters for {@link CustomerSearchRepository#search}. Null fields are not applied.
+ * {@code emailDomain} must already be normalized; {@code sortBy} is a {@code Customer} attribute name.
+ */
+public record CustomerSearchCriteria(
+        String namePrefix,
+        String emailDomain,
+        BigDecimal minSpend,
+        BigDecimal maxSpend,
+        LocalDate purchasedFrom,
+        LocalDate purchasedTo,
+        CustomerTier tier,
+        String sortBy,
+        boolean descending) {
+}
@@ -0,0 +1,9 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+
+import java.util.List;
+
+public interface CustomerSearchRepository {
+    List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit);
+}
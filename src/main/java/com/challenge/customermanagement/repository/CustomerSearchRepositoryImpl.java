@@ -0,0 +1,82 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the search as a single criteria query that selects directly into {@link CustomerResponse},
+ * so no entities are loaded into the persistence context. Every filter maps to an indexed column.
+ */
+@RequiredArgsConstructor
+public class CustomerSearchRepositoryImpl implements CustomerSearchRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CustomerResponse> query = cb.createQuery(CustomerResponse.class);
+        Root<Customer> customer = query.from(Customer.class);
+
+        query.select(cb.construct(CustomerResponse.class,
+                customer.get("id"),
+                customer.get("name"),
+                customer.get("email"),
+                customer.get("annualSpend"),
+                customer.get("lastPurchaseDate"),
+                customer.get("tier")));
+        query.where(predicates(cb, customer, criteria).toArray(new Predicate[0]));
+
+        // id breaks ties so that pages are stable
+        List<Order> order = new ArrayList<>();
+        order.add(criteria.descending() ? cb.desc(customer.get(criteria.sortBy())) : cb.asc(customer.get(criteria.sortBy())));
+        if (!"id".equals(criteria.sortBy())) {
+            order.add(cb.asc(customer.get("id")));
+        }
+        query.orderBy(order);
+
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<Predicate> predicates(CriteriaBuilder cb, Root<Customer> customer, CustomerSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.namePrefix() != null) {
+            predicates.add(cb.like(customer.get("name"), escapeLike(criteria.namePrefix()) + "%", '\\'));
+        }
+        if (criteria.emailDomain() != null) {
+            predicates.add(cb.equal(customer.get("emailDomain"), criteria.emailDomain()));
+        }
+        if (criteria.minSpend() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(customer.get("annualSpend"), criteria.minSpend()));
+        }
+        if (criteria.maxSpend() != null) {
+            predicates.add(cb.lessThanOrEqualTo(customer.get("annualSpend"), criteria.maxSpend()));
+        }
+        if (criteria.purchasedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(customer.get("lastPurchaseDate"), criteria.purchasedFrom()));
+        }
+        if (criteria.purchasedTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(customer.get("lastPurchaseDate"), criteria.purchasedTo()));
+        }
+        if (criteria.tier() != null) {
+            predicates.add(cb.equal(customer.get("tier"), criteria.tier()));
+        }
+        return predicates;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,18 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.CustomerTier;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The columns a bulk delete needs to undo a customer's cache entries, statistics contribution and read index row.
+ */
+public interface CustomerSnapshot {
+    UUID getId();
+    String getName();
+    String getEmail();
+    CustomerTier getTier();
+    BigDecimal getAnnualSpend();
+    Long getVersion();
+}
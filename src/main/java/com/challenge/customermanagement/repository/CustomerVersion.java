@@ -0,0 +1,11 @@
+package com.challenge.customermanagement.repository;
+
+import java.time.Instant;
+
+/**
+ * Just enough of a customer to answer a conditional GET without loading the entity.
+ */
+public interface CustomerVersion {
+    Long getVersion();
+    Instant getLastModified();
+}
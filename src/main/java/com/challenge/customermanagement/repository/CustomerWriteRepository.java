@@ -0,0 +1,27 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.Customer;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CustomerWriteRepository {
+    /**
+     * Applies {@code patch} and increments the version in one conditional write. Returns the row as it was before the
+     * update, or empty if no row has this id (or, with {@code expectedVersions}, none of these versions).
+     */
+    Optional<Customer> updateReturningPrevious(UUID id, CustomerPatch patch, Collection<Long> expectedVersions);
+
+    /**
+     * Deletes the row and returns it as it was, or empty if no row has this id.
+     */
+    Optional<Customer> deleteReturningPrevious(UUID id);
+
+    /**
+     * Takes back a committed write, provided nothing has changed the row since: puts {@code previous} back, version
+     * included, or deletes the row if {@code previous} is null. {@code writtenVersion} is the version the write left,
+     * or null if it deleted the row. Returns whether the row was restored.
+     */
+    boolean restore(UUID id, Long writtenVersion, Customer previous);
+}
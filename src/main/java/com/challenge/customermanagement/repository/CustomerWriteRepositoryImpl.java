@@ -0,0 +1,142 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.Customer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Conditional writes in portable SQL. A single {@code UPDATE ... WHERE id = :id [AND version IN (:versions)]}
+ * increments the version and decides the outcome from its row count: zero means the row is missing or has
+ * another version, and the caller finds out which only then. One row means this transaction now holds the
+ * row lock, so the row read next is exactly the state the patch or delete replaces (for statistics and the
+ * email filter), under any isolation level and without retrying. Only the columns present in the patch are
+ * assigned.
+ */
+@RequiredArgsConstructor
+public class CustomerWriteRepositoryImpl implements CustomerWriteRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Optional<Customer> updateReturningPrevious(UUID id, CustomerPatch patch, Collection<Long> expectedVersions) {
+        StringBuilder set = new StringBuilder("last_modified = :lastModified");
+        if (patch.name() != null) {
+            set.append(", name = :name");
+        }
+        if (patch.email() != null) {
+            set.append(", email = :email, email_normalized = :emailNormalized, email_domain = :emailDomain");
+        }
+        if (patch.annualSpend() != null) {
+            set.append(", annual_spend = :annualSpend");
+        }
+        if (patch.lastPurchaseDate() != null) {
+            set.append(", last_purchase_date = :lastPurchaseDate");
+        }
+        // Column references on the right-hand side read the values from before this update
+        String spend = patch.annualSpend() != null ? ":annualSpend" : "annual_spend";
+        String purchased = patch.lastPurchaseDate() != null ? ":lastPurchaseDate" : "last_purchase_date";
+        set.append(", tier = ").append("""
+                CASE WHEN %1$s IS NULL OR %2$s IS NULL THEN 'SILVER'
+                     WHEN %1$s >= :platinumMinSpend THEN CASE WHEN %2$s > :platinumPurchasedAfter THEN 'PLATINUM' ELSE 'SILVER' END
+                     WHEN %1$s >= :goldMinSpend AND %2$s > :goldPurchasedAfter THEN 'GOLD'
+                     ELSE 'SILVER' END""".formatted(spend, purchased));
+
+        Query query = entityManager.createNativeQuery("UPDATE customer SET " + set + " WHERE id = :id");
+        query.setParameter("id", id)
+                .setParameter("lastModified", patch.lastModified())
+                .setParameter("platinumMinSpend", patch.platinumMinSpend())
+                .setParameter("platinumPurchasedAfter", patch.platinumPurchasedAfter())
+                .setParameter("goldMinSpend", patch.goldMinSpend())
+                .setParameter("goldPurchasedAfter", patch.goldPurchasedAfter());
+        if (patch.name() != null) {
+            query.setParameter("name", patch.name());
+        }
+        if (patch.email() != null) {
+            query.setParameter("email", patch.email())
+                    .setParameter("emailNormalized", patch.emailNormalized())
+                    .setParameter("emailDomain", patch.emailDomain());
+        }
+        if (patch.annualSpend() != null) {
+            query.setParameter("annualSpend", patch.annualSpend());
+        }
+        if (patch.lastPurchaseDate() != null) {
+            query.setParameter("lastPurchaseDate", patch.lastPurchaseDate());
+        }
+        return writeIfUnchanged(id, expectedVersions, query);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Customer> deleteReturningPrevious(UUID id) {
+        Query query = entityManager.createNativeQuery("DELETE FROM customer WHERE id = :id")
+                .setParameter("id", id);
+        return writeIfUnchanged(id, null, query);
+    }
+
+    @Override
+    @Transactional
+    public boolean restore(UUID id, Long writtenVersion, Customer previous) {
+        if (previous == null) {
+            return entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id AND c.version = :version")
+                    .setParameter("id", id)
+                    .setParameter("version", writtenVersion)
+                    .executeUpdate() == 1;
+        }
+        Query restore = writtenVersion == null
+                ? entityManager.createQuery("""
+                        INSERT INTO Customer (id, name, email, emailNormalized, emailDomain, annualSpend, lastPurchaseDate,
+                            tier, version, lastModified)
+                        VALUES (:id, :name, :email, :emailNormalized, :emailDomain, :annualSpend, :lastPurchaseDate,
+                            :tier, :previousVersion, :lastModified)""")
+                : entityManager.createQuery("""
+                        UPDATE Customer c SET c.name = :name, c.email = :email, c.emailNormalized = :emailNormalized,
+                            c.emailDomain = :emailDomain, c.annualSpend = :annualSpend, c.lastPurchaseDate = :lastPurchaseDate,
+                            c.tier = :tier, c.version = :previousVersion, c.lastModified = :lastModified
+                        WHERE c.id = :id AND c.version = :version""")
+                .setParameter("version", writtenVersion);
+        return restore.setParameter("id", id)
+                .setParameter("name", previous.getName())
+                .setParameter("email", previous.getEmail())
+                .setParameter("emailNormalized", previous.getEmailNormalized())
+                .setParameter("emailDomain", previous.getEmailDomain())
+                .setParameter("annualSpend", previous.getAnnualSpend())
+                .setParameter("lastPurchaseDate", previous.getLastPurchaseDate())
+                .setParameter("tier", previous.getTier())
+                .setParameter("previousVersion", previous.getVersion())
+                .setParameter("lastModified", previous.getLastModified())
+                .executeUpdate() == 1;
+    }
+
+    private Optional<Customer> writeIfUnchanged(UUID id, Collection<Long> expectedVersions, Query write) {
+        Query claim = entityManager.createQuery("UPDATE Customer c SET c.version = c.version + 1 WHERE c.id = :id"
+                        + (expectedVersions != null ? " AND c.version IN :versions" : ""))
+                .setParameter("id", id);
+        if (expectedVersions != null) {
+            claim.setParameter("versions", expectedVersions);
+        }
+        if (claim.executeUpdate() == 0) {
+            return Optional.empty();
+        }
+        Customer previous = currentRow(id).orElseThrow();
+        previous.setVersion(previous.getVersion() - 1);
+        write.executeUpdate();
+        return Optional.of(previous);
+    }
+
+    // A constructor expression, so the result is never a managed (and possibly stale) instance
+    private Optional<Customer> currentRow(UUID id) {
+        return entityManager.createQuery("""
+                        SELECT new com.challenge.customermanagement.model.Customer(c.id, c.name, c.email, c.emailNormalized,
+                            c.emailDomain, c.annualSpend, c.lastPurchaseDate, c.tier, c.version, c.lastModified)
+                        FROM Customer c WHERE c.id = :id""", Customer.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+}
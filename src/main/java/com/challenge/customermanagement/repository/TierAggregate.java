@@ -0,0 +1,12 @@
+package com.challenge.customermanagement.repository;
+
+import com.challenge.customermanagement.model.CustomerTier;
+
+import java.math.BigDecimal;
+
+public interface TierAggregate {
+    CustomerTier getTier();
+    long getCustomers();
+    long getCustomersWithSpend();
+    BigDecimal getTotalSpend();
+}
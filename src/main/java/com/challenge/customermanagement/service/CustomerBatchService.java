@@ -0,0 +1,225 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.BatchItemResult;
+import com.challenge.customermanagement.dto.BatchItemStatus;
+import com.challenge.customermanagement.dto.BatchResponse;
+import com.challenge.customermanagement.dto.BatchUpdateCustomerRequest;
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.repository.CustomerSnapshot;
+import com.challenge.customermanagement.repository.CustomerRepository;
+import com.challenge.customermanagement.store.CustomerStore;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Bulk variants of the single-customer writes. Every item is validated up front and gets its own
+ * result; valid items are written in chunks of {@code customer.batch.chunk-size}, one transaction per
+ * chunk, so Hibernate can group the statements into JDBC batches. If a chunk fails, its items are
+ * retried one by one so that a single bad row does not fail its neighbours. Relies on JDBC batching, so
+ * it is only available with the JPA store.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = CustomerStore.TYPE_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class CustomerBatchService {
+    private final CustomerRepository customerRepository;
+    private final CustomerService customerService;
+    private final CustomerWriteEffects writeEffects;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    @Value("${customer.batch.max-items:10000}")
+    private int maxItems;
+
+    @Value("${customer.batch.chunk-size:500}")
+    private int chunkSize;
+
+    public BatchResponse createCustomers(List<CreateCustomerRequest> requests) {
+        checkBatchSize(requests);
+        LocalDate today = LocalDate.now();
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<PendingItem<Customer>> pending = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateCustomerRequest request = requests.get(i);
+            Map<String, String> errors = validate(request);
+            if (errors.isEmpty()) {
+                try {
+                    pending.add(new PendingItem<>(i, customerService.newCustomer(request, today)));
+                } catch (IllegalArgumentException ex) {
+                    errors.put("request", ex.getMessage());
+                }
+            }
+            if (!errors.isEmpty()) {
+                results[i] = new BatchItemResult(i, null, BatchItemStatus.INVALID, errors);
+            }
+        }
+
+        writeInChunks(pending, results, chunk -> {
+            chunk.forEach(item -> {
+                CustomerService.clearGeneratedState(item.value());
+                customerService.checkEmailAvailable(Customer.normalizeEmail(item.value().getEmail()), null);
+            });
+            customerRepository.saveAll(chunk.stream().map(PendingItem::value).toList());
+            customerRepository.flush();
+            chunk.forEach(item -> writeEffects.created(item.value()));
+            return chunk.stream()
+                    .map(item -> new BatchItemResult(item.index(), item.value().getId().toString(), BatchItemStatus.CREATED, null))
+                    .toList();
+        });
+        return toResponse(results);
+    }
+
+    public BatchResponse updateCustomers(List<BatchUpdateCustomerRequest> requests) {
+        checkBatchSize(requests);
+        LocalDate today = LocalDate.now();
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<PendingItem<BatchUpdateCustomerRequest>> pending = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BatchUpdateCustomerRequest request = requests.get(i);
+            Map<String, String> errors = validate(request);
+            if (errors.isEmpty()) {
+                pending.add(new PendingItem<>(i, request));
+            } else {
+                results[i] = new BatchItemResult(i, request == null || request.getId() == null ? null : request.getId().toString(),
+                        BatchItemStatus.INVALID, errors);
+            }
+        }
+
+        writeInChunks(pending, results, chunk -> {
+            Set<UUID> ids = new HashSet<>();
+            chunk.forEach(item -> ids.add(item.value().getId()));
+            Map<UUID, Customer> customers = new HashMap<>();
+            customerRepository.findAllById(ids).forEach(customer -> customers.put(customer.getId(), customer));
+
+            List<BatchItemResult> chunkResults = new ArrayList<>(chunk.size());
+            for (PendingItem<BatchUpdateCustomerRequest> item : chunk) {
+                UUID id = item.value().getId();
+                Customer customer = customers.get(id);
+                if (customer == null) {
+                    chunkResults.add(new BatchItemResult(item.index(), id.toString(), BatchItemStatus.NOT_FOUND,
+                            Map.of("id", "Customer not found")));
+                } else {
+                    if (item.value().getEmail() != null) {
+                        customerService.checkEmailAvailable(Customer.normalizeEmail(item.value().getEmail()), id);
+                    }
+                    CustomerWriteEffects.Previous previous = CustomerWriteEffects.Previous.of(customer);
+                    customerService.applyUpdate(customer, item.value(), today);
+                    writeEffects.updated(previous, customer);
+                    chunkResults.add(new BatchItemResult(item.index(), id.toString(), BatchItemStatus.UPDATED, null));
+                }
+            }
+            customerRepository.flush();
+            return chunkResults;
+        });
+        return toResponse(results);
+    }
+
+    public BatchResponse deleteCustomers(List<UUID> ids) {
+        checkBatchSize(ids);
+        BatchItemResult[] results = new BatchItemResult[ids.size()];
+        List<PendingItem<UUID>> pending = new ArrayList<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = new BatchItemResult(i, null, BatchItemStatus.INVALID, Map.of("id", "Customer 'id' is required"));
+            } else {
+                pending.add(new PendingItem<>(i, ids.get(i)));
+            }
+        }
+
+        writeInChunks(pending, results, chunk -> {
+            Set<UUID> existing = new HashSet<>();
+            for (CustomerSnapshot snapshot : customerRepository.findSnapshots(chunk.stream().map(PendingItem::value).toList())) {
+                existing.add(snapshot.getId());
+                writeEffects.deleted(snapshot.getId(), snapshot.getVersion(), CustomerWriteEffects.Previous.of(snapshot));
+            }
+            customerRepository.deleteAllByIdInBatch(existing);
+
+            List<BatchItemResult> chunkResults = new ArrayList<>(chunk.size());
+            for (PendingItem<UUID> item : chunk) {
+                // remove() makes a repeated id in the same chunk report NOT_FOUND the second time
+                boolean deleted = existing.remove(item.value());
+                chunkResults.add(deleted
+                        ? new BatchItemResult(item.index(), item.value().toString(), BatchItemStatus.DELETED, null)
+                        : new BatchItemResult(item.index(), item.value().toString(), BatchItemStatus.NOT_FOUND, Map.of("id", "Customer not found")));
+            }
+            return chunkResults;
+        });
+        return toResponse(results);
+    }
+
+    private <T> void writeInChunks(List<PendingItem<T>> pending, BatchItemResult[] results,
+                                   Function<List<PendingItem<T>>, List<BatchItemResult>> writer) {
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<PendingItem<T>> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                record(results, transactionTemplate.execute(status -> writer.apply(chunk)));
+            } catch (RuntimeException ex) {
+                log.warn("Batch chunk of {} items failed, retrying items individually: {}", chunk.size(), ex.getMessage());
+                for (PendingItem<T> item : chunk) {
+                    try {
+                        record(results, transactionTemplate.execute(status -> writer.apply(List.of(item))));
+                    } catch (RuntimeException itemEx) {
+                        results[item.index()] = new BatchItemResult(item.index(), null, BatchItemStatus.FAILED,
+                                DuplicateEmailException.isCause(itemEx)
+                                        ? Map.of("email", DuplicateEmailException.MESSAGE)
+                                        : Map.of("customer", "Could not be written: " + itemEx.getMessage()));
+                    }
+                }
+            }
+        }
+    }
+
+    private void record(BatchItemResult[] results, List<BatchItemResult> written) {
+        written.forEach(result -> results[result.getIndex()] = result);
+    }
+
+    private Map<String, String> validate(Object request) {
+        Map<String, String> errors = new HashMap<>();
+        if (request == null) {
+            errors.put("request", "Batch item must not be null");
+            return errors;
+        }
+        for (ConstraintViolation<Object> violation : validator.validate(request)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private void checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one item.");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxItems + " items.");
+        }
+    }
+
+    private BatchResponse toResponse(BatchItemResult[] results) {
+        int succeeded = 0;
+        for (BatchItemResult result : results) {
+            if (result.getErrors() == null) {
+                succeeded++;
+            }
+        }
+        return new BatchResponse(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+
+    private record PendingItem<T>(int index, T value) {
+    }
+}
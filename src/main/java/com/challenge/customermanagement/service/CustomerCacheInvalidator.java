@@ -0,0 +1,36 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.config.CacheConfig;
+import com.challenge.customermanagement.model.Customer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts exactly the cache entries a customer write can make stale: the name lookup results the customer
+ * appears in (lookups by id and email are served by {@link CustomerReadIndex}). Inside a transaction the
+ * eviction is deferred until commit, so a concurrent read cannot repopulate the cache with the pre-commit row.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    public void evict(Customer customer) {
+        evictName(customer.getName());
+    }
+
+    public void evictName(String name) {
+        if (name != null) {
+            AfterCommit.run(() -> evictNow(name));
+        }
+    }
+
+    private void evictNow(String name) {
+        Cache cache = cacheManager.getCache(CacheConfig.CUSTOMERS_BY_NAME);
+        if (cache != null) {
+            cache.evict(name);
+        }
+    }
+}
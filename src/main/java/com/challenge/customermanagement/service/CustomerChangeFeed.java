@@ -0,0 +1,233 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.dto.CustomerChanges;
+import com.challenge.customermanagement.exception.ChangesExpiredException;
+import com.challenge.customermanagement.repository.CustomerChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the published part of the outbox to consumers, who read it by sequence instead of re-reading
+ * every customer. A read either returns what was published after {@code since} or, when nothing was,
+ * waits for {@link #published} (long-poll); SSE subscribers are pushed each published batch. A subscriber
+ * that is not exactly at the start of a batch, because it joined or fell behind, first catches up from the
+ * table, so no sequence is skipped. Pushes run on virtual threads, one subscriber at a time each, so a
+ * slow client does not hold up the publisher or other clients.
+ * <p>
+ * On shutdown the feed answers its waiting long-polls and ends its SSE streams before the web server's
+ * graceful shutdown starts waiting for open requests, so those consumers do not hold shutdown up until its
+ * timeout; they reconnect to another instance from the sequence they last saw.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerChangeFeed implements SmartLifecycle {
+    private static final int CATCH_UP_PAGE_SIZE = 500;
+
+    private final CustomerChangeRepository changeRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService pushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile long lastSequence;
+    private volatile long purgedThrough;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    void init() {
+        Long last = changeRepository.findLastSequence();
+        Long first = changeRepository.findFirstSequence();
+        lastSequence = last == null ? 0 : last;
+        purgedThrough = first == null ? lastSequence : first - 1;
+        Gauge.builder("customer.changes.consumers", this, feed -> feed.waiters.size() + feed.subscribers.size())
+                .description("Change feed consumers currently waiting or subscribed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        running = false;
+        waiters.forEach(waiter -> waiter.result.setResult(toChanges(List.of(), waiter.since)));
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stopped before the phase that waits for in-flight requests
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE + 1;
+    }
+
+    @PreDestroy
+    void close() {
+        pushExecutor.shutdownNow();
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerChanges changesSince(long since, int limit) {
+        checkNotPurged(since);
+        if (since >= lastSequence) {
+            return new CustomerChanges(List.of(), since);
+        }
+        return toChanges(changeRepository.findPublishedAfter(since, Limit.of(limit)), since);
+    }
+
+    /**
+     * Completes with the changes after {@code since}, or once some are published, or empty after {@code timeout}.
+     */
+    public DeferredResult<CustomerChanges> awaitChangesSince(long since, int limit, Duration timeout) {
+        CustomerChanges changes = changesSince(since, limit);
+        if (!changes.getChanges().isEmpty() || timeout.isZero() || stopped) {
+            DeferredResult<CustomerChanges> result = new DeferredResult<>();
+            result.setResult(changes);
+            return result;
+        }
+        Waiter waiter = new Waiter(since, limit, new DeferredResult<>(timeout.toMillis(), changes));
+        waiter.result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // Covers a batch published, or the feed stopped, between the read above and registering
+        if (lastSequence > since || stopped) {
+            waiters.remove(waiter);
+            waiter.result.setResult(changesSince(since, limit));
+        }
+        return waiter.result;
+    }
+
+    public SseEmitter subscribe(long since, Duration timeout) {
+        checkNotPurged(since);
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), since);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (stopped) {
+            subscriber.emitter.complete();
+            return subscriber.emitter;
+        }
+        pushExecutor.execute(() -> subscriber.push(List.of()));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Called by the publisher, in sequence order, once a batch has been committed.
+     */
+    void published(List<CustomerChangeEvent> events) {
+        lastSequence = events.get(events.size() - 1).getSequence();
+        long first = events.get(0).getSequence();
+        for (Waiter waiter : waiters) {
+            if (waiter.since >= lastSequence) {
+                continue;
+            }
+            waiters.remove(waiter);
+            waiter.result.setResult(waiter.since + 1 == first
+                    ? toChanges(events.size() > waiter.limit ? events.subList(0, waiter.limit) : events, waiter.since)
+                    : changesSince(waiter.since, waiter.limit));
+        }
+        for (Subscriber subscriber : subscribers) {
+            pushExecutor.execute(() -> subscriber.push(events));
+        }
+    }
+
+    void purged(long throughSequence) {
+        purgedThrough = Math.max(purgedThrough, throughSequence);
+    }
+
+    private void checkNotPurged(long since) {
+        if (since < purgedThrough) {
+            throw new ChangesExpiredException("Changes up to sequence " + purgedThrough
+                    + " have been purged; re-read all customers and continue from sequence " + lastSequence);
+        }
+    }
+
+    private static CustomerChanges toChanges(List<CustomerChangeEvent> events, long since) {
+        return new CustomerChanges(events, events.isEmpty() ? since : events.get(events.size() - 1).getSequence());
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<CustomerChanges> result) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long position;
+
+        private Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        void push(List<CustomerChangeEvent> events) {
+            lock.lock();
+            try {
+                long first = events.isEmpty() ? lastSequence + 1 : events.get(0).getSequence();
+                while (position + 1 < first) {
+                    List<CustomerChangeEvent> page = changeRepository.findPublishedAfter(position,
+                            Limit.of((int) Math.min(CATCH_UP_PAGE_SIZE, first - 1 - position)));
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    send(page);
+                }
+                send(events);
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Dropping change feed subscriber: {}", ex.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(ex);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send(List<CustomerChangeEvent> events) throws IOException {
+            for (CustomerChangeEvent event : events) {
+                if (event.getSequence() > position) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.getSequence()))
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                    position = event.getSequence();
+                }
+            }
+        }
+    }
+}
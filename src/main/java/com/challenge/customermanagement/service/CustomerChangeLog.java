@@ -0,0 +1,83 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerChange;
+import com.challenge.customermanagement.model.CustomerChangeType;
+import com.challenge.customermanagement.repository.CustomerChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends customer writes to the outbox table in the transaction that makes them, so a change is in the
+ * feed if and only if the write committed. Rows are written just before commit, after a flush, so that
+ * they carry the version Hibernate assigns to managed entities at flush time.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerChangeLog {
+    private final CustomerChangeRepository changeRepository;
+
+    public void recordCreated(Customer customer) {
+        pending().add(new PendingChange(CustomerChangeType.CREATED, customer.getId(), customer, Instant.now()));
+    }
+
+    public void recordUpdated(Customer customer) {
+        pending().add(new PendingChange(CustomerChangeType.UPDATED, customer.getId(), customer, Instant.now()));
+    }
+
+    public void recordDeleted(UUID id) {
+        pending().add(new PendingChange(CustomerChangeType.DELETED, id, null, Instant.now()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingChange> pending() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Customer changes must be recorded inside the transaction that makes them");
+        }
+        List<PendingChange> pending = (List<PendingChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<PendingChange> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    changeRepository.flush();
+                    changeRepository.saveAll(changes.stream().map(PendingChange::toChange).toList());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(CustomerChangeLog.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private record PendingChange(CustomerChangeType type, UUID customerId, Customer customer, Instant occurredAt) {
+
+        CustomerChange toChange() {
+            CustomerChange.CustomerChangeBuilder change = CustomerChange.builder()
+                    .type(type)
+                    .customerId(customerId)
+                    .occurredAt(occurredAt);
+            if (customer != null) {
+                change.version(customer.getVersion())
+                        .name(customer.getName())
+                        .email(customer.getEmail())
+                        .annualSpend(customer.getAnnualSpend())
+                        .lastPurchaseDate(customer.getLastPurchaseDate())
+                        .tier(customer.getTier());
+            }
+            return change.build();
+        }
+    }
+}
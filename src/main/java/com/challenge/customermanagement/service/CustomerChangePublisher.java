@@ -0,0 +1,106 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.model.CustomerChange;
+import com.challenge.customermanagement.repository.CustomerChangeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Drains the outbox in batches: each committed change gets the next feed sequence, in the order the
+ * outbox rows were written. Sequences are assigned here rather than at insert time so that the feed has
+ * no gaps and never gains a lower sequence after a higher one was read, whatever order the writing
+ * transactions commit in. Newly numbered changes are then read back in sequence order and handed to the
+ * {@link CustomerChangeFeed}, which also picks up changes numbered by another instance sharing the table;
+ * if two instances number the same rows at once, the unique sequence index rejects one of them. The
+ * {@link CustomerReadIndex} gets the same batches, so it drops rows written by other instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerChangePublisher {
+    private final CustomerChangeRepository changeRepository;
+    private final CustomerChangeFeed changeFeed;
+    private final CustomerReadIndex readIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${customer.changes.publish-batch-size:500}")
+    private int batchSize;
+
+    @Value("${customer.changes.retention:P7D}")
+    private Duration retention;
+
+    private Counter publishedChanges;
+
+    @PostConstruct
+    void init() {
+        publishedChanges = Counter.builder("customer.changes.published")
+                .description("Customer changes handed to the change feed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.changes.publish-interval:PT0.1S}")
+    public synchronized void publishPending() {
+        try {
+            while (transactionTemplate.execute(status -> assignSequences()) == batchSize) {
+                // Keep draining a backlog without waiting for the next run
+            }
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Another instance numbered the same outbox rows first: {}", ex.getMessage());
+        }
+        List<CustomerChangeEvent> events;
+        do {
+            events = changeRepository.findPublishedAfter(changeFeed.lastSequence(), Limit.of(batchSize));
+            if (!events.isEmpty()) {
+                publishedChanges.increment(events.size());
+                changeFeed.published(events);
+                readIndex.recordPublished(events);
+            }
+        } while (events.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.changes.purge-interval:PT1H}")
+    public void purgePublished() {
+        Integer purged = transactionTemplate.execute(status -> {
+            Long through = changeRepository.findLastSequencePublishedBefore(Instant.now().minus(retention));
+            if (through == null) {
+                return 0;
+            }
+            // Consumers are refused anything at or before this sequence from now on
+            changeFeed.purged(through);
+            return changeRepository.deletePublishedThrough(through);
+        });
+        if (purged > 0) {
+            log.info("Purged {} customer changes older than {}", purged, retention);
+        }
+    }
+
+    private int assignSequences() {
+        List<CustomerChange> pending = changeRepository.findBySequenceIsNullOrderByIdAsc(Limit.of(batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Long last = changeRepository.findLastSequence();
+        long sequence = last == null ? 0 : last;
+        Instant now = Instant.now();
+        for (CustomerChange change : pending) {
+            change.setSequence(++sequence);
+            change.setPublishedAt(now);
+        }
+        return pending.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.challenge.customermanagement.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for paging through customers in id order.
+ * The cursor is the URL-safe Base64 form of the last id returned on the previous page.
+ */
+public final class CustomerCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CustomerCursor() {
+    }
+
+    public static String encode(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Invalid pagination cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
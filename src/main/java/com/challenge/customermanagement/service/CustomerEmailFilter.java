@@ -0,0 +1,209 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * Counting Bloom filter over the normalized emails of all customers, used to skip the duplicate-email
+ * lookup on writes. {@link #mightContain} returning false means no committed customer has the email; true
+ * means one might, and the caller has to ask the store. Each slot is a 4-bit counter, sixteen to a long,
+ * so deletes can take an email back out; a counter that reaches 15 stays there, which only costs false
+ * positives.
+ * <p>
+ * Loaded from the store at startup and sized for {@code customer.email-filter.expected-customers} or
+ * twice the loaded count, whichever is larger, at {@code customer.email-filter.false-positive-rate}.
+ * Emails are added and removed once the writing transaction commits, so a rolled-back write leaves nothing
+ * behind. Until the after-commit update runs, a concurrent write can be told that a just-committed email is
+ * new. Emails written outside the API are not in the filter at all. Both are why the store's own uniqueness
+ * check (the unique constraint on {@code email_normalized}) stays the final guard.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerEmailFilter {
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long MAX_COUNT = 15;
+
+    private final CustomerStore customerStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${customer.email-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${customer.email-filter.expected-customers:1000000}")
+    private long expectedCustomers;
+
+    @Value("${customer.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private AtomicLongArray counters;
+    private long slots;
+    private int hashes;
+    private final LongAdder entries = new LongAdder();
+    private Counter definitelyNew;
+    private Counter possiblyTaken;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void load() {
+        definitelyNew = checkCounter("new");
+        possiblyTaken = checkCounter("possible");
+        falsePositives = Counter.builder("customer.email.filter.false.positives")
+                .description("Possible duplicate emails that the store lookup found to be new")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        // Hashes first, so the filter can be sized for what is actually there
+        LongStream.Builder loading = LongStream.builder();
+        customerStore.forEachEmailNormalized(email -> loading.add(hash(email)));
+        long[] loaded = loading.build().toArray();
+        size(Math.max(expectedCustomers, 2L * loaded.length));
+        for (long hash : loaded) {
+            add(hash);
+        }
+        Gauge.builder("customer.email.filter.entries", entries, LongAdder::sum)
+                .description("Emails in the duplicate-email filter")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.memory", this, filter -> filter.counters.length() * 8.0)
+                .description("Memory used by the duplicate-email filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Loaded {} emails into the duplicate-email filter in {} ms ({} counters, {} hashes)",
+                loaded.length, (System.nanoTime() - started) / 1_000_000, slots, hashes);
+    }
+
+    /**
+     * False if no committed customer has this normalized email.
+     */
+    public boolean mightContain(String emailNormalized) {
+        if (!enabled) {
+            return true;
+        }
+        long hash = hash(emailNormalized);
+        for (int i = 0; i < hashes; i++) {
+            if (count(slot(hash, i)) == 0) {
+                definitelyNew.increment();
+                return false;
+            }
+        }
+        possiblyTaken.increment();
+        return true;
+    }
+
+    // Called by the service when the store lookup after a possible hit found nothing
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Adds the email once the current transaction commits, or at once without one.
+     */
+    public void recordAdded(String emailNormalized) {
+        if (enabled && emailNormalized != null) {
+            long hash = hash(emailNormalized);
+            AfterCommit.run(() -> add(hash));
+        }
+    }
+
+    /**
+     * Removes the email once the current transaction commits, or at once without one.
+     */
+    public void recordRemoved(String emailNormalized) {
+        if (enabled && emailNormalized != null) {
+            long hash = hash(emailNormalized);
+            AfterCommit.run(() -> remove(hash));
+        }
+    }
+
+    public void recordChanged(String previousEmailNormalized, String emailNormalized) {
+        if (!Objects.equals(previousEmailNormalized, emailNormalized)) {
+            recordAdded(emailNormalized);
+            recordRemoved(previousEmailNormalized);
+        }
+    }
+
+    private void size(long capacity) {
+        double bits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long words = Math.max(1, ((long) Math.ceil(bits) + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Duplicate-email filter for " + capacity + " customers does not fit in one array");
+        }
+        counters = new AtomicLongArray((int) words);
+        slots = words * COUNTERS_PER_WORD;
+        hashes = Math.max(1, (int) Math.round((double) slots / capacity * Math.log(2)));
+    }
+
+    private void add(long hash) {
+        for (int i = 0; i < hashes; i++) {
+            update(slot(hash, i), 1);
+        }
+        entries.increment();
+    }
+
+    private void remove(long hash) {
+        for (int i = 0; i < hashes; i++) {
+            update(slot(hash, i), -1);
+        }
+        entries.decrement();
+    }
+
+    private void update(long slot, int delta) {
+        int word = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        long current;
+        long updated;
+        do {
+            current = counters.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            // A saturated counter no longer knows how many emails it stands for, so it is never decremented
+            if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+                return;
+            }
+            updated = current + ((long) delta << shift);
+        } while (!counters.compareAndSet(word, current, updated));
+    }
+
+    private long count(long slot) {
+        return (counters.get((int) (slot / COUNTERS_PER_WORD)) >>> (int) (slot % COUNTERS_PER_WORD) * 4) & MAX_COUNT;
+    }
+
+    // Double hashing: the i-th slot is h1 + i * h2, from the two halves of one 64-bit hash
+    private long slot(long hash, int i) {
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = hash >>> 32;
+        return Math.floorMod(h1 + i * h2, slots);
+    }
+
+    // FNV-1a, then the SplitMix64 finalizer so that both halves are well mixed
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private Counter checkCounter(String result) {
+        return Counter.builder("customer.email.filter.checks")
+                .description("Duplicate-email checks by filter answer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,299 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.ImportReport;
+import com.challenge.customermanagement.dto.ImportRowError;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.store.CustomerStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streams customers from a CSV or NDJSON request body into the store through three stages:
+ * the calling thread parses rows into chunks of {@code customer.import.chunk-size}, a fixed pool
+ * decodes and validates chunks in parallel with the same rules as {@code POST /customers}, and a
+ * single writer saves each chunk in its own transaction, in file order. The stages are linked by a
+ * queue of at most {@code customer.import.queue-capacity} chunks, so a slow store stalls the
+ * parser instead of buffering the file; memory per import is bounded by chunk size times queue
+ * capacity whatever the file size. Only the first {@code customer.import.max-errors} row errors are
+ * kept in the report.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerImportService {
+    private static final Chunk END = new Chunk(List.of(), List.of());
+
+    private final CustomerStore customerStore;
+    private final CustomerService customerService;
+    private final CustomerWriteEffects writeEffects;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${customer.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${customer.import.queue-capacity:4}")
+    private int queueCapacity;
+
+    @Value("${customer.import.validation-threads:0}")
+    private int validationThreads;
+
+    @Value("${customer.import.max-errors:1000}")
+    private int maxErrors;
+
+    private ExecutorService validationExecutor;
+    private ExecutorService writerExecutor;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @PostConstruct
+    void startExecutors() {
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        validationExecutor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("customer-import-validate-", 0).factory());
+        writerExecutor = Executors.newCachedThreadPool(Thread.ofPlatform().name("customer-import-write-", 0).factory());
+    }
+
+    @PreDestroy
+    void stopExecutors() {
+        validationExecutor.shutdownNow();
+        writerExecutor.shutdownNow();
+    }
+
+    public ImportReport importCustomers(InputStream body, Format format) {
+        LocalDate today = LocalDate.now();
+        ImportRun run = new ImportRun();
+        BlockingQueue<Future<Chunk>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        // The request waits for the writer, so its commits can count as the request's writes (read-your-writes)
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        Future<?> writer = writerExecutor.submit(() -> {
+            RequestContextHolder.setRequestAttributes(request);
+            try {
+                drain(queue, run);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+            return null;
+        });
+
+        long rowsRead = 0;
+        ImportRowError fatal = null;
+        try (RowReader rows = format == Format.CSV ? csvRows(body) : ndjsonRows(body)) {
+            List<RawRow> chunk = new ArrayList<>(chunkSize);
+            RawRow row;
+            while (!writer.isDone() && (row = rows.next(rowsRead + 1)) != null) {
+                rowsRead++;
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    List<RawRow> full = chunk;
+                    enqueue(queue, validationExecutor.submit(() -> validate(full, today)), writer);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<RawRow> last = chunk;
+                enqueue(queue, validationExecutor.submit(() -> validate(last, today)), writer);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Customer import stopped at row {}: {}", rowsRead + 1, ex.getMessage());
+            fatal = new ImportRowError(rowsRead + 1, Map.of("request", "Unreadable input, import stopped: " + ex.getMessage()));
+        } finally {
+            enqueue(queue, CompletableFuture.completedFuture(END), writer);
+        }
+
+        try {
+            writer.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the import to finish", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Customer import failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+        if (fatal != null) {
+            run.reject(fatal);
+        }
+        return new ImportReport(rowsRead, run.imported, run.rejected, fatal == null, run.errors, run.errorsTruncated);
+    }
+
+    private void drain(BlockingQueue<Future<Chunk>> queue, ImportRun run) throws Exception {
+        Chunk chunk;
+        while ((chunk = queue.take().get()) != END) {
+            chunk.errors().forEach(run::reject);
+            if (!chunk.customers().isEmpty()) {
+                write(chunk.customers(), run);
+            }
+        }
+    }
+
+    private void write(List<PendingRow> rows, ImportRun run) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(rows));
+            run.imported += rows.size();
+        } catch (RuntimeException ex) {
+            log.warn("Import chunk of {} rows failed, retrying rows individually: {}", rows.size(), ex.getMessage());
+            for (PendingRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> save(List.of(row)));
+                    run.imported++;
+                } catch (RuntimeException rowEx) {
+                    run.reject(new ImportRowError(row.number(), DuplicateEmailException.isCause(rowEx)
+                            ? Map.of("email", DuplicateEmailException.MESSAGE)
+                            : Map.of("customer", "Could not be written: " + rowEx.getMessage())));
+                }
+            }
+        }
+    }
+
+    private void save(List<PendingRow> rows) {
+        List<Customer> customers = rows.stream().map(PendingRow::customer).toList();
+        customers.forEach(CustomerService::clearGeneratedState);
+        customers.forEach(customer -> customerService.checkEmailAvailable(Customer.normalizeEmail(customer.getEmail()), null));
+        customerStore.insertAll(customers);
+        customers.forEach(writeEffects::created);
+    }
+
+    private Chunk validate(List<RawRow> rows, LocalDate today) {
+        List<PendingRow> customers = new ArrayList<>(rows.size());
+        List<ImportRowError> errors = new ArrayList<>();
+        for (RawRow row : rows) {
+            Map<String, String> rowErrors = new HashMap<>();
+            try {
+                CreateCustomerRequest request = decode(row);
+                for (ConstraintViolation<CreateCustomerRequest> violation : validator.validate(request)) {
+                    rowErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                if (rowErrors.isEmpty()) {
+                    customers.add(new PendingRow(row.number(), customerService.newCustomer(request, today)));
+                }
+            } catch (JsonProcessingException ex) {
+                rowErrors.put("request", "Malformed row: " + ex.getOriginalMessage());
+            } catch (IOException | IllegalArgumentException ex) {
+                rowErrors.put("request", ex.getMessage());
+            }
+            if (!rowErrors.isEmpty()) {
+                errors.add(new ImportRowError(row.number(), rowErrors));
+            }
+        }
+        return new Chunk(customers, errors);
+    }
+
+    private CreateCustomerRequest decode(RawRow row) throws IOException {
+        if (row.line() != null) {
+            return objectMapper.readValue(row.line(), CreateCustomerRequest.class);
+        }
+        Map<String, String> columns = new HashMap<>();
+        row.columns().forEach((column, value) -> columns.put(column.trim(), value == null || value.isBlank() ? null : value.trim()));
+        return objectMapper.convertValue(columns, CreateCustomerRequest.class);
+    }
+
+    private void enqueue(BlockingQueue<Future<Chunk>> queue, Future<Chunk> chunk, Future<?> writer) {
+        try {
+            // A full queue is the backpressure point; give up only if the writer has died
+            while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing import rows", ex);
+        }
+    }
+
+    private RowReader csvRows(InputStream body) throws IOException {
+        MappingIterator<Map<String, String>> iterator = new CsvMapper()
+                .readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return new RowReader() {
+            @Override
+            public RawRow next(long number) throws IOException {
+                return iterator.hasNextValue() ? new RawRow(number, null, iterator.nextValue()) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                iterator.close();
+            }
+        };
+    }
+
+    private RowReader ndjsonRows(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return new RowReader() {
+            @Override
+            public RawRow next(long number) throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                return line == null ? null : new RawRow(number, line, null);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private interface RowReader extends AutoCloseable {
+        RawRow next(long number) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private record RawRow(long number, String line, Map<String, String> columns) {
+    }
+
+    private record PendingRow(long number, Customer customer) {
+    }
+
+    private record Chunk(List<PendingRow> customers, List<ImportRowError> errors) {
+    }
+
+    // Only touched by the writer thread until the parser has joined it
+    private class ImportRun {
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+        private boolean errorsTruncated;
+
+        private void reject(ImportRowError error) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
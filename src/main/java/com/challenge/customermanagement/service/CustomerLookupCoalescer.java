@@ -0,0 +1,295 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Collapses concurrent store lookups. A lookup by id or by email that is waiting to run is not run twice:
+ * later callers wait for it and get its result (single flight). Callers only join a lookup whose query has
+ * not started yet, so every result was read after its caller arrived and a caller sees the writes it
+ * committed before asking. A caller that arrives while a query for its key is running opens the next
+ * lookup of that key, which runs once the current one completes; callers arriving meanwhile share it, so
+ * a key has at most one query running and one waiting. A lookup by id runs at once when no other id query
+ * is running, so an idle store adds no delay. Otherwise it joins a batch, read with one
+ * {@code where id in (...)} query: the first caller of the batch runs it once the running queries have
+ * finished or {@code customer.lookup.batch-window} has passed, whichever comes first, unless the batch fills
+ * up to {@code customer.lookup.max-batch-size} before, in which case the caller that filled it runs it.
+ * <p>
+ * Callers inside a transaction bypass all of this, so that they see their own uncommitted writes.
+ * Every caller gets its own response objects, since the service fills in missing tiers on them.
+ */
+@Component
+public class CustomerLookupCoalescer {
+    private final CustomerStore customerStore;
+    private final boolean enabled;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+
+    private final Map<UUID, Lookup<Optional<CustomerResponse>>> idsInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Lookup<List<CustomerResponse>>> emailsInFlight = new ConcurrentHashMap<>();
+    private final Object batchLock = new Object();
+    private Batch openBatch;
+    // Id queries started through joinBatch that have not finished; guarded by batchLock
+    private int runningQueries;
+
+    private final LongAdder idLookups = new LongAdder();
+    private final LongAdder emailLookups = new LongAdder();
+    private final Counter idQueries;
+    private final Counter emailQueries;
+    private final DistributionSummary batchSizes;
+
+    public CustomerLookupCoalescer(CustomerStore customerStore,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${customer.lookup.coalescing.enabled:true}") boolean enabled,
+                                   @Value("${customer.lookup.batch-window:PT0.001S}") Duration batchWindow,
+                                   @Value("${customer.lookup.max-batch-size:100}") int maxBatchSize) {
+        this.customerStore = customerStore;
+        this.enabled = enabled;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.idQueries = queryCounter(meterRegistry, "id");
+        this.emailQueries = queryCounter(meterRegistry, "email");
+        this.batchSizes = DistributionSummary.builder("customer.lookup.batch.size")
+                .description("Ids read by one store query")
+                .register(meterRegistry);
+        registerLookupMeters(meterRegistry, "id", idLookups, idQueries);
+        registerLookupMeters(meterRegistry, "email", emailLookups, emailQueries);
+    }
+
+    public Optional<CustomerResponse> findById(UUID id) {
+        idLookups.increment();
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            idQueries.increment();
+            return customerStore.findById(id);
+        }
+        Lookup<Optional<CustomerResponse>> lookup = new Lookup<>();
+        Lookup<Optional<CustomerResponse>> joined = join(idsInFlight, id, lookup);
+        if (joined != lookup) {
+            return await(joined.result).map(CustomerLookupCoalescer::copy);
+        }
+        lookup.awaitPrevious();
+        if (batchWindowNanos <= 0) {
+            runBatch(Map.of(id, lookup));
+        } else {
+            joinBatch(id, lookup);
+        }
+        return await(lookup.result);
+    }
+
+    public List<CustomerResponse> findByEmailNormalized(String emailNormalized) {
+        emailLookups.increment();
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            emailQueries.increment();
+            return customerStore.findByEmailNormalized(emailNormalized);
+        }
+        Lookup<List<CustomerResponse>> lookup = new Lookup<>();
+        Lookup<List<CustomerResponse>> joined = join(emailsInFlight, emailNormalized, lookup);
+        if (joined != lookup) {
+            return await(joined.result).stream().map(CustomerLookupCoalescer::copy).collect(Collectors.toList());
+        }
+        lookup.awaitPrevious();
+        start(emailsInFlight, emailNormalized, lookup);
+        try {
+            emailQueries.increment();
+            List<CustomerResponse> customers = customerStore.findByEmailNormalized(emailNormalized);
+            emailsInFlight.remove(emailNormalized, lookup);
+            lookup.result.complete(customers);
+            return customers;
+        } catch (RuntimeException | Error ex) {
+            emailsInFlight.remove(emailNormalized, lookup);
+            lookup.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * The lookup of {@code key} that has not started yet, or {@code lookup}, opened behind the one that is
+     * running, if there is none. The caller runs the lookup if it gets its own back.
+     */
+    private static <K, T> Lookup<T> join(Map<K, Lookup<T>> inFlight, K key, Lookup<T> lookup) {
+        return inFlight.compute(key, (k, current) -> {
+            if (current != null && !current.started) {
+                return current;
+            }
+            lookup.previous = current == null ? null : current.result;
+            return lookup;
+        });
+    }
+
+    // From here on callers open the next lookup instead of joining this one
+    private static <K, T> void start(Map<K, Lookup<T>> inFlight, K key, Lookup<T> lookup) {
+        inFlight.computeIfPresent(key, (k, current) -> {
+            lookup.started = true;
+            return current;
+        });
+    }
+
+    private void joinBatch(UUID id, Lookup<Optional<CustomerResponse>> lookup) {
+        Batch batch;
+        boolean first;
+        boolean full;
+        synchronized (batchLock) {
+            if (openBatch == null && runningQueries == 0) {
+                runningQueries++;
+                batch = null;
+                first = false;
+                full = false;
+            } else {
+                first = openBatch == null;
+                if (first) {
+                    openBatch = new Batch(Thread.currentThread());
+                }
+                batch = openBatch;
+                batch.lookups.put(id, lookup);
+                full = batch.lookups.size() >= maxBatchSize;
+                if (full) {
+                    openBatch = null;
+                    runningQueries++;
+                }
+            }
+        }
+        if (batch == null) {
+            runCounted(Map.of(id, lookup));
+        } else if (full) {
+            // The first caller stops waiting for the window and waits for the result instead
+            LockSupport.unpark(batch.leader);
+            runCounted(batch.lookups);
+        } else if (first) {
+            long deadline = System.nanoTime() + batchWindowNanos;
+            for (long left = batchWindowNanos; left > 0; left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(this, left);
+                synchronized (batchLock) {
+                    if (openBatch != batch) {
+                        return;
+                    }
+                    if (runningQueries == 0) {
+                        break;
+                    }
+                }
+            }
+            synchronized (batchLock) {
+                if (openBatch != batch) {
+                    return;
+                }
+                openBatch = null;
+                runningQueries++;
+            }
+            runCounted(batch.lookups);
+        }
+    }
+
+    // Once the last running query finishes, the open batch has nothing left to wait for
+    private void runCounted(Map<UUID, Lookup<Optional<CustomerResponse>>> batch) {
+        try {
+            runBatch(batch);
+        } finally {
+            synchronized (batchLock) {
+                if (--runningQueries == 0 && openBatch != null) {
+                    LockSupport.unpark(openBatch.leader);
+                }
+            }
+        }
+    }
+
+    private void runBatch(Map<UUID, Lookup<Optional<CustomerResponse>>> batch) {
+        batch.forEach((id, lookup) -> start(idsInFlight, id, lookup));
+        idQueries.increment();
+        batchSizes.record(batch.size());
+        try {
+            Map<String, CustomerResponse> found = (batch.size() == 1
+                    ? customerStore.findById(batch.keySet().iterator().next()).stream().toList()
+                    : customerStore.findAllById(batch.keySet()))
+                    .stream()
+                    .collect(Collectors.toMap(CustomerResponse::getId, Function.identity()));
+            // Out of the in-flight map first, so that nobody joins a lookup that has already completed
+            batch.forEach((id, lookup) -> idsInFlight.remove(id, lookup));
+            batch.forEach((id, lookup) -> lookup.result.complete(Optional.ofNullable(found.get(id.toString()))));
+        } catch (RuntimeException | Error ex) {
+            batch.forEach((id, lookup) -> idsInFlight.remove(id, lookup));
+            batch.forEach((id, lookup) -> lookup.result.completeExceptionally(ex));
+        }
+    }
+
+    private static final class Lookup<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // Set when the lookup is opened; the lookup of the same key that was running then, if any
+        private CompletableFuture<T> previous;
+        // Guarded by the in-flight map entry of the key
+        private boolean started;
+
+        // Runs the query only after the one that was running when this lookup opened, whatever its outcome
+        void awaitPrevious() {
+            if (previous != null) {
+                previous.handle((customers, ex) -> null).join();
+                previous = null;
+            }
+        }
+    }
+
+    private record Batch(Thread leader, Map<UUID, Lookup<Optional<CustomerResponse>>> lookups) {
+        Batch(Thread leader) {
+            this(leader, new LinkedHashMap<>());
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private static CustomerResponse copy(CustomerResponse customer) {
+        return new CustomerResponse(customer.getId(), customer.getName(), customer.getEmail(), customer.getAnnualSpend(),
+                customer.getLastPurchaseDate(), customer.getTier(), customer.getVersion(), customer.getLastModified());
+    }
+
+    private static Counter queryCounter(MeterRegistry meterRegistry, String lookup) {
+        return Counter.builder("customer.lookup.queries")
+                .description("Store queries run for customer lookups")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+    }
+
+    // Lookups per query: 1 when nothing was coalesced, higher the more callers shared a query
+    private static void registerLookupMeters(MeterRegistry meterRegistry, String lookup, LongAdder lookups, Counter queries) {
+        FunctionCounter.builder("customer.lookup.requests", lookups, LongAdder::sum)
+                .description("Customer lookups that were not answered by the read index")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+        Gauge.builder("customer.lookup.coalescing.ratio", lookups,
+                        requests -> queries.count() == 0 ? 1 : requests.sum() / queries.count())
+                .description("Customer lookups per store query since startup")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The tier rules and the mapping of customers to responses. Stateless, so that it can be created directly,
+ * outside a Spring context.
+ */
+public class CustomerMapper {
+    static final int PLATINUM_WINDOW_MONTHS = 6;
+    static final int GOLD_WINDOW_MONTHS = 12;
+    static final BigDecimal GOLD_MIN_SPEND = new BigDecimal("1000");
+    static final BigDecimal PLATINUM_MIN_SPEND = new BigDecimal("10000");
+
+    // Rows written before the tier column existed are filled in by CustomerTierRecalculationJob
+    public CustomerResponse withTier(CustomerResponse response) {
+        if (response.getTier() == null) {
+            response.setTier(evaluateTier(response.getAnnualSpend(), response.getLastPurchaseDate(), LocalDate.now()).getLabel());
+        }
+        return response;
+    }
+
+    public CustomerResponse mapToResponse(Customer customer) {
+        return new CustomerResponse(
+                customer.getId().toString(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAnnualSpend(),
+                customer.getLastPurchaseDate(),
+                // Rows written before the tier column existed are filled in by CustomerTierRecalculationJob
+                customer.getTier() != null ? customer.getTier().getLabel() : calculateTier(customer),
+                customer.getVersion(),
+                customer.getLastModified()
+        );
+    }
+
+    /**
+     * The patch a store applies for {@code request}, with the tier thresholds as of {@code today}. An empty
+     * request only re-evaluates the tier.
+     */
+    public CustomerPatch patchFor(UpdateCustomerRequest request, LocalDate today, Instant now) {
+        String emailNormalized = Customer.normalizeEmail(request.getEmail());
+        return new CustomerPatch(
+                request.getName(),
+                request.getEmail(),
+                emailNormalized,
+                Customer.emailDomain(emailNormalized),
+                request.getAnnualSpend(),
+                request.getLastPurchaseDate(),
+                now,
+                PLATINUM_MIN_SPEND,
+                today.minusMonths(PLATINUM_WINDOW_MONTHS + 1),
+                GOLD_MIN_SPEND,
+                today.minusMonths(GOLD_WINDOW_MONTHS + 1));
+    }
+
+    public String calculateTier(Customer customer) {
+        return evaluateTier(customer, LocalDate.now()).getLabel();
+    }
+
+    public CustomerTier evaluateTier(Customer customer, LocalDate today) {
+        return evaluateTier(customer.getAnnualSpend(), customer.getLastPurchaseDate(), today);
+    }
+
+    public CustomerTier evaluateTier(BigDecimal spend, LocalDate lastPurchaseDate, LocalDate today) {
+        if (spend == null || lastPurchaseDate == null) {
+            return CustomerTier.SILVER;
+        }
+        long monthsSincePurchase = ChronoUnit.MONTHS.between(lastPurchaseDate, today);
+        if (spend.compareTo(PLATINUM_MIN_SPEND) >= 0) {
+            return monthsSincePurchase <= PLATINUM_WINDOW_MONTHS ? CustomerTier.PLATINUM : CustomerTier.SILVER;
+        }
+        if (spend.compareTo(GOLD_MIN_SPEND) >= 0 && monthsSincePurchase <= GOLD_WINDOW_MONTHS) {
+            return CustomerTier.GOLD;
+        }
+        return CustomerTier.SILVER;
+    }
+}
@@ -0,0 +1,475 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerChangeType;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.store.CustomerStore;
+import com.challenge.customermanagement.store.OffHeapIdIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Off-heap copy of every customer that serves the lookups by id and by email without touching the store.
+ * Each customer is a fixed-layout row in one direct buffer, with its name and email as UTF-8 in a second,
+ * append-only buffer that is compacted once more than half of it is garbage. Two {@link OffHeapIdIndex}
+ * tables find rows: one keyed on the id's two longs, one keyed on a 64-bit hash of the normalized email
+ * and pointing at the first of a chain of rows with that hash. A hit allocates only the response and its
+ * field values.
+ * <p>
+ * The index is loaded from the store at startup and updated after every committed write made through the
+ * service layer. Those updates run in after-commit hooks on the writing threads and can arrive out of order,
+ * so a put is ignored unless it carries a newer version than the indexed row, and a delete leaves a
+ * tombstone with the deleted version that keeps late puts of that customer out for a minute. A miss falls back to the store, so rows inserted outside the API are still found.
+ * <p>
+ * Writes made by other instances sharing the database reach this one through the change feed: every
+ * published change drops an indexed row with an older version, so the customer is read from the store
+ * until this instance writes it again. Such writes are therefore visible here within one publish interval.
+ * Changes made outside the API altogether are not seen until the next restart. If the index cannot hold a
+ * customer it switches itself off and every lookup goes to the store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerReadIndex {
+    // Row layout
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int VERSION = 16;
+    private static final int MODIFIED_SECONDS = 24;
+    private static final int SPEND_CENTS = 32;
+    private static final int MODIFIED_NANOS = 40;
+    private static final int PURCHASE_DAY = 44;
+    private static final int STRINGS = 48;
+    private static final int NEXT_SAME_EMAIL = 52;
+    private static final int NAME_LENGTH = 56;
+    private static final int EMAIL_LENGTH = 58;
+    private static final int TIER = 60;
+    private static final int EMAIL_HASH = 64;
+    private static final int ROW_BYTES = 72;
+
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    private static final long NO_SPEND = Long.MIN_VALUE;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int MAX_BUFFER_BYTES = Integer.MAX_VALUE - 8;
+    private static final long TOMBSTONE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private final CustomerStore customerStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${customer.read-index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    private OffHeapIdIndex ids = new OffHeapIdIndex(1024);
+    private OffHeapIdIndex emails = new OffHeapIdIndex(1024);
+    private ByteBuffer rows = allocate(1024 * ROW_BYTES);
+    private int rowCount;
+    private int[] freeRows = new int[64];
+    private int freeRowCount;
+    private ByteBuffer strings = allocate(64 * 1024);
+    private int stringsEnd;
+    private long stringGarbage;
+    // Recently deleted ids in deletion order, so expired tombstones are at the head
+    private final LinkedHashMap<UUID, Tombstone> tombstones = new LinkedHashMap<>();
+
+    @PostConstruct
+    void load() {
+        registerGauges();
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        ready = true;
+        customerStore.forEach(customer -> put(UUID.fromString(customer.getId()), customer.getName(), customer.getEmail(),
+                customer.getAnnualSpend(), customer.getLastPurchaseDate(),
+                customer.getTier() == null ? null : CustomerTier.fromLabel(customer.getTier()),
+                customer.getVersion(), customer.getLastModified()));
+        if (ready) {
+            log.info("Loaded {} customers into the read index in {} ms ({} bytes off-heap)",
+                    ids.size(), (System.nanoTime() - started) / 1_000_000, memoryBytes());
+        }
+    }
+
+    public void recordSaved(Customer customer) {
+        if (ready) {
+            // Reads the entity once committed, so that a version incremented at flush is included
+            AfterCommit.run(() -> put(customer.getId(), customer.getName(), customer.getEmail(), customer.getAnnualSpend(),
+                    customer.getLastPurchaseDate(), customer.getTier(), customer.getVersion(), customer.getLastModified()));
+        }
+    }
+
+    /**
+     * @param version the version that was deleted; null if unknown, which keeps out every later put
+     */
+    public void recordDeleted(UUID id, Long version) {
+        if (ready) {
+            AfterCommit.run(() -> remove(id, version));
+        }
+    }
+
+    /**
+     * Called by the publisher with every published batch, including changes made by other instances.
+     */
+    public void recordPublished(List<CustomerChangeEvent> events) {
+        if (!ready) {
+            return;
+        }
+        for (CustomerChangeEvent event : events) {
+            UUID id = UUID.fromString(event.getCustomerId());
+            if (event.getType() == CustomerChangeType.DELETED) {
+                remove(id, null);
+            } else {
+                removeOlder(id, event.getVersion());
+            }
+        }
+    }
+
+    /**
+     * The indexed customer, or null if it is not in the index.
+     */
+    public CustomerResponse findById(UUID id) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long row = ids.get(id);
+            return row < 0 ? null : response(id.toString(), (int) row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The indexed customers with this normalized email; empty if there are none.
+     */
+    public List<CustomerResponse> findByEmailNormalized(String emailNormalized) {
+        if (!ready) {
+            return List.of();
+        }
+        long hash = hash(emailNormalized);
+        lock.readLock().lock();
+        try {
+            List<CustomerResponse> customers = List.of();
+            for (long row = emails.get(hash, 0); row >= 0; row = rows.getInt(rowOffset((int) row) + NEXT_SAME_EMAIL) - 1) {
+                int offset = rowOffset((int) row);
+                CustomerResponse customer = response(new UUID(rows.getLong(offset + MSB), rows.getLong(offset + LSB)).toString(), (int) row);
+                // Rows on one chain share a 64-bit hash; the email itself decides
+                if (emailNormalized.equals(Customer.normalizeEmail(customer.getEmail()))) {
+                    if (customers.isEmpty()) {
+                        customers = new ArrayList<>(2);
+                    }
+                    customers.add(customer);
+                }
+            }
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    void put(UUID id, String name, String email, BigDecimal annualSpend, LocalDate lastPurchaseDate, CustomerTier tier,
+             Long version, Instant lastModified) {
+        byte[] nameBytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        byte[] emailBytes = email == null ? new byte[0] : email.getBytes(StandardCharsets.UTF_8);
+        String emailNormalized = Customer.normalizeEmail(email);
+        lock.writeLock().lock();
+        try {
+            if (!ready || isSuperseded(id, version)) {
+                return;
+            }
+            long spendCents = annualSpend == null
+                    ? NO_SPEND
+                    : annualSpend.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            long existing = ids.get(id);
+            int row;
+            if (existing >= 0) {
+                row = (int) existing;
+                unlinkEmail(row);
+                releaseStrings(row);
+            } else {
+                row = allocateRow();
+            }
+            int offset = rowOffset(row);
+            rows.putLong(offset + MSB, id.getMostSignificantBits());
+            rows.putLong(offset + LSB, id.getLeastSignificantBits());
+            rows.putLong(offset + VERSION, version == null ? NO_VERSION : version);
+            rows.putLong(offset + MODIFIED_SECONDS, lastModified == null ? 0 : lastModified.getEpochSecond());
+            rows.putInt(offset + MODIFIED_NANOS, lastModified == null ? -1 : lastModified.getNano());
+            rows.putLong(offset + SPEND_CENTS, spendCents);
+            rows.putInt(offset + PURCHASE_DAY, lastPurchaseDate == null ? NO_DATE : (int) lastPurchaseDate.toEpochDay());
+            rows.put(offset + TIER, (byte) (tier == null ? 0 : tier.ordinal() + 1));
+            rows.putInt(offset + STRINGS, appendStrings(nameBytes, emailBytes));
+            rows.putShort(offset + NAME_LENGTH, (short) nameBytes.length);
+            rows.putShort(offset + EMAIL_LENGTH, (short) emailBytes.length);
+            rows.putLong(offset + EMAIL_HASH, emailNormalized == null ? 0 : hash(emailNormalized));
+            linkEmail(row);
+            ids.put(id, row);
+        } catch (ArithmeticException | IllegalStateException ex) {
+            disable(ex.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID id, Long version) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                return;
+            }
+            expireTombstones();
+            tombstones.put(id, new Tombstone(version == null ? Long.MAX_VALUE : version, System.nanoTime()));
+            long row = ids.get(id);
+            if (row >= 0) {
+                releaseRow(id, (int) row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops the row if it is older than version, without keeping later puts out
+    void removeOlder(UUID id, Long version) {
+        lock.writeLock().lock();
+        try {
+            long row = ready ? ids.get(id) : -1;
+            if (row < 0) {
+                return;
+            }
+            long indexed = rows.getLong(rowOffset((int) row) + VERSION);
+            if (version == null || indexed == NO_VERSION || indexed < version) {
+                releaseRow(id, (int) row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void releaseRow(UUID id, int row) {
+        unlinkEmail(row);
+        releaseStrings(row);
+        ids.remove(id);
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeRows.length * 2);
+        }
+        freeRows[freeRowCount++] = row;
+    }
+
+    // Whether the index already holds this version of the customer or a later one, or saw it deleted since
+    private boolean isSuperseded(UUID id, Long version) {
+        expireTombstones();
+        Tombstone tombstone = tombstones.get(id);
+        if (tombstone != null && (version == null || version <= tombstone.version())) {
+            return true;
+        }
+        long row = ids.get(id);
+        if (row < 0 || version == null) {
+            return false;
+        }
+        long indexed = rows.getLong(rowOffset((int) row) + VERSION);
+        return indexed != NO_VERSION && version <= indexed;
+    }
+
+    private void expireTombstones() {
+        long now = System.nanoTime();
+        Iterator<Tombstone> oldest = tombstones.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().deletedAt() > TOMBSTONE_NANOS) {
+            oldest.remove();
+        }
+    }
+
+    private CustomerResponse response(String id, int row) {
+        int offset = rowOffset(row);
+        int strings = rows.getInt(offset + STRINGS);
+        int nameLength = rows.getShort(offset + NAME_LENGTH);
+        int emailLength = rows.getShort(offset + EMAIL_LENGTH);
+        long version = rows.getLong(offset + VERSION);
+        int nanos = rows.getInt(offset + MODIFIED_NANOS);
+        long spendCents = rows.getLong(offset + SPEND_CENTS);
+        int purchaseDay = rows.getInt(offset + PURCHASE_DAY);
+        int tier = rows.get(offset + TIER);
+        return new CustomerResponse(
+                id,
+                decode(strings, nameLength),
+                decode(strings + nameLength, emailLength),
+                spendCents == NO_SPEND ? null : BigDecimal.valueOf(spendCents, 2),
+                purchaseDay == NO_DATE ? null : LocalDate.ofEpochDay(purchaseDay),
+                tier == 0 ? null : CustomerTier.values()[tier - 1].getLabel(),
+                version == NO_VERSION ? null : version,
+                nanos < 0 ? null : Instant.ofEpochSecond(rows.getLong(offset + MODIFIED_SECONDS), nanos));
+    }
+
+    private String decode(int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[length];
+            SCRATCH.set(scratch);
+        }
+        strings.get(offset, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void linkEmail(int row) {
+        long hash = rows.getLong(rowOffset(row) + EMAIL_HASH);
+        long head = emails.get(hash, 0);
+        rows.putInt(rowOffset(row) + NEXT_SAME_EMAIL, (int) head + 1);
+        emails.put(hash, 0, row);
+    }
+
+    private void unlinkEmail(int row) {
+        long hash = rows.getLong(rowOffset(row) + EMAIL_HASH);
+        int next = rows.getInt(rowOffset(row) + NEXT_SAME_EMAIL);
+        int current = (int) emails.get(hash, 0);
+        if (current == row) {
+            if (next == 0) {
+                emails.remove(hash, 0);
+            } else {
+                emails.put(hash, 0, next - 1);
+            }
+            return;
+        }
+        while (rows.getInt(rowOffset(current) + NEXT_SAME_EMAIL) - 1 != row) {
+            current = rows.getInt(rowOffset(current) + NEXT_SAME_EMAIL) - 1;
+        }
+        rows.putInt(rowOffset(current) + NEXT_SAME_EMAIL, next);
+    }
+
+    private int allocateRow() {
+        if (freeRowCount > 0) {
+            return freeRows[--freeRowCount];
+        }
+        if ((long) (rowCount + 1) * ROW_BYTES > rows.capacity()) {
+            rows = grow(rows, (long) (rowCount + 1) * ROW_BYTES, (long) rowCount * ROW_BYTES);
+        }
+        return rowCount++;
+    }
+
+    private int appendStrings(byte[] name, byte[] email) {
+        int length = name.length + email.length;
+        if ((long) stringsEnd + length > strings.capacity()) {
+            if (stringGarbage > stringsEnd / 2) {
+                compactStrings();
+            }
+            if ((long) stringsEnd + length > strings.capacity()) {
+                strings = grow(strings, (long) stringsEnd + length, stringsEnd);
+            }
+        }
+        int offset = stringsEnd;
+        strings.put(offset, name);
+        strings.put(offset + name.length, email);
+        stringsEnd += length;
+        return offset;
+    }
+
+    private void releaseStrings(int row) {
+        int offset = rowOffset(row);
+        stringGarbage += rows.getShort(offset + NAME_LENGTH) + rows.getShort(offset + EMAIL_LENGTH);
+    }
+
+    private void compactStrings() {
+        ByteBuffer compacted = allocate(strings.capacity());
+        int[] end = {0};
+        ids.forEachValue(row -> {
+            int offset = rowOffset((int) row);
+            int length = rows.getShort(offset + NAME_LENGTH) + rows.getShort(offset + EMAIL_LENGTH);
+            compacted.put(end[0], strings, rows.getInt(offset + STRINGS), length);
+            rows.putInt(offset + STRINGS, end[0]);
+            end[0] += length;
+        });
+        strings = compacted;
+        stringsEnd = end[0];
+        stringGarbage = 0;
+    }
+
+    private void disable(String reason) {
+        ready = false;
+        log.warn("Customer read index disabled, lookups go to the store: {}", reason);
+    }
+
+    private long memoryBytes() {
+        return ids.memoryBytes() + emails.memoryBytes() + rows.capacity() + strings.capacity();
+    }
+
+    private void registerGauges() {
+        Gauge.builder("customer.read.index.entries", this, index -> index.ids.size())
+                .description("Customers held by the read index")
+                .register(meterRegistry);
+        memoryGauge("ids", index -> index.ids.memoryBytes());
+        memoryGauge("emails", index -> index.emails.memoryBytes());
+        memoryGauge("rows", index -> index.rows.capacity());
+        memoryGauge("strings", index -> index.strings.capacity());
+    }
+
+    private void memoryGauge(String structure, ToDoubleFunction<CustomerReadIndex> bytes) {
+        Gauge.builder("customer.read.index.memory", this, bytes)
+                .description("Direct memory reserved by the read index")
+                .baseUnit("bytes")
+                .tag("structure", structure)
+                .register(meterRegistry);
+    }
+
+    private static int rowOffset(int row) {
+        return row * ROW_BYTES;
+    }
+
+    // FNV-1a over the UTF-16 code units; no intermediate byte array
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, long required, long used) {
+        long capacity = Math.max(required, (long) buffer.capacity() * 2);
+        if (required > MAX_BUFFER_BYTES) {
+            throw new IllegalStateException("Read index buffer would exceed 2 GB");
+        }
+        ByteBuffer grown = allocate((int) Math.min(capacity, MAX_BUFFER_BYTES));
+        grown.put(0, buffer, 0, (int) used);
+        return grown;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private record Tombstone(long version, long deletedAt) {
+    }
+}
@@ -1,27 +1,108 @@
 package com.challenge.customermanagement.service;
 
+import com.challenge.customermanagement.config.CacheConfig;
+import com.challenge.customermanagement.datasource.ReadFromReplica;
 import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
 import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.CustomerSearchRequest;
+import com.challenge.customermanagement.dto.CustomerSearchResult;
+import com.challenge.customermanagement.dto.CustomerStatsResponse;
 import com.challenge.customermanagement.dto.UpdateCustomerRequest;
 import com.challenge.customermanagement.exception.CustomerNotFoundException;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.exception.PreconditionFailedException;
 import com.challenge.customermanagement.model.Customer;
-import com.challenge.customermanagement.repository.CustomerRepository;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import com.challenge.customermanagement.repository.CustomerVersion;
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+// One timer per public method, tagged with the method name: customer_service_seconds{method="..."}
 @Service
 @RequiredArgsConstructor
+@Timed(value = "customer.service", histogram = true)
 public class CustomerService {
-    private final CustomerRepository customerRepository;
+    private final CustomerStore customerStore;
+    private final CustomerStatistics customerStatistics;
+    private final CustomerReadIndex readIndex;
+    private final CustomerWriteEffects writeEffects;
+    private final CustomerLookupCoalescer lookupCoalescer;
+    private final CustomerEmailFilter emailFilter;
+    private final CustomerMapper mapper = new CustomerMapper();
 
+    @Transactional
     public CustomerResponse createCustomer(CreateCustomerRequest request) {
+        Customer customer = newCustomer(request, LocalDate.now());
+        String emailNormalized = Customer.normalizeEmail(customer.getEmail());
+        checkEmailAvailable(emailNormalized, null);
+        Customer savedCustomer = customerStore.insert(customer);
+        writeEffects.created(savedCustomer);
+        return mapToResponse(savedCustomer);
+    }
+
+    @Transactional
+    public CustomerResponse updateCustomer(UUID id, UpdateCustomerRequest request) {
+        return updateCustomer(id, request, null);
+    }
+
+    /**
+     * Applies the update only if the stored version is one of {@code expectedVersions} ({@code null} means
+     * unconditional). The store returns the row the update replaced; the new state is derived from it in
+     * memory rather than read back.
+     */
+    @Transactional
+    public CustomerResponse updateCustomer(UUID id, UpdateCustomerRequest request, Set<Long> expectedVersions) {
+        LocalDate today = LocalDate.now();
+        Instant now = Instant.now();
+        String emailNormalized = Customer.normalizeEmail(request.getEmail());
+        if (emailNormalized != null) {
+            checkEmailAvailable(emailNormalized, id);
+        }
+        Customer customer = customerStore.update(id, patchFor(request, today, now), expectedVersions)
+                .orElseThrow(() -> expectedVersions != null && customerStore.exists(id)
+                        ? new PreconditionFailedException("Customer has been modified since it was read")
+                        : new CustomerNotFoundException("Customer not found"));
+
+        CustomerWriteEffects.Previous previous = CustomerWriteEffects.Previous.of(customer);
+        applyUpdate(customer, request, today);
+        customer.setVersion(customer.getVersion() + 1);
+        customer.setLastModified(now);
+
+        writeEffects.updated(previous, customer);
+        return mapToResponse(customer);
+    }
+
+    /**
+     * Throws {@link DuplicateEmailException} if a customer other than {@code id} has the email. The filter
+     * rules out most new emails without a query; the unique constraint catches what races past this check.
+     */
+    void checkEmailAvailable(String emailNormalized, UUID id) {
+        if (!emailFilter.mightContain(emailNormalized)) {
+            return;
+        }
+        String ownId = id == null ? null : id.toString();
+        if (customerStore.findByEmailNormalized(emailNormalized).stream().anyMatch(customer -> !customer.getId().equals(ownId))) {
+            throw new DuplicateEmailException();
+        }
+        emailFilter.recordFalsePositive();
+    }
+
+    Customer newCustomer(CreateCustomerRequest request, LocalDate today) {
         if (request.getId() != null) {
             throw new IllegalArgumentException("The 'id' field must not be included in the request body.");
         }
@@ -38,80 +119,144 @@ public class CustomerService {
                 .annualSpend(request.getAnnualSpend())
                 .lastPurchaseDate(request.getLastPurchaseDate())
                 .build();
-        Customer savedCustomer = customerRepository.save(customer);
-        return mapToResponse(savedCustomer);
+        customer.setTier(mapper.evaluateTier(customer, today));
+        return customer;
     }
 
-    public CustomerResponse updateCustomer(UUID id, UpdateCustomerRequest request) {
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
+    // A failed insert leaves the id and version it assigned behind; a retry must start from a new entity
+    static void clearGeneratedState(Customer customer) {
+        customer.setId(null);
+        customer.setVersion(null);
+    }
 
+    // Must write what applyUpdate would: the tier windows become strict date bounds because
+    // MONTHS.between(date, today) <= n holds exactly when date is after today.minusMonths(n + 1)
+    CustomerPatch patchFor(UpdateCustomerRequest request, LocalDate today, Instant now) {
+        return mapper.patchFor(request, today, now);
+    }
+
+    void applyUpdate(Customer customer, UpdateCustomerRequest request, LocalDate today) {
         if (request.getName() != null) customer.setName(request.getName());
         if (request.getEmail() != null) customer.setEmail(request.getEmail());
         if (request.getAnnualSpend() != null) customer.setAnnualSpend(request.getAnnualSpend());
         if (request.getLastPurchaseDate() != null) customer.setLastPurchaseDate(request.getLastPurchaseDate());
-
-        return mapToResponse(customerRepository.save(customer));
+        customer.setTier(mapper.evaluateTier(customer, today));
     }
 
+    @ReadFromReplica
     public CustomerResponse getCustomerById(UUID id) {
-        return customerRepository.findById(id)
-                .map(this::mapToResponse)
+        CustomerResponse indexed = readIndex.findById(id);
+        if (indexed != null) {
+            return withTier(indexed);
+        }
+        return lookupCoalescer.findById(id)
+                .map(this::withTier)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
     }
 
-    public List<CustomerResponse> getAllCustomers() {
-        return customerRepository.findAll()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public CustomerVersion getCustomerVersion(UUID id) {
+        return customerStore.findVersion(id)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
     }
 
+    @ReadFromReplica
+    public CustomerPage getAllCustomers(String cursor, int limit) {
+        // Fetch one extra row to find out whether another page follows
+        UUID after = cursor == null ? null : CustomerCursor.decode(cursor);
+        return toPage(customerStore.findPage(null, after, limit + 1), limit);
+    }
+
+    public void streamAllCustomers(Consumer<CustomerResponse> consumer) {
+        customerStore.forEach(customer -> consumer.accept(withTier(customer)));
+    }
+
+    // Read from the primary: a lagging replica's result would stay cached after the eviction of the write it missed
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_NAME, key = "#name")
     public List<CustomerResponse> getCustomersByName(String name) {
-        return customerRepository.findAllByName(name)
+        return customerStore.findByName(name)
                 .stream()
-                .map(this::mapToResponse)
+                .map(this::withTier)
                 .collect(Collectors.toList());
     }
 
+    @ReadFromReplica
     public List<CustomerResponse> getCustomersByEmail(String email) {
-        return customerRepository.findAllByEmail(email)
+        String emailNormalized = Customer.normalizeEmail(email);
+        List<CustomerResponse> customers = readIndex.findByEmailNormalized(emailNormalized);
+        if (customers.isEmpty()) {
+            customers = lookupCoalescer.findByEmailNormalized(emailNormalized);
+        }
+        customers.forEach(this::withTier);
+        return customers;
+    }
+
+    public CustomerPage getCustomersByTier(String tier, String cursor, int limit) {
+        CustomerTier customerTier = CustomerTier.fromLabel(tier);
+        UUID after = cursor == null ? null : CustomerCursor.decode(cursor);
+        return toPage(customerStore.findPage(customerTier, after, limit + 1), limit);
+    }
+
+    public CustomerSearchResult searchCustomers(CustomerSearchRequest request) {
+        if (request.getMinSpend() != null && request.getMaxSpend() != null
+                && request.getMinSpend().compareTo(request.getMaxSpend()) > 0) {
+            throw new IllegalArgumentException("'minSpend' must not be greater than 'maxSpend'.");
+        }
+        if (request.getPurchasedFrom() != null && request.getPurchasedTo() != null
+                && request.getPurchasedFrom().isAfter(request.getPurchasedTo())) {
+            throw new IllegalArgumentException("'purchasedFrom' must not be after 'purchasedTo'.");
+        }
+        CustomerSearchCriteria criteria = new CustomerSearchCriteria(
+                blankToNull(request.getNamePrefix()),
+                request.getEmailDomain() == null || request.getEmailDomain().isBlank() ? null : Customer.normalizeEmail(request.getEmailDomain()),
+                request.getMinSpend(),
+                request.getMaxSpend(),
+                request.getPurchasedFrom(),
+                request.getPurchasedTo(),
+                request.getTier() == null || request.getTier().isBlank() ? null : CustomerTier.fromLabel(request.getTier()),
+                request.getSort(),
+                "desc".equals(request.getDirection()));
+
+        int size = request.getSize();
+        List<CustomerResponse> items = customerStore.search(criteria, request.getPage() * size, size + 1)
                 .stream()
-                .map(this::mapToResponse)
+                .map(this::withTier)
                 .collect(Collectors.toList());
+        boolean hasNext = items.size() > size;
+        return new CustomerSearchResult(hasNext ? items.subList(0, size) : items, request.getPage(), size, hasNext);
+    }
+
+    public CustomerStatsResponse getCustomerStats() {
+        return customerStatistics.snapshot();
     }
 
+    @Transactional
     public void deleteCustomer(UUID id) {
-        if (!customerRepository.existsById(id)) {
-            throw new CustomerNotFoundException("Customer not found");
-        }
-        customerRepository.deleteById(id);
+        Customer customer = customerStore.delete(id)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
+        writeEffects.deleted(id, customer.getVersion(), CustomerWriteEffects.Previous.of(customer));
     }
 
-    private CustomerResponse mapToResponse(Customer customer) {
-        return new CustomerResponse(
-                customer.getId().toString(),
-                customer.getName(),
-                customer.getEmail(),
-                customer.getAnnualSpend(),
-                customer.getLastPurchaseDate(),
-                calculateTier(customer)
-        );
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private CustomerPage toPage(List<CustomerResponse> customers, int limit) {
+        boolean hasMore = customers.size() > limit;
+        List<CustomerResponse> items = hasMore ? customers.subList(0, limit) : customers;
+        items.forEach(this::withTier);
+        String next = hasMore ? CustomerCursor.encode(UUID.fromString(items.get(limit - 1).getId())) : null;
+        return new CustomerPage(items, next);
     }
 
     public String calculateTier(Customer customer) {
-        if (customer.getAnnualSpend() == null) {
-            return "Silver";
-        }
-        BigDecimal spend = customer.getAnnualSpend();
-        if (spend.compareTo(new BigDecimal("10000")) >= 0 && customer.getLastPurchaseDate() != null &&
-                ChronoUnit.MONTHS.between(customer.getLastPurchaseDate(), LocalDate.now()) <= 6) {
-            return "Platinum";
-        } else if (spend.compareTo(new BigDecimal("1000")) >= 0 && spend.compareTo(new BigDecimal("10000")) < 0 &&
-                customer.getLastPurchaseDate() != null &&
-                ChronoUnit.MONTHS.between(customer.getLastPurchaseDate(), LocalDate.now()) <= 12) {
-            return "Gold";
-        }
-        return "Silver";
+        return mapper.calculateTier(customer);
+    }
+
+    private CustomerResponse withTier(CustomerResponse response) {
+        return mapper.withTier(response);
+    }
+
+    private CustomerResponse mapToResponse(Customer customer) {
+        return mapper.mapToResponse(customer);
     }
 }
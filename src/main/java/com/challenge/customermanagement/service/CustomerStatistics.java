@@ -0,0 +1,168 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerStatsResponse;
+import com.challenge.customermanagement.dto.SpendBucket;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.TierAggregate;
+import com.challenge.customermanagement.store.CustomerStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory customer aggregates behind {@code GET /customers/stats}. Every committed write applies its
+ * delta to striped {@link LongAdder}s, so reads cost the same whatever the table size. Spend is held
+ * in cents. A periodic reconciliation replaces the counters with values aggregated by the store,
+ * which corrects drift from writes that bypass the service (e.g. manual SQL); writes that commit while
+ * the reconciliation runs may leave a small error until the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerStatistics {
+    // Lower bounds of the spend histogram buckets; the last bucket is open-ended
+    private static final BigDecimal[] BUCKET_BOUNDS = {
+            BigDecimal.ZERO, new BigDecimal("1000"), new BigDecimal("5000"), new BigDecimal("10000"), new BigDecimal("50000")
+    };
+    private static final CustomerTier[] TIERS = CustomerTier.values();
+
+    private final CustomerStore customerStore;
+
+    private final LongAdder[] customersByTier = adders(TIERS.length);
+    private final LongAdder customersWithSpend = new LongAdder();
+    private final LongAdder totalSpendCents = new LongAdder();
+    private final LongAdder[] spendBuckets = adders(BUCKET_BOUNDS.length);
+    private volatile Instant lastReconciledAt;
+
+    public record Contribution(CustomerTier tier, BigDecimal annualSpend) {
+        public static Contribution of(Customer customer) {
+            return new Contribution(customer.getTier(), customer.getAnnualSpend());
+        }
+    }
+
+    public void recordCreated(Customer customer) {
+        Contribution added = Contribution.of(customer);
+        AfterCommit.run(() -> apply(added, 1));
+    }
+
+    public void recordUpdated(Contribution before, Customer customer) {
+        Contribution after = Contribution.of(customer);
+        if (before.equals(after)) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            apply(before, -1);
+            apply(after, 1);
+        });
+    }
+
+    public void recordDeleted(Contribution removed) {
+        AfterCommit.run(() -> apply(removed, -1));
+    }
+
+    public CustomerStatsResponse snapshot() {
+        long total = 0;
+        Map<String, Long> byTier = new LinkedHashMap<>();
+        for (CustomerTier tier : TIERS) {
+            long count = customersByTier[tier.ordinal()].sum();
+            byTier.put(tier.getLabel(), count);
+            total += count;
+        }
+        long withSpend = customersWithSpend.sum();
+        BigDecimal totalSpend = BigDecimal.valueOf(totalSpendCents.sum(), 2);
+        BigDecimal averageSpend = withSpend == 0
+                ? BigDecimal.ZERO.setScale(2)
+                : totalSpend.divide(BigDecimal.valueOf(withSpend), 2, RoundingMode.HALF_UP);
+
+        List<SpendBucket> histogram = new ArrayList<>(BUCKET_BOUNDS.length);
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            BigDecimal to = i + 1 < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i + 1] : null;
+            histogram.add(new SpendBucket(BUCKET_BOUNDS[i], to, spendBuckets[i].sum()));
+        }
+        return new CustomerStatsResponse(total, byTier, totalSpend, averageSpend, histogram, lastReconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${customer.stats.reconcile-interval:PT10M}", initialDelayString = "${customer.stats.reconcile-interval:PT10M}")
+    public void reconcile() {
+        long[] tierCounts = new long[TIERS.length];
+        long withSpend = 0;
+        long spendCents = 0;
+        for (TierAggregate aggregate : customerStore.aggregateByTier()) {
+            // Rows not yet assigned a tier are counted as Silver until the tier job fills them in
+            CustomerTier tier = aggregate.getTier() == null ? CustomerTier.SILVER : aggregate.getTier();
+            tierCounts[tier.ordinal()] += aggregate.getCustomers();
+            withSpend += aggregate.getCustomersWithSpend();
+            spendCents += aggregate.getTotalSpend() == null ? 0 : toCents(aggregate.getTotalSpend());
+        }
+        long[] bucketCounts = new long[BUCKET_BOUNDS.length];
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            bucketCounts[i] = customerStore.countByAnnualSpend(BUCKET_BOUNDS[i], i + 1 < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i + 1] : null);
+        }
+
+        long drift = Math.abs(spendCents - totalSpendCents.sum());
+        for (int i = 0; i < TIERS.length; i++) {
+            drift += Math.abs(tierCounts[i] - customersByTier[i].sum());
+            set(customersByTier[i], tierCounts[i]);
+        }
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            set(spendBuckets[i], bucketCounts[i]);
+        }
+        set(customersWithSpend, withSpend);
+        set(totalSpendCents, spendCents);
+        lastReconciledAt = Instant.now();
+        if (drift > 0) {
+            log.info("Reconciled customer statistics against the store (drift {})", drift);
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        CustomerTier tier = contribution.tier() == null ? CustomerTier.SILVER : contribution.tier();
+        customersByTier[tier.ordinal()].add(sign);
+        BigDecimal spend = contribution.annualSpend();
+        if (spend != null) {
+            customersWithSpend.add(sign);
+            totalSpendCents.add(sign * toCents(spend));
+            spendBuckets[bucketOf(spend)].add(sign);
+        }
+    }
+
+    private static int bucketOf(BigDecimal spend) {
+        for (int i = BUCKET_BOUNDS.length - 1; i > 0; i--) {
+            if (spend.compareTo(BUCKET_BOUNDS[i]) >= 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static void set(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
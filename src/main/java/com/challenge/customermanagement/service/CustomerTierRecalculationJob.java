@@ -0,0 +1,91 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.store.CustomerStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the stored {@link Customer#getTier() tier} in line with the purchase-date windows.
+ * A tier can only decay with time, so each run only visits Platinum and Gold customers whose
+ * last purchase is older than their window, plus rows that have no tier yet.
+ * Work is done in keyset-ordered chunks, one transaction per chunk, through {@link CustomerStore}, so it
+ * runs whichever store is configured. Each change is a conditional update on the version that was read,
+ * so a customer written since is left to that write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerTierRecalculationJob {
+    private final CustomerStore customerStore;
+    private final CustomerWriteEffects writeEffects;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerMapper mapper = new CustomerMapper();
+
+    @Value("${customer.tier.recalculation.chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${customer.tier.recalculation.cron:0 5 0 * * *}")
+    public void recalculateTiers() {
+        LocalDate today = LocalDate.now();
+        int changed = recalculate(today, null, null)
+                + recalculate(today, CustomerTier.PLATINUM, today.minusMonths(CustomerMapper.PLATINUM_WINDOW_MONTHS))
+                + recalculate(today, CustomerTier.GOLD, today.minusMonths(CustomerMapper.GOLD_WINDOW_MONTHS));
+        if (changed > 0) {
+            log.info("Recalculated tier for {} customers", changed);
+        }
+    }
+
+    private int recalculate(LocalDate today, CustomerTier tier, LocalDate purchasedBefore) {
+        int changed = 0;
+        UUID after = null;
+        while (true) {
+            List<CustomerResponse> chunk = customerStore.findTierCandidates(tier, purchasedBefore, after, chunkSize);
+            changed += transactionTemplate.execute(status -> recalculateChunk(today, chunk));
+            if (chunk.size() < chunkSize) {
+                return changed;
+            }
+            after = UUID.fromString(chunk.get(chunk.size() - 1).getId());
+        }
+    }
+
+    private int recalculateChunk(LocalDate today, List<CustomerResponse> chunk) {
+        // No fields to change: the store only re-evaluates the tier and bumps the version
+        CustomerPatch reevaluate = mapper.patchFor(new UpdateCustomerRequest(), today, Instant.now());
+        int changed = 0;
+        for (CustomerResponse candidate : chunk) {
+            CustomerTier tier = mapper.evaluateTier(candidate.getAnnualSpend(), candidate.getLastPurchaseDate(), today);
+            if (candidate.getTier() != null && CustomerTier.fromLabel(candidate.getTier()) == tier) {
+                continue;
+            }
+            UUID id = UUID.fromString(candidate.getId());
+            Customer customer = customerStore.update(id, reevaluate, Set.of(candidate.getVersion())).orElse(null);
+            if (customer != null) {
+                CustomerWriteEffects.Previous previous = CustomerWriteEffects.Previous.of(customer);
+                customer.setTier(mapper.evaluateTier(customer, today));
+                customer.setVersion(customer.getVersion() + 1);
+                customer.setLastModified(reevaluate.lastModified());
+                writeEffects.updated(previous, customer);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,67 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.repository.CustomerSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Everything a committed customer write has to update besides the store: the name cache, the statistics,
+ * the read index, the email filter and the change log. Every write path (single, bulk, import and tier
+ * recalculation) reports each written customer here once, inside the writing transaction; the caches and
+ * counters follow on commit and the change is in the outbox if and only if the write committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerWriteEffects {
+    private final CustomerCacheInvalidator cacheInvalidator;
+    private final CustomerStatistics customerStatistics;
+    private final CustomerReadIndex readIndex;
+    private final CustomerEmailFilter emailFilter;
+    private final CustomerChangeLog changeLog;
+
+    /**
+     * What a customer contributed before a write, taken before the in-memory copy is changed.
+     */
+    public record Previous(String name, String emailNormalized, CustomerStatistics.Contribution contribution) {
+        public static Previous of(Customer customer) {
+            return new Previous(customer.getName(), Customer.normalizeEmail(customer.getEmail()),
+                    CustomerStatistics.Contribution.of(customer));
+        }
+
+        public static Previous of(CustomerSnapshot snapshot) {
+            return new Previous(snapshot.getName(), Customer.normalizeEmail(snapshot.getEmail()),
+                    new CustomerStatistics.Contribution(snapshot.getTier(), snapshot.getAnnualSpend()));
+        }
+    }
+
+    public void created(Customer customer) {
+        emailFilter.recordAdded(Customer.normalizeEmail(customer.getEmail()));
+        cacheInvalidator.evict(customer);
+        customerStatistics.recordCreated(customer);
+        readIndex.recordSaved(customer);
+        changeLog.recordCreated(customer);
+    }
+
+    public void updated(Previous previous, Customer customer) {
+        cacheInvalidator.evictName(previous.name());
+        cacheInvalidator.evict(customer);
+        customerStatistics.recordUpdated(previous.contribution(), customer);
+        readIndex.recordSaved(customer);
+        emailFilter.recordChanged(previous.emailNormalized(), Customer.normalizeEmail(customer.getEmail()));
+        changeLog.recordUpdated(customer);
+    }
+
+    /**
+     * @param version the version that was deleted; null if unknown
+     */
+    public void deleted(UUID id, Long version, Previous previous) {
+        cacheInvalidator.evictName(previous.name());
+        customerStatistics.recordDeleted(previous.contribution());
+        readIndex.recordDeleted(id, version);
+        emailFilter.recordRemoved(previous.emailNormalized());
+        changeLog.recordDeleted(id);
+    }
+}
@@ -0,0 +1,45 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time migration that fills {@code email_normalized} and {@code email_domain} for rows written
+ * before those columns existed.
+ * Runs at startup in small transactions so a large table is never locked as a whole; once every row
+ * is populated it costs a single indexed probe.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "customer.backfill.email-normalized.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailNormalizationBackfill implements ApplicationRunner {
+    private final CustomerRepository customerRepository;
+
+    @Value("${customer.backfill.email-normalized.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    public int backfill() {
+        int total = 0;
+        int updated;
+        do {
+            updated = customerRepository.backfillEmailLookupColumns(batchSize);
+            total += updated;
+        } while (updated > 0);
+        if (total > 0) {
+            log.info("Backfilled email lookup columns for {} customers", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,79 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.repository.CustomerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * One partition of {@link ShardedCustomerStore}: its own connection pool, persistence unit and transaction
+ * manager, with a {@link JpaCustomerStore} on top. Every call runs in a transaction of this shard alone,
+ * so it neither joins nor disturbs a transaction the caller has open on the main database, and is timed
+ * as {@code customer.store.shard} with the shard number and operation as tags.
+ */
+final class CustomerShard implements AutoCloseable {
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private final CustomerRepository repository;
+    private final JpaCustomerStore store;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    CustomerShard(int index, HikariDataSource dataSource, LocalContainerEntityManagerFactoryBean entityManagerFactory,
+                  CustomerRepository repository, MeterRegistry meterRegistry) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.repository = repository;
+        this.store = new JpaCustomerStore(repository);
+        this.meterRegistry = meterRegistry;
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory.getObject());
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    <T> T read(String operation, Function<JpaCustomerStore, T> work) {
+        return timer(operation).record(() -> readTransaction.execute(status -> work.apply(store)));
+    }
+
+    <T> T write(String operation, Function<JpaCustomerStore, T> work) {
+        return timer(operation).record(() -> writeTransaction.execute(status -> work.apply(store)));
+    }
+
+    boolean restore(UUID id, Long writtenVersion, Customer previous) {
+        return timer("restore").record(() -> writeTransaction.execute(status -> repository.restore(id, writtenVersion, previous)));
+    }
+
+    void deleteAll(Collection<UUID> ids) {
+        timer("deleteAll").record(() -> writeTransaction.executeWithoutResult(status -> repository.deleteAllByIdInBatch(ids)));
+    }
+
+    private Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, name -> Timer.builder("customer.store.shard")
+                .description("Store operations per shard")
+                .tag("shard", Integer.toString(index))
+                .tag("operation", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.destroy();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import com.challenge.customermanagement.repository.CustomerVersion;
+import com.challenge.customermanagement.repository.TierAggregate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistence behind {@code CustomerService}, selected with {@code customer.store.type}: {@code jpa}
+ * (default, {@link JpaCustomerStore}), {@code mapped} ({@link MappedCustomerStore}) or {@code sharded}
+ * ({@link ShardedCustomerStore}).
+ * Writes return entities so that callers can derive cache keys and statistics deltas; reads return
+ * responses and may leave {@code tier} null for rows that have not been assigned one yet.
+ */
+public interface CustomerStore {
+    String TYPE_PROPERTY = "customer.store.type";
+
+    /**
+     * Stores new customers and assigns their id, version and last-modified time. Either all of them
+     * are written or, on failure, none.
+     */
+    List<Customer> insertAll(List<Customer> customers);
+
+    default Customer insert(Customer customer) {
+        return insertAll(List.of(customer)).get(0);
+    }
+
+    Optional<CustomerResponse> findById(UUID id);
+
+    /**
+     * The customers among {@code ids} that exist, in no particular order.
+     */
+    default List<CustomerResponse> findAllById(Collection<UUID> ids) {
+        return ids.stream().map(this::findById).flatMap(Optional::stream).toList();
+    }
+
+    Optional<CustomerVersion> findVersion(UUID id);
+
+    boolean exists(UUID id);
+
+    List<CustomerResponse> findByName(String name);
+
+    List<CustomerResponse> findByEmailNormalized(String emailNormalized);
+
+    /**
+     * Up to {@code limit} customers in id order, starting after {@code after} and restricted to
+     * {@code tier}; either may be null.
+     */
+    List<CustomerResponse> findPage(CustomerTier tier, UUID after, int limit);
+
+    /**
+     * Up to {@code limit} customers in id order after {@code after} (may be null) whose stored tier may have
+     * lapsed: with {@code tier} null those without a tier, otherwise those in {@code tier} whose last purchase
+     * is before {@code purchasedBefore}.
+     */
+    List<CustomerResponse> findTierCandidates(CustomerTier tier, LocalDate purchasedBefore, UUID after, int limit);
+
+    void forEach(Consumer<CustomerResponse> consumer);
+
+    /**
+     * The normalized email of every customer that has one.
+     */
+    void forEachEmailNormalized(Consumer<String> consumer);
+
+    List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit);
+
+    /**
+     * Applies the patch if the customer exists and, unless {@code expectedVersions} is null, its version is
+     * one of them. Returns the customer as it was before the update.
+     */
+    Optional<Customer> update(UUID id, CustomerPatch patch, Collection<Long> expectedVersions);
+
+    /**
+     * Returns the customer as it was before it was deleted.
+     */
+    Optional<Customer> delete(UUID id);
+
+    List<TierAggregate> aggregateByTier();
+
+    /**
+     * Customers whose annual spend is at least {@code from} and, unless {@code to} is null, below {@code to}.
+     */
+    long countByAnnualSpend(BigDecimal from, BigDecimal to);
+}
@@ -0,0 +1,150 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerRepository;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import com.challenge.customermanagement.repository.CustomerVersion;
+import com.challenge.customermanagement.repository.TierAggregate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The relational store: reads are constructor projections in read-only transactions, single-customer
+ * writes are the one-statement updates and deletes of {@code CustomerWriteRepository}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = CustomerStore.TYPE_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class JpaCustomerStore implements CustomerStore {
+    private final CustomerRepository customerRepository;
+
+    @Override
+    @Transactional
+    public List<Customer> insertAll(List<Customer> customers) {
+        List<Customer> saved = customerRepository.saveAll(customers);
+        customerRepository.flush();
+        return saved;
+    }
+
+    @Override
+    public Customer insert(Customer customer) {
+        return customerRepository.save(customer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CustomerResponse> findById(UUID id) {
+        return customerRepository.findResponseById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> findAllById(Collection<UUID> ids) {
+        return customerRepository.findResponsesByIdIn(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CustomerVersion> findVersion(UUID id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Override
+    public boolean exists(UUID id) {
+        return customerRepository.existsById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> findByName(String name) {
+        return customerRepository.findResponsesByName(name);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> findByEmailNormalized(String emailNormalized) {
+        return customerRepository.findResponsesByEmailNormalized(emailNormalized);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> findPage(CustomerTier tier, UUID after, int limit) {
+        Limit fetchLimit = Limit.of(limit);
+        if (tier == null) {
+            return after == null
+                    ? customerRepository.findResponsesOrderedById(fetchLimit)
+                    : customerRepository.findResponsesAfterId(after, fetchLimit);
+        }
+        return after == null
+                ? customerRepository.findResponsesByTier(tier, fetchLimit)
+                : customerRepository.findResponsesByTierAfterId(tier, after, fetchLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> findTierCandidates(CustomerTier tier, LocalDate purchasedBefore, UUID after, int limit) {
+        return tier == null
+                ? customerRepository.findResponsesWithoutTier(after, Limit.of(limit))
+                : customerRepository.findTierRecalculationCandidates(tier, purchasedBefore, after, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<CustomerResponse> consumer) {
+        try (Stream<CustomerResponse> customers = customerRepository.streamAllResponsesOrderedById()) {
+            customers.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmailNormalized(Consumer<String> consumer) {
+        try (Stream<String> emails = customerRepository.streamAllEmailsNormalized()) {
+            emails.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit) {
+        return customerRepository.search(criteria, offset, limit);
+    }
+
+    @Override
+    public Optional<Customer> update(UUID id, CustomerPatch patch, Collection<Long> expectedVersions) {
+        return customerRepository.updateReturningPrevious(id, patch, expectedVersions);
+    }
+
+    @Override
+    public Optional<Customer> delete(UUID id) {
+        return customerRepository.deleteReturningPrevious(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TierAggregate> aggregateByTier() {
+        return customerRepository.aggregateByTier();
+    }
+
+    @Override
+    public long countByAnnualSpend(BigDecimal from, BigDecimal to) {
+        return to == null
+                ? customerRepository.countByAnnualSpendGreaterThanEqual(from)
+                : customerRepository.countByAnnualSpendGreaterThanEqualAndAnnualSpendLessThan(from, to);
+    }
+}
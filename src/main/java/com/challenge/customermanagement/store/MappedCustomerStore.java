@@ -0,0 +1,808 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.model.TimeOrderedUuidGenerator;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import com.challenge.customermanagement.repository.CustomerVersion;
+import com.challenge.customermanagement.repository.TierAggregate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded store for datasets that should survive restarts and may not fit in the heap. Customers are
+ * fixed-size records in a memory-mapped, append-only log ({@code customers.log} under
+ * {@code customer.store.mapped.directory}): a create or update appends the full new record, a delete
+ * appends a tombstone, and records are never modified once written. An off-heap {@link OffHeapIdIndex}
+ * maps each live id to its latest record; on startup it is rebuilt by replaying the log, stopping at the
+ * first record that is empty or fails its checksum (a write torn by a crash). Two {@link OffHeapHashIndex}es
+ * map the name and email hashes stored in each record to the live records carrying them, and an
+ * {@link OffHeapIdOrder} keeps the ids sorted for paging. The log is compacted once superseded records
+ * outnumber live ones and {@code customer.store.mapped.compaction-threshold}: at startup, and otherwise after
+ * the update or delete that crosses it. Live records are copied into a new file without the write lock; only
+ * the records appended meanwhile are copied under it, when the new file is swapped in. Readers that stream
+ * the whole store keep reading the log they started on.
+ * <p>
+ * Lookups by id, name and email are hash probes, and a page seeks to its cursor in the id order; search and
+ * the aggregates scan the live records. Writes are serialized, and a create or an email change looks the
+ * email up inside the write lock, so concurrent writes cannot store the same email twice. A returned write
+ * survives a process crash; with {@code customer.store.mapped.sync-writes} it is also forced to disk before
+ * returning.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = CustomerStore.TYPE_PROPERTY, havingValue = "mapped")
+public class MappedCustomerStore implements CustomerStore {
+    static final String FILE_NAME = "customers.log";
+    static final int RECORD_SIZE = 1024;
+    private static final int RECORDS_PER_SEGMENT = 64 * 1024;
+    private static final int MAGIC = 0x43534C31;
+
+    // Record layout; record 0 is the file header (magic, record size)
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int TYPE = 0;
+    private static final int TIER = 1;
+    private static final int NAME_LENGTH = 2;
+    private static final int EMAIL_LENGTH = 4;
+    private static final int MSB = 8;
+    private static final int LSB = 16;
+    private static final int VERSION = 24;
+    private static final int MODIFIED_SECONDS = 32;
+    private static final int MODIFIED_NANOS = 40;
+    private static final int PURCHASE_DAY = 44;
+    private static final int SPEND_CENTS = 48;
+    private static final int NAME_HASH = 56;
+    private static final int EMAIL_HASH = 60;
+    private static final int CHECKSUM = 64;
+    private static final int NAME = 128;
+    private static final int EMAIL = 512;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_SPEND = Long.MIN_VALUE;
+
+    private final Path directory;
+    private final Path path;
+    private final boolean syncWrites;
+    private final long compactionThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final OffHeapIdOrder order = new OffHeapIdOrder();
+
+    private MappedRecordFile file;
+    private OffHeapIdIndex index;
+    private OffHeapHashIndex names;
+    private OffHeapHashIndex emails;
+    private long nextRecord;
+    private long superseded;
+    private boolean closed;
+
+    public MappedCustomerStore(@Value("${customer.store.mapped.directory:data}") String directory,
+                               @Value("${customer.store.mapped.sync-writes:false}") boolean syncWrites,
+                               @Value("${customer.store.mapped.compaction-threshold:65536}") long compactionThreshold) {
+        this.directory = Path.of(directory);
+        this.path = this.directory.resolve(FILE_NAME);
+        this.syncWrites = syncWrites;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        replay();
+        if (isMostlySuperseded()) {
+            compact();
+        }
+        log.info("Opened customer store {} with {} customers", path, index.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            file.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> insertAll(List<Customer> customers) {
+        // Encode everything first so that an unstorable customer fails the call before anything is appended
+        List<Encoded> encoded = customers.stream().map(MappedCustomerStore::encode).toList();
+        Instant now = Instant.now();
+        lock.writeLock().lock();
+        try {
+            Set<String> added = new HashSet<>();
+            for (Encoded record : encoded) {
+                String email = Customer.normalizeEmail(record.customer().getEmail());
+                if (email != null && !added.add(email)) {
+                    throw new DuplicateEmailException();
+                }
+            }
+            if (isStored(added, null)) {
+                throw new DuplicateEmailException();
+            }
+            for (Encoded record : encoded) {
+                Customer customer = record.customer();
+                UUID id;
+                do {
+                    id = TimeOrderedUuidGenerator.next();
+                } while (index.get(id) >= 0);
+                customer.setId(id);
+                customer.setVersion(0L);
+                customer.setLastModified(now);
+                customer.setEmailNormalized(Customer.normalizeEmail(customer.getEmail()));
+                customer.setEmailDomain(Customer.emailDomain(customer.getEmailNormalized()));
+                long position = append(PUT, record);
+                index.put(id, position);
+                addLookups(file.record(position), position, names, emails);
+                order.add(id, index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return customers;
+    }
+
+    @Override
+    public Optional<CustomerResponse> findById(UUID id) {
+        return read(id, record -> toResponse(toCustomer(record)));
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersion(UUID id) {
+        return read(id, record -> new StoredVersion(record.getLong(VERSION), lastModified(record)));
+    }
+
+    @Override
+    public boolean exists(UUID id) {
+        return position(id) >= 0;
+    }
+
+    @Override
+    public List<CustomerResponse> findByName(String name) {
+        List<CustomerResponse> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Records under one hash may still carry a different name
+            names.forEach(name.hashCode(), position -> {
+                Customer customer = toCustomer(file.record(position));
+                if (name.equals(customer.getName())) {
+                    matches.add(toResponse(customer));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    @Override
+    public List<CustomerResponse> findByEmailNormalized(String emailNormalized) {
+        List<CustomerResponse> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            emails.forEach(emailNormalized.hashCode(), position -> {
+                Customer customer = toCustomer(file.record(position));
+                if (emailNormalized.equals(customer.getEmailNormalized())) {
+                    matches.add(toResponse(customer));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    @Override
+    public List<CustomerResponse> findPage(CustomerTier tier, UUID after, int limit) {
+        return page(after, limit, record -> tier == null || record.get(TIER) == tier.ordinal() + 1);
+    }
+
+    @Override
+    public List<CustomerResponse> findTierCandidates(CustomerTier tier, LocalDate purchasedBefore, UUID after, int limit) {
+        if (tier == null) {
+            return page(after, limit, record -> record.get(TIER) == 0);
+        }
+        long before = purchasedBefore.toEpochDay();
+        return page(after, limit, record -> record.get(TIER) == tier.ordinal() + 1
+                && record.getInt(PURCHASE_DAY) != NO_DATE && record.getInt(PURCHASE_DAY) < before);
+    }
+
+    // Up to limit matching customers in id order, starting after the cursor
+    private List<CustomerResponse> page(UUID after, int limit, Predicate<ByteBuffer> filter) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<CustomerResponse> customers = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            // The order still holds removed ids; the index decides which ones are live
+            order.forEachAfter(after, (msb, lsb) -> {
+                long position = index.get(msb, lsb);
+                if (position >= 0) {
+                    ByteBuffer record = file.record(position);
+                    if (filter.test(record)) {
+                        customers.add(toResponse(toCustomer(record)));
+                    }
+                }
+                return customers.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return customers;
+    }
+
+    @Override
+    public void forEach(Consumer<CustomerResponse> consumer) {
+        // Records are immutable, so a snapshot of positions stays readable without holding the lock, as long as
+        // the log they point into is retained across a compaction; in log order
+        long[] positions;
+        MappedRecordFile snapshot;
+        lock.readLock().lock();
+        try {
+            positions = new long[index.size()];
+            int[] next = {0};
+            index.forEachValue(position -> positions[next[0]++] = position);
+            snapshot = file;
+            snapshot.retain();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Arrays.sort(positions);
+            for (long position : positions) {
+                consumer.accept(toResponse(toCustomer(snapshot.record(position))));
+            }
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    @Override
+    public void forEachEmailNormalized(Consumer<String> consumer) {
+        forEach(customer -> {
+            if (customer.getEmail() != null) {
+                consumer.accept(Customer.normalizeEmail(customer.getEmail()));
+            }
+        });
+    }
+
+    @Override
+    public List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit) {
+        List<Customer> matches = new ArrayList<>();
+        scan(position -> {
+            Customer customer = toCustomer(file.record(position));
+            if (matches(customer, criteria)) {
+                matches.add(customer);
+            }
+        });
+        matches.sort(searchOrder(criteria));
+        return matches.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(MappedCustomerStore::toResponse)
+                .toList();
+    }
+
+    @Override
+    public Optional<Customer> update(UUID id, CustomerPatch patch, Collection<Long> expectedVersions) {
+        Optional<Customer> previous;
+        lock.writeLock().lock();
+        try {
+            previous = updateLocked(id, patch, expectedVersions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfMostlySuperseded();
+        return previous;
+    }
+
+    private Optional<Customer> updateLocked(UUID id, CustomerPatch patch, Collection<Long> expectedVersions) {
+        long position = index.get(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Customer previous = toCustomer(file.record(position));
+        if (expectedVersions != null && !expectedVersions.contains(previous.getVersion())) {
+            return Optional.empty();
+        }
+        if (patch.email() != null && !patch.emailNormalized().equals(previous.getEmailNormalized())
+                && isStored(Set.of(patch.emailNormalized()), id)) {
+            throw new DuplicateEmailException();
+        }
+        Customer updated = Customer.builder()
+                .id(id)
+                .name(patch.name() != null ? patch.name() : previous.getName())
+                .email(patch.email() != null ? patch.email() : previous.getEmail())
+                .emailNormalized(patch.email() != null ? patch.emailNormalized() : previous.getEmailNormalized())
+                .emailDomain(patch.email() != null ? patch.emailDomain() : previous.getEmailDomain())
+                .annualSpend(patch.annualSpend() != null ? patch.annualSpend() : previous.getAnnualSpend())
+                .lastPurchaseDate(patch.lastPurchaseDate() != null ? patch.lastPurchaseDate() : previous.getLastPurchaseDate())
+                .version(previous.getVersion() + 1)
+                .lastModified(patch.lastModified())
+                .build();
+        updated.setTier(patch.tierFor(updated.getAnnualSpend(), updated.getLastPurchaseDate()));
+        long written = append(PUT, encode(updated));
+        removeLookups(file.record(position), position, names, emails);
+        index.put(id, written);
+        addLookups(file.record(written), written, names, emails);
+        superseded++;
+        return Optional.of(previous);
+    }
+
+    @Override
+    public Optional<Customer> delete(UUID id) {
+        Customer previous;
+        lock.writeLock().lock();
+        try {
+            long position = index.get(id);
+            if (position < 0) {
+                return Optional.empty();
+            }
+            previous = toCustomer(file.record(position));
+            append(DELETE, new Encoded(Customer.builder().id(id).version(previous.getVersion()).build(), new byte[0], new byte[0], NO_SPEND));
+            removeLookups(file.record(position), position, names, emails);
+            index.remove(id);
+            superseded += 2;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfMostlySuperseded();
+        return Optional.of(previous);
+    }
+
+    @Override
+    public List<TierAggregate> aggregateByTier() {
+        long[] customers = new long[CustomerTier.values().length + 1];
+        long[] withSpend = new long[customers.length];
+        long[] spendCents = new long[customers.length];
+        scan(position -> {
+            ByteBuffer record = file.record(position);
+            int tier = record.get(TIER);
+            customers[tier]++;
+            long cents = record.getLong(SPEND_CENTS);
+            if (cents != NO_SPEND) {
+                withSpend[tier]++;
+                spendCents[tier] += cents;
+            }
+        });
+        List<TierAggregate> aggregates = new ArrayList<>();
+        for (int tier = 0; tier < customers.length; tier++) {
+            if (customers[tier] > 0) {
+                aggregates.add(new StoredAggregate(tier == 0 ? null : CustomerTier.values()[tier - 1], customers[tier],
+                        withSpend[tier], withSpend[tier] == 0 ? null : BigDecimal.valueOf(spendCents[tier], 2)));
+            }
+        }
+        return aggregates;
+    }
+
+    @Override
+    public long countByAnnualSpend(BigDecimal from, BigDecimal to) {
+        long[] count = {0};
+        scan(position -> {
+            long cents = file.record(position).getLong(SPEND_CENTS);
+            if (cents != NO_SPEND) {
+                BigDecimal spend = BigDecimal.valueOf(cents, 2);
+                if (spend.compareTo(from) >= 0 && (to == null || spend.compareTo(to) < 0)) {
+                    count[0]++;
+                }
+            }
+        });
+        return count[0];
+    }
+
+    private <T> Optional<T> read(UUID id, Function<ByteBuffer, T> reader) {
+        lock.readLock().lock();
+        try {
+            long position = index.get(id);
+            return position < 0 ? Optional.empty() : Optional.of(reader.apply(file.record(position)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long position(UUID id) {
+        lock.readLock().lock();
+        try {
+            return index.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scan(LongConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            index.forEachValue(consumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether a customer other than except has one of the normalized emails; callers hold the write lock
+    private boolean isStored(Set<String> candidates, UUID except) {
+        boolean[] stored = {false};
+        for (String email : candidates) {
+            emails.forEach(email.hashCode(), position -> {
+                Customer customer = toCustomer(file.record(position));
+                stored[0] |= email.equals(customer.getEmailNormalized()) && !customer.getId().equals(except);
+            });
+        }
+        return stored[0];
+    }
+
+    // The name and email hashes are those append stored, so the lookups can be built without decoding
+    private static void addLookups(ByteBuffer record, long position, OffHeapHashIndex names, OffHeapHashIndex emails) {
+        if (record.getShort(NAME_LENGTH) > 0) {
+            names.add(record.getInt(NAME_HASH), position);
+        }
+        if (record.getShort(EMAIL_LENGTH) > 0) {
+            emails.add(record.getInt(EMAIL_HASH), position);
+        }
+    }
+
+    private static void removeLookups(ByteBuffer record, long position, OffHeapHashIndex names, OffHeapHashIndex emails) {
+        if (record.getShort(NAME_LENGTH) > 0) {
+            names.remove(record.getInt(NAME_HASH), position);
+        }
+        if (record.getShort(EMAIL_LENGTH) > 0) {
+            emails.remove(record.getInt(EMAIL_HASH), position);
+        }
+    }
+
+    private long append(byte type, Encoded encoded) {
+        Customer customer = encoded.customer();
+        file.ensureCapacity(nextRecord + 1);
+        ByteBuffer record = file.record(nextRecord);
+        record.put(TYPE, type);
+        record.put(TIER, (byte) (customer.getTier() == null ? 0 : customer.getTier().ordinal() + 1));
+        record.putShort(NAME_LENGTH, (short) encoded.name().length);
+        record.putShort(EMAIL_LENGTH, (short) encoded.email().length);
+        record.putLong(MSB, customer.getId().getMostSignificantBits());
+        record.putLong(LSB, customer.getId().getLeastSignificantBits());
+        record.putLong(VERSION, customer.getVersion() == null ? 0 : customer.getVersion());
+        Instant lastModified = customer.getLastModified();
+        record.putLong(MODIFIED_SECONDS, lastModified == null ? 0 : lastModified.getEpochSecond());
+        record.putInt(MODIFIED_NANOS, lastModified == null ? -1 : lastModified.getNano());
+        record.putInt(PURCHASE_DAY, customer.getLastPurchaseDate() == null ? NO_DATE : (int) customer.getLastPurchaseDate().toEpochDay());
+        record.putLong(SPEND_CENTS, encoded.spendCents());
+        record.putInt(NAME_HASH, customer.getName() == null ? 0 : customer.getName().hashCode());
+        record.putInt(EMAIL_HASH, customer.getEmailNormalized() == null ? 0 : customer.getEmailNormalized().hashCode());
+        record.put(NAME, encoded.name());
+        record.put(EMAIL, encoded.email());
+        record.putInt(CHECKSUM, checksum(record));
+        if (syncWrites) {
+            file.force(nextRecord);
+        }
+        return nextRecord++;
+    }
+
+    private static Encoded encode(Customer customer) {
+        byte[] name = customer.getName() == null ? new byte[0] : customer.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = customer.getEmail() == null ? new byte[0] : customer.getEmail().getBytes(StandardCharsets.UTF_8);
+        if (name.length > EMAIL - NAME) {
+            throw new IllegalArgumentException("Customer 'name' must not exceed " + (EMAIL - NAME) + " bytes.");
+        }
+        if (email.length > RECORD_SIZE - EMAIL) {
+            throw new IllegalArgumentException("Customer 'email' must not exceed " + (RECORD_SIZE - EMAIL) + " bytes.");
+        }
+        long spendCents = NO_SPEND;
+        if (customer.getAnnualSpend() != null) {
+            try {
+                spendCents = customer.getAnnualSpend().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            } catch (ArithmeticException ex) {
+                throw new IllegalArgumentException("Customer 'annualSpend' is too large.");
+            }
+        }
+        return new Encoded(customer, name, email, spendCents);
+    }
+
+    private static Customer toCustomer(ByteBuffer record) {
+        byte[] name = new byte[record.getShort(NAME_LENGTH)];
+        byte[] email = new byte[record.getShort(EMAIL_LENGTH)];
+        record.get(NAME, name);
+        record.get(EMAIL, email);
+        String emailValue = email.length == 0 ? null : new String(email, StandardCharsets.UTF_8);
+        String emailNormalized = Customer.normalizeEmail(emailValue);
+        int tier = record.get(TIER);
+        int purchaseDay = record.getInt(PURCHASE_DAY);
+        long spendCents = record.getLong(SPEND_CENTS);
+        return Customer.builder()
+                .id(new UUID(record.getLong(MSB), record.getLong(LSB)))
+                .name(name.length == 0 ? null : new String(name, StandardCharsets.UTF_8))
+                .email(emailValue)
+                .emailNormalized(emailNormalized)
+                .emailDomain(Customer.emailDomain(emailNormalized))
+                .annualSpend(spendCents == NO_SPEND ? null : BigDecimal.valueOf(spendCents, 2))
+                .lastPurchaseDate(purchaseDay == NO_DATE ? null : LocalDate.ofEpochDay(purchaseDay))
+                .tier(tier == 0 ? null : CustomerTier.values()[tier - 1])
+                .version(record.getLong(VERSION))
+                .lastModified(lastModified(record))
+                .build();
+    }
+
+    private static Instant lastModified(ByteBuffer record) {
+        int nanos = record.getInt(MODIFIED_NANOS);
+        return nanos < 0 ? null : Instant.ofEpochSecond(record.getLong(MODIFIED_SECONDS), nanos);
+    }
+
+    private static CustomerResponse toResponse(Customer customer) {
+        return new CustomerResponse(customer.getId(), customer.getName(), customer.getEmail(), customer.getAnnualSpend(),
+                customer.getLastPurchaseDate(), customer.getTier(), customer.getVersion(), customer.getLastModified());
+    }
+
+    private static boolean matches(Customer customer, CustomerSearchCriteria criteria) {
+        BigDecimal spend = customer.getAnnualSpend();
+        LocalDate purchased = customer.getLastPurchaseDate();
+        return (criteria.namePrefix() == null || customer.getName() != null && customer.getName().startsWith(criteria.namePrefix()))
+                && (criteria.emailDomain() == null || criteria.emailDomain().equals(customer.getEmailDomain()))
+                && (criteria.minSpend() == null || spend != null && spend.compareTo(criteria.minSpend()) >= 0)
+                && (criteria.maxSpend() == null || spend != null && spend.compareTo(criteria.maxSpend()) <= 0)
+                && (criteria.purchasedFrom() == null || purchased != null && !purchased.isBefore(criteria.purchasedFrom()))
+                && (criteria.purchasedTo() == null || purchased != null && !purchased.isAfter(criteria.purchasedTo()))
+                && (criteria.tier() == null || criteria.tier() == customer.getTier());
+    }
+
+    // Same order as the SQL search: nulls sort low, id breaks ties
+    private static Comparator<Customer> searchOrder(CustomerSearchCriteria criteria) {
+        Comparator<Customer> byId = (a, b) -> compareIds(a.getId().getMostSignificantBits(), a.getId().getLeastSignificantBits(),
+                b.getId().getMostSignificantBits(), b.getId().getLeastSignificantBits());
+        Comparator<Customer> order = switch (criteria.sortBy()) {
+            case "name" -> Comparator.comparing(Customer::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "email" -> Comparator.comparing(Customer::getEmail, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "annualSpend" -> Comparator.comparing(Customer::getAnnualSpend, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "lastPurchaseDate" -> Comparator.comparing(Customer::getLastPurchaseDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> byId;
+        };
+        if (criteria.descending()) {
+            order = order.reversed();
+        }
+        return order == byId || "id".equals(criteria.sortBy()) ? order : order.thenComparing(byId);
+    }
+
+    // Unsigned, matching the order the database uses for UUID columns
+    private static int compareIds(long msb1, long lsb1, long msb2, long lsb2) {
+        int byMsb = Long.compareUnsigned(msb1, msb2);
+        return byMsb != 0 ? byMsb : Long.compareUnsigned(lsb1, lsb2);
+    }
+
+    private boolean isMostlySuperseded() {
+        return superseded > index.size() && superseded > compactionThreshold;
+    }
+
+    // Called by writes once they have released the write lock, and by one at a time; the write itself is
+    // already in the log, so a compaction that fails before the new log replaces the old one leaves it in place
+    private void compactIfMostlySuperseded() {
+        lock.readLock().lock();
+        try {
+            if (closed || !isMostlySuperseded()) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Could not compact customer store {}; will retry after the next write", path, ex);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private void replay() throws IOException {
+        file = new MappedRecordFile(path, RECORD_SIZE, RECORDS_PER_SEGMENT);
+        ByteBuffer header = file.record(0);
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, RECORD_SIZE);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != RECORD_SIZE) {
+            throw new IllegalStateException(path + " is not a customer store file");
+        }
+
+        index = new OffHeapIdIndex((int) Math.min(file.capacity(), 1 << 24));
+        superseded = 0;
+        long position = 1;
+        for (; position < file.capacity(); position++) {
+            ByteBuffer record = file.record(position);
+            byte type = record.get(TYPE);
+            if (type == 0) {
+                break;
+            }
+            if (record.getInt(CHECKSUM) != checksum(record)) {
+                log.warn("Customer store {} ends in a torn record at {}; discarding it and anything after it", path, position);
+                for (long stale = position; stale < file.capacity(); stale++) {
+                    file.record(stale).put(TYPE, (byte) 0);
+                }
+                break;
+            }
+            UUID id = new UUID(record.getLong(MSB), record.getLong(LSB));
+            if (index.get(id) >= 0) {
+                superseded++;
+            }
+            if (type == PUT) {
+                index.put(id, position);
+            } else {
+                index.remove(id);
+                superseded++;
+            }
+        }
+        nextRecord = position;
+
+        names = new OffHeapHashIndex(index.size());
+        emails = new OffHeapHashIndex(index.size());
+        order.reset(index.size());
+        index.forEachValue(live -> {
+            ByteBuffer record = file.record(live);
+            addLookups(record, live, names, emails);
+            order.load(record.getLong(MSB), record.getLong(LSB));
+        });
+        order.sortLoaded();
+    }
+
+    private void compact() throws IOException {
+        long[] positions;
+        long copiedUpTo;
+        MappedRecordFile source;
+        lock.readLock().lock();
+        try {
+            positions = new long[index.size()];
+            int[] next = {0};
+            index.forEachValue(position -> positions[next[0]++] = position);
+            copiedUpTo = nextRecord;
+            source = file;
+            source.retain();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path compacted = path.resolveSibling(FILE_NAME + ".compact");
+        Files.deleteIfExists(compacted);
+        MappedRecordFile target = new MappedRecordFile(compacted, RECORD_SIZE, RECORDS_PER_SEGMENT);
+        boolean swapped = false;
+        try {
+            // The live records as of the snapshot, in log order, while writes go on appending to the current log
+            Arrays.sort(positions);
+            OffHeapIdIndex compactedIndex = new OffHeapIdIndex(positions.length);
+            OffHeapHashIndex compactedNames = new OffHeapHashIndex(positions.length);
+            OffHeapHashIndex compactedEmails = new OffHeapHashIndex(positions.length);
+            target.ensureCapacity(positions.length + 1L);
+            target.record(0).put(0, source.record(0), 0, RECORD_SIZE);
+            for (int i = 0; i < positions.length; i++) {
+                ByteBuffer record = target.record(i + 1L);
+                record.put(0, source.record(positions[i]), 0, RECORD_SIZE);
+                compactedIndex.put(record.getLong(MSB), record.getLong(LSB), i + 1L);
+                addLookups(record, i + 1L, compactedNames, compactedEmails);
+            }
+            target.force();
+
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                // Replays what was appended since the snapshot onto the copy, as replay() would
+                long written = positions.length + 1L;
+                long supersededSince = 0;
+                for (long position = copiedUpTo; position < nextRecord; position++, written++) {
+                    target.ensureCapacity(written + 1);
+                    ByteBuffer record = target.record(written);
+                    record.put(0, file.record(position), 0, RECORD_SIZE);
+                    long msb = record.getLong(MSB);
+                    long lsb = record.getLong(LSB);
+                    long replaced = compactedIndex.get(msb, lsb);
+                    if (replaced >= 0) {
+                        removeLookups(target.record(replaced), replaced, compactedNames, compactedEmails);
+                        supersededSince++;
+                    }
+                    if (record.get(TYPE) == PUT) {
+                        compactedIndex.put(msb, lsb, written);
+                        addLookups(record, written, compactedNames, compactedEmails);
+                    } else {
+                        compactedIndex.remove(msb, lsb);
+                        supersededSince++;
+                    }
+                }
+                target.force();
+                // The new log stays mapped across the rename, so it is used as it is rather than reopened
+                Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                long dropped = superseded - supersededSince;
+                file.retire();
+                file = target;
+                index = compactedIndex;
+                names = compactedNames;
+                emails = compactedEmails;
+                nextRecord = written;
+                superseded = supersededSince;
+                swapped = true;
+                log.info("Compacted customer store {}: dropped {} superseded records", path, dropped);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            source.release();
+            if (!swapped) {
+                target.close();
+                Files.deleteIfExists(compacted);
+            }
+        }
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(0, CHECKSUM));
+        crc.update(record.slice(CHECKSUM + 4, RECORD_SIZE - CHECKSUM - 4));
+        return (int) crc.getValue();
+    }
+
+    private record Encoded(Customer customer, byte[] name, byte[] email, long spendCents) {
+    }
+
+    private record StoredVersion(Long version, Instant lastModified) implements CustomerVersion {
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+
+        @Override
+        public Instant getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private record StoredAggregate(CustomerTier tier, long customers, long customersWithSpend, BigDecimal totalSpend)
+            implements TierAggregate {
+        @Override
+        public CustomerTier getTier() {
+            return tier;
+        }
+
+        @Override
+        public long getCustomers() {
+            return customers;
+        }
+
+        @Override
+        public long getCustomersWithSpend() {
+            return customersWithSpend;
+        }
+
+        @Override
+        public BigDecimal getTotalSpend() {
+            return totalSpend;
+        }
+    }
+}
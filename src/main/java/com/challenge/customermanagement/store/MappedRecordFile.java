@@ -0,0 +1,103 @@
+package com.challenge.customermanagement.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A file of fixed-size records, memory-mapped in segments so that it can grow past the 2 GB limit of
+ * a single mapping and past the heap: the OS pages records in and out. Segments are mapped as the file
+ * grows; mapping beyond the end extends the file with zeros. Reads are safe from any thread, writes
+ * and {@link #ensureCapacity} must be serialized by the caller.
+ * <p>
+ * A file replaced by compaction is {@link #retire retired} rather than closed: readers that {@link #retain}
+ * it keep reading the old mapping, and the last of them to {@link #release} it closes it.
+ */
+final class MappedRecordFile implements Closeable {
+    private final FileChannel channel;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    // One reference for the owner plus one per reader that retained the file
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    MappedRecordFile(Path path, int recordSize, int recordsPerSegment) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.recordSize = recordSize;
+        this.recordsPerSegment = recordsPerSegment;
+        ensureCapacity(Math.max(1, channel.size() / recordSize));
+    }
+
+    long capacity() {
+        return (long) segments.length * recordsPerSegment;
+    }
+
+    void ensureCapacity(long records) {
+        MappedByteBuffer[] current = segments;
+        if ((long) current.length * recordsPerSegment >= records) {
+            return;
+        }
+        int needed = (int) ((records + recordsPerSegment - 1) / recordsPerSegment);
+        MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+        long segmentBytes = (long) recordSize * recordsPerSegment;
+        try {
+            for (int i = current.length; i < needed; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map customer store segment", ex);
+        }
+        segments = grown;
+    }
+
+    /**
+     * A view of one record; position-independent, so callers use absolute gets and puts.
+     */
+    ByteBuffer record(long index) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        return segment.slice((int) (index % recordsPerSegment) * recordSize, recordSize);
+    }
+
+    void force(long index) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        segment.force((int) (index % recordsPerSegment) * recordSize, recordSize);
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    void retain() {
+        references.incrementAndGet();
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not close retired customer store file", ex);
+            }
+        }
+    }
+
+    void retire() {
+        release();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        segments = new MappedByteBuffer[0];
+        channel.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.challenge.customermanagement.store;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Multimap from a hash to non-negative longs, kept in an {@link OffHeapIdIndex} under the key (hash, n): the
+ * values stored under one hash are numbered 0 to count - 1, and removing one moves the last into its place.
+ * Finding the values for a hash costs one probe per value plus one. Not thread-safe.
+ */
+final class OffHeapHashIndex {
+    private final OffHeapIdIndex entries;
+
+    OffHeapHashIndex(int expectedSize) {
+        entries = new OffHeapIdIndex(expectedSize);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long memoryBytes() {
+        return entries.memoryBytes();
+    }
+
+    void add(long hash, long value) {
+        long n = 0;
+        while (entries.get(hash, n) >= 0) {
+            n++;
+        }
+        entries.put(hash, n, value);
+    }
+
+    boolean remove(long hash, long value) {
+        long found = -1;
+        long count = 0;
+        for (long stored; (stored = entries.get(hash, count)) >= 0; count++) {
+            if (stored == value) {
+                found = count;
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+        if (found != count - 1) {
+            entries.put(hash, found, entries.get(hash, count - 1));
+        }
+        entries.remove(hash, count - 1);
+        return true;
+    }
+
+    void forEach(long hash, LongConsumer consumer) {
+        for (long n = 0, stored; (stored = entries.get(hash, n)) >= 0; n++) {
+            consumer.accept(stored);
+        }
+    }
+}
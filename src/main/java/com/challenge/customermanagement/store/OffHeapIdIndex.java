@@ -0,0 +1,159 @@
+package com.challenge.customermanagement.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash table from a 128-bit key (a customer id's two longs) to a non-negative long, held
+ * in direct memory so that it neither counts against the heap nor gives the collector anything to trace.
+ * A slot is the key's two longs followed by the value plus one, so an all-zero slot is free. Linear
+ * probing with backward-shift deletion keeps probe sequences free of tombstones. Not thread-safe.
+ */
+public final class OffHeapIdIndex {
+    private static final int SLOT_BYTES = 24;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final double MAX_LOAD = 0.7;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+
+    public OffHeapIdIndex(int expectedSize) {
+        capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(MAX_CAPACITY, expectedSize / MAX_LOAD)) * 2 - 1);
+        table = allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memoryBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    public long get(UUID id) {
+        return get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    public long get(long msb, long lsb) {
+        int mask = capacity - 1;
+        for (int slot = home(msb, lsb, mask); ; slot = (slot + 1) & mask) {
+            long stored = value(slot);
+            if (stored == 0) {
+                return -1;
+            }
+            if (matches(slot, msb, lsb)) {
+                return stored - 1;
+            }
+        }
+    }
+
+    public void put(UUID id, long value) {
+        put(id.getMostSignificantBits(), id.getLeastSignificantBits(), value);
+    }
+
+    public void put(long msb, long lsb, long value) {
+        if (size + 1 > capacity * MAX_LOAD) {
+            resize();
+        }
+        int mask = capacity - 1;
+        int slot = home(msb, lsb, mask);
+        while (value(slot) != 0 && !matches(slot, msb, lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        if (value(slot) == 0) {
+            size++;
+        }
+        write(slot, msb, lsb, value + 1);
+    }
+
+    public boolean remove(UUID id) {
+        return remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    public boolean remove(long msb, long lsb) {
+        int mask = capacity - 1;
+        int slot = home(msb, lsb, mask);
+        while (!matches(slot, msb, lsb)) {
+            if (value(slot) == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Pull back every following entry whose probe sequence passes through the freed slot
+        int free = slot;
+        for (int next = (free + 1) & mask; value(next) != 0; next = (next + 1) & mask) {
+            int wanted = home(table.getLong(next * SLOT_BYTES), table.getLong(next * SLOT_BYTES + 8), mask);
+            boolean reachable = free <= next ? free < wanted && wanted <= next : free < wanted || wanted <= next;
+            if (!reachable) {
+                write(free, table.getLong(next * SLOT_BYTES), table.getLong(next * SLOT_BYTES + 8), value(next));
+                free = next;
+            }
+        }
+        write(free, 0, 0, 0);
+        size--;
+        return true;
+    }
+
+    public void forEachValue(LongConsumer consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            long stored = value(slot);
+            if (stored != 0) {
+                consumer.accept(stored - 1);
+            }
+        }
+    }
+
+    private void resize() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Customer id index is full (" + size + " entries)");
+        }
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+        capacity = oldCapacity * 2;
+        table = allocate(capacity);
+        int mask = capacity - 1;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long stored = old.getLong(slot * SLOT_BYTES + 16);
+            if (stored != 0) {
+                long msb = old.getLong(slot * SLOT_BYTES);
+                long lsb = old.getLong(slot * SLOT_BYTES + 8);
+                int target = home(msb, lsb, mask);
+                while (value(target) != 0) {
+                    target = (target + 1) & mask;
+                }
+                write(target, msb, lsb, stored);
+            }
+        }
+    }
+
+    private boolean matches(int slot, long msb, long lsb) {
+        int base = slot * SLOT_BYTES;
+        return table.getLong(base + 16) != 0 && table.getLong(base) == msb && table.getLong(base + 8) == lsb;
+    }
+
+    private long value(int slot) {
+        return table.getLong(slot * SLOT_BYTES + 16);
+    }
+
+    private void write(int slot, long msb, long lsb, long stored) {
+        int base = slot * SLOT_BYTES;
+        table.putLong(base, msb);
+        table.putLong(base + 8, lsb);
+        table.putLong(base + 16, stored);
+    }
+
+    private static int home(long msb, long lsb, int mask) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,166 @@
+package com.challenge.customermanagement.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Customer ids in unsigned order (the order the database uses for UUID columns), so that pages can start
+ * from a cursor instead of scanning every id. Most ids sit in a sorted run of 16-byte keys in direct memory;
+ * ids added since the run was built wait in a small on-heap tree until there are enough of them to merge.
+ * Removed ids are not taken out: callers check what they visit against the live index, and the next merge
+ * drops the ids it no longer has. Not thread-safe.
+ */
+final class OffHeapIdOrder {
+    private static final int KEY_BYTES = 16;
+    private static final int MERGE_AT = 4096;
+    private static final Comparator<UUID> ORDER = (a, b) -> compare(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+            b.getMostSignificantBits(), b.getLeastSignificantBits());
+
+    private ByteBuffer run = allocate(0);
+    private int runSize;
+    private final TreeSet<UUID> recent = new TreeSet<>(ORDER);
+
+    @FunctionalInterface
+    interface IdVisitor {
+        /**
+         * Returns false to stop the walk.
+         */
+        boolean visit(long msb, long lsb);
+    }
+
+    /**
+     * Starts over with room for {@code size} ids, to be passed to {@link #load} in any order and then sorted by
+     * {@link #sortLoaded}.
+     */
+    void reset(int size) {
+        run = allocate(size);
+        runSize = 0;
+        recent.clear();
+    }
+
+    void load(long msb, long lsb) {
+        write(run, runSize++, msb, lsb);
+    }
+
+    // Heapsort in place: no recursion and no second buffer, whatever the size
+    void sortLoaded() {
+        for (int i = runSize / 2 - 1; i >= 0; i--) {
+            siftDown(i, runSize);
+        }
+        for (int end = runSize - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    void add(UUID id, OffHeapIdIndex live) {
+        recent.add(id);
+        if (recent.size() >= MERGE_AT) {
+            merge(live);
+        }
+    }
+
+    /**
+     * Visits the ids after {@code after} (from the first if null) in order, removed ones included.
+     */
+    void forEachAfter(UUID after, IdVisitor visitor) {
+        int next = after == null ? 0 : firstAfter(after.getMostSignificantBits(), after.getLeastSignificantBits());
+        Iterator<UUID> pending = (after == null ? recent : recent.tailSet(after, false)).iterator();
+        UUID added = pending.hasNext() ? pending.next() : null;
+        while (next < runSize || added != null) {
+            long msb;
+            long lsb;
+            int order = added == null ? -1 : next == runSize ? 1
+                    : compare(msbAt(next), lsbAt(next), added.getMostSignificantBits(), added.getLeastSignificantBits());
+            if (order < 0) {
+                msb = msbAt(next);
+                lsb = lsbAt(next++);
+            } else {
+                next += order == 0 ? 1 : 0;
+                msb = added.getMostSignificantBits();
+                lsb = added.getLeastSignificantBits();
+                added = pending.hasNext() ? pending.next() : null;
+            }
+            if (!visitor.visit(msb, lsb)) {
+                return;
+            }
+        }
+    }
+
+    private void merge(OffHeapIdIndex live) {
+        ByteBuffer merged = allocate(runSize + recent.size());
+        int[] size = {0};
+        forEachAfter(null, (msb, lsb) -> {
+            if (live.get(msb, lsb) >= 0) {
+                write(merged, size[0]++, msb, lsb);
+            }
+            return true;
+        });
+        run = merged;
+        runSize = size[0];
+        recent.clear();
+    }
+
+    private int firstAfter(long msb, long lsb) {
+        int low = 0;
+        int high = runSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(msbAt(mid), lsbAt(mid), msb, lsb) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void siftDown(int parent, int size) {
+        for (int child = 2 * parent + 1; child < size; parent = child, child = 2 * parent + 1) {
+            if (child + 1 < size && compareAt(child + 1, child) > 0) {
+                child++;
+            }
+            if (compareAt(parent, child) >= 0) {
+                return;
+            }
+            swap(parent, child);
+        }
+    }
+
+    private int compareAt(int a, int b) {
+        return compare(msbAt(a), lsbAt(a), msbAt(b), lsbAt(b));
+    }
+
+    private void swap(int a, int b) {
+        long msb = msbAt(a);
+        long lsb = lsbAt(a);
+        write(run, a, msbAt(b), lsbAt(b));
+        write(run, b, msb, lsb);
+    }
+
+    private long msbAt(int i) {
+        return run.getLong(i * KEY_BYTES);
+    }
+
+    private long lsbAt(int i) {
+        return run.getLong(i * KEY_BYTES + 8);
+    }
+
+    private static void write(ByteBuffer keys, int i, long msb, long lsb) {
+        keys.putLong(i * KEY_BYTES, msb);
+        keys.putLong(i * KEY_BYTES + 8, lsb);
+    }
+
+    private static int compare(long msb1, long lsb1, long msb2, long lsb2) {
+        int byMsb = Long.compareUnsigned(msb1, msb2);
+        return byMsb != 0 ? byMsb : Long.compareUnsigned(lsb1, lsb2);
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size * KEY_BYTES).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,437 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerEmail;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.model.TimeOrderedUuidGenerator;
+import com.challenge.customermanagement.repository.CustomerEmailRepository;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerRepository;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import com.challenge.customermanagement.repository.CustomerSearchRepositoryImpl;
+import com.challenge.customermanagement.repository.CustomerVersion;
+import com.challenge.customermanagement.repository.CustomerWriteRepositoryImpl;
+import com.challenge.customermanagement.repository.TierAggregate;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.dao.support.PersistenceExceptionTranslationInterceptor;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads customers over {@code customer.store.sharded.count} databases by a hash of their id. Each shard
+ * ({@link CustomerShard}) is a database of its own, at {@code customer.store.sharded.url} with
+ * {@code {shard}} replaced by its number, holding only the customer table. Operations on one id go to its
+ * shard; lookups by name or email, pages, search and statistics run on all shards in parallel and merge
+ * the results, pages and search in the same order a single database would return them. Ids are assigned
+ * here, before the insert, since they decide the shard.
+ * <p>
+ * Each shard call commits on its own, in a transaction of that shard. Writes also run in a transaction on
+ * the main database, the caller's if it has one, which holds the change log and the {@link CustomerEmail}
+ * rows that keep emails unique across shards. The shard commits first; if the main transaction then rolls
+ * back, the shard write is undone, so that the customer, its change event and everything the caller updates
+ * after commit stay in step. Reads in between may see the write. An {@link #insertAll} that spans shards
+ * deletes what it wrote to the others if one of them fails. The shard count is fixed once data has been
+ * written: changing it sends ids to shards that do not have them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = CustomerStore.TYPE_PROPERTY, havingValue = "sharded")
+public class ShardedCustomerStore implements CustomerStore {
+    private static final int FOR_EACH_PAGE_SIZE = 1000;
+
+    private final EntityManagerFactoryBuilder entityManagerFactoryBuilder;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectProvider<Flyway> flyway;
+    private final MeterRegistry meterRegistry;
+    private final CustomerEmailRepository emailRepository;
+    private final TransactionTemplate mainTransaction;
+    private final int count;
+    private final String url;
+    private final int poolSize;
+    private final Duration connectionTimeout;
+    private final int scatterThreads;
+
+    private final List<CustomerShard> shards = new ArrayList<>();
+    private ExecutorService scatterExecutor;
+
+    public ShardedCustomerStore(EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                                DataSourceProperties dataSourceProperties,
+                                ObjectProvider<Flyway> flyway,
+                                MeterRegistry meterRegistry,
+                                CustomerEmailRepository emailRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${customer.store.sharded.count:4}") int count,
+                                @Value("${customer.store.sharded.url:jdbc:h2:mem:customershard{shard}}") String url,
+                                @Value("${customer.store.sharded.pool-size:10}") int poolSize,
+                                @Value("${customer.store.sharded.connection-timeout:PT30S}") Duration connectionTimeout,
+                                @Value("${customer.store.sharded.scatter-threads:16}") int scatterThreads) {
+        this.entityManagerFactoryBuilder = entityManagerFactoryBuilder;
+        this.dataSourceProperties = dataSourceProperties;
+        this.flyway = flyway;
+        this.meterRegistry = meterRegistry;
+        this.emailRepository = emailRepository;
+        this.mainTransaction = new TransactionTemplate(transactionManager);
+        this.count = count;
+        this.url = url;
+        this.poolSize = poolSize;
+        this.connectionTimeout = connectionTimeout;
+        this.scatterThreads = scatterThreads;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (count < 1) {
+            throw new IllegalStateException("customer.store.sharded.count must be at least 1");
+        }
+        for (int index = 0; index < count; index++) {
+            shards.add(openShard(index));
+        }
+        scatterExecutor = Executors.newFixedThreadPool(scatterThreads, Thread.ofPlatform().name("customer-shard-scatter-", 0).factory());
+        log.info("Opened {} customer shards at {}", count, url);
+    }
+
+    @PreDestroy
+    public void close() {
+        scatterExecutor.shutdownNow();
+        shards.forEach(CustomerShard::close);
+    }
+
+    private CustomerShard openShard(int index) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url.replace("{shard}", Integer.toString(index)))
+                .build();
+        pool.setPoolName("customer-shard-" + index);
+        pool.setMaximumPoolSize(poolSize);
+        pool.setConnectionTimeout(connectionTimeout.toMillis());
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        // Where migrations own the main schema they own the shards' too; otherwise Hibernate's ddl-auto applies to each
+        flyway.ifAvailable(migrations -> Flyway.configure()
+                .configuration(migrations.getConfiguration())
+                .dataSource(pool)
+                .load()
+                .migrate());
+
+        LocalContainerEntityManagerFactoryBean entityManagerFactory = entityManagerFactoryBuilder.dataSource(pool)
+                .managedTypes(PersistenceManagedTypes.of(Customer.class.getName()))
+                .persistenceUnit("customer-shard-" + index)
+                .build();
+        entityManagerFactory.afterPropertiesSet();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        // As for the repository beans, so that constraint violations surface as DataIntegrityViolationException
+        repositoryFactory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                proxyFactory.addAdvice(new PersistenceExceptionTranslationInterceptor(entityManagerFactory)));
+        CustomerRepository repository = repositoryFactory.getRepository(CustomerRepository.class,
+                RepositoryComposition.RepositoryFragments.just(
+                        new CustomerSearchRepositoryImpl(entityManager), new CustomerWriteRepositoryImpl(entityManager)));
+        return new CustomerShard(index, pool, entityManagerFactory, repository, meterRegistry);
+    }
+
+    // Must never change for a populated store: it decides where every existing customer lives
+    CustomerShard shardOf(UUID id) {
+        int hash = Long.hashCode(id.getMostSignificantBits() ^ id.getLeastSignificantBits());
+        return shards.get(Math.floorMod(hash, shards.size()));
+    }
+
+    @Override
+    public List<Customer> insertAll(List<Customer> customers) {
+        for (Customer customer : customers) {
+            if (customer.getId() == null) {
+                customer.setId(TimeOrderedUuidGenerator.next());
+            }
+        }
+        Map<CustomerShard, List<Customer>> byShard = customers.stream()
+                .collect(Collectors.groupingBy(customer -> shardOf(customer.getId()), LinkedHashMap::new, Collectors.toList()));
+        return mainTransaction.execute(status -> {
+            // Flushed before the shards are written, so that a taken email fails the insert before anything is stored
+            emailRepository.saveAll(customers.stream()
+                    .filter(customer -> customer.getEmail() != null)
+                    .map(customer -> new CustomerEmail(customer.getId(), Customer.normalizeEmail(customer.getEmail())))
+                    .toList());
+            emailRepository.flush();
+            List<Customer> saved = insertIntoShards(customers, byShard);
+            undoOnRollback("insertAll", () -> {
+                byShard.forEach((shard, group) -> shard.deleteAll(group.stream().map(Customer::getId).toList()));
+                return true;
+            });
+            return saved;
+        });
+    }
+
+    private List<Customer> insertIntoShards(List<Customer> customers, Map<CustomerShard, List<Customer>> byShard) {
+        if (byShard.size() == 1) {
+            return byShard.keySet().iterator().next().write("insertAll", store -> store.insertAll(customers));
+        }
+        Map<CustomerShard, Future<List<Customer>>> inserts = new LinkedHashMap<>();
+        byShard.forEach((shard, group) -> inserts.put(shard, scatterExecutor.submit(() -> shard.write("insertAll", store -> store.insertAll(group)))));
+
+        Map<UUID, Customer> saved = new LinkedHashMap<>();
+        List<CustomerShard> written = new ArrayList<>();
+        RuntimeException failure = null;
+        for (Map.Entry<CustomerShard, Future<List<Customer>>> insert : inserts.entrySet()) {
+            try {
+                await(insert.getValue()).forEach(customer -> saved.put(customer.getId(), customer));
+                written.add(insert.getKey());
+            } catch (RuntimeException ex) {
+                failure = failure == null ? ex : failure;
+            }
+        }
+        if (failure != null) {
+            for (CustomerShard shard : written) {
+                shard.deleteAll(byShard.get(shard).stream().map(Customer::getId).toList());
+            }
+            throw failure;
+        }
+        return customers.stream().map(customer -> saved.get(customer.getId())).toList();
+    }
+
+    @Override
+    public Optional<CustomerResponse> findById(UUID id) {
+        return shardOf(id).read("findById", store -> store.findById(id));
+    }
+
+    @Override
+    public List<CustomerResponse> findAllById(Collection<UUID> ids) {
+        Map<CustomerShard, List<UUID>> byShard = ids.stream().collect(Collectors.groupingBy(this::shardOf));
+        List<Future<List<CustomerResponse>>> lookups = new ArrayList<>();
+        byShard.forEach((shard, shardIds) -> lookups.add(scatterExecutor.submit(() -> shard.read("findAllById", store -> store.findAllById(shardIds)))));
+        return lookups.stream().map(ShardedCustomerStore::await).flatMap(List::stream).toList();
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersion(UUID id) {
+        return shardOf(id).read("findVersion", store -> store.findVersion(id));
+    }
+
+    @Override
+    public boolean exists(UUID id) {
+        return shardOf(id).read("exists", store -> store.exists(id));
+    }
+
+    @Override
+    public List<CustomerResponse> findByName(String name) {
+        return scatter("findByName", store -> store.findByName(name)).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public List<CustomerResponse> findByEmailNormalized(String emailNormalized) {
+        return scatter("findByEmailNormalized", store -> store.findByEmailNormalized(emailNormalized)).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    // Every shard returns its first page after the cursor; the overall page is the first ids among those
+    @Override
+    public List<CustomerResponse> findPage(CustomerTier tier, UUID after, int limit) {
+        return scatter("findPage", store -> store.findPage(tier, after, limit)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(customer -> UUID.fromString(customer.getId()), ShardedCustomerStore::compareIds))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<CustomerResponse> findTierCandidates(CustomerTier tier, LocalDate purchasedBefore, UUID after, int limit) {
+        return scatter("findTierCandidates", store -> store.findTierCandidates(tier, purchasedBefore, after, limit)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(customer -> UUID.fromString(customer.getId()), ShardedCustomerStore::compareIds))
+                .limit(limit)
+                .toList();
+    }
+
+    // In id order, a merged page at a time rather than in one snapshot
+    @Override
+    public void forEach(Consumer<CustomerResponse> consumer) {
+        UUID after = null;
+        List<CustomerResponse> page;
+        do {
+            page = findPage(null, after, FOR_EACH_PAGE_SIZE);
+            page.forEach(consumer);
+            after = page.isEmpty() ? null : UUID.fromString(page.get(page.size() - 1).getId());
+        } while (page.size() == FOR_EACH_PAGE_SIZE);
+    }
+
+    @Override
+    public void forEachEmailNormalized(Consumer<String> consumer) {
+        for (CustomerShard shard : shards) {
+            shard.read("forEachEmailNormalized", store -> {
+                store.forEachEmailNormalized(consumer);
+                return null;
+            });
+        }
+    }
+
+    // Every shard has to return its first offset + limit matches, so deep pages cost more than with one database
+    @Override
+    public List<CustomerResponse> search(CustomerSearchCriteria criteria, int offset, int limit) {
+        return scatter("search", store -> store.search(criteria, 0, offset + limit)).stream()
+                .flatMap(List::stream)
+                .sorted(searchOrder(criteria))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Optional<Customer> update(UUID id, CustomerPatch patch, Collection<Long> expectedVersions) {
+        CustomerShard shard = shardOf(id);
+        return mainTransaction.execute(status -> {
+            Optional<CustomerEmail> claim = patch.emailNormalized() == null ? Optional.empty() : emailRepository.findById(id);
+            String claimed = claim.map(CustomerEmail::getEmailNormalized).orElse(null);
+            claim.ifPresent(email -> {
+                email.setEmailNormalized(patch.emailNormalized());
+                emailRepository.flush();
+            });
+            Optional<Customer> previous = shard.write("update", store -> store.update(id, patch, expectedVersions));
+            if (previous.isEmpty()) {
+                claim.ifPresent(email -> email.setEmailNormalized(claimed));
+                return previous;
+            }
+            // Copied, since the caller goes on to change the row it is handed
+            Customer before = copyOf(previous.get());
+            undoOnRollback("update", () -> shard.restore(id, before.getVersion() + 1, before));
+            return previous;
+        });
+    }
+
+    @Override
+    public Optional<Customer> delete(UUID id) {
+        CustomerShard shard = shardOf(id);
+        return mainTransaction.execute(status -> {
+            Optional<Customer> previous = shard.write("delete", store -> store.delete(id));
+            previous.ifPresent(row -> {
+                emailRepository.deleteById(id);
+                Customer before = copyOf(row);
+                undoOnRollback("delete", () -> shard.restore(id, null, before));
+            });
+            return previous;
+        });
+    }
+
+    // The shard write has committed; if the main transaction it belongs to does not, the write is taken back
+    private static void undoOnRollback(String operation, BooleanSupplier undo) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                if (status == STATUS_UNKNOWN) {
+                    log.error("Main transaction of a shard {} ended in an unknown state; the shard write is kept", operation);
+                    return;
+                }
+                try {
+                    if (undo.getAsBoolean()) {
+                        log.warn("Undid a shard {} after its main transaction rolled back", operation);
+                    } else {
+                        log.error("Could not undo a shard {} after its main transaction rolled back: the customer has changed since", operation);
+                    }
+                } catch (RuntimeException ex) {
+                    log.error("Could not undo a shard {} after its main transaction rolled back", operation, ex);
+                }
+            }
+        });
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getEmailNormalized(),
+                customer.getEmailDomain(), customer.getAnnualSpend(), customer.getLastPurchaseDate(), customer.getTier(),
+                customer.getVersion(), customer.getLastModified());
+    }
+
+    // Callers add up aggregates of the same tier, so the shards' lists are simply concatenated
+    @Override
+    public List<TierAggregate> aggregateByTier() {
+        return scatter("aggregateByTier", JpaCustomerStore::aggregateByTier).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public long countByAnnualSpend(BigDecimal from, BigDecimal to) {
+        return scatter("countByAnnualSpend", store -> store.countByAnnualSpend(from, to)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private <T> List<T> scatter(String operation, Function<JpaCustomerStore, T> work) {
+        List<Future<T>> results = shards.stream()
+                .map(shard -> scatterExecutor.submit(() -> shard.read(operation, work)))
+                .toList();
+        return results.stream().map(ShardedCustomerStore::await).toList();
+    }
+
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard operation failed", ex.getCause());
+        }
+    }
+
+    // Same order as the SQL search: nulls sort low, id breaks ties
+    private static Comparator<CustomerResponse> searchOrder(CustomerSearchCriteria criteria) {
+        Comparator<CustomerResponse> byId = Comparator.comparing(customer -> UUID.fromString(customer.getId()), ShardedCustomerStore::compareIds);
+        Comparator<CustomerResponse> order = switch (criteria.sortBy()) {
+            case "name" -> Comparator.comparing(CustomerResponse::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "email" -> Comparator.comparing(CustomerResponse::getEmail, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "annualSpend" -> Comparator.comparing(CustomerResponse::getAnnualSpend, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "lastPurchaseDate" -> Comparator.comparing(CustomerResponse::getLastPurchaseDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> byId;
+        };
+        if (criteria.descending()) {
+            order = order.reversed();
+        }
+        return order == byId || "id".equals(criteria.sortBy()) ? order : order.thenComparing(byId);
+    }
+
+    // Unsigned, matching the order the database uses for UUID columns
+    private static int compareIds(UUID a, UUID b) {
+        int byMsb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return byMsb != 0 ? byMsb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
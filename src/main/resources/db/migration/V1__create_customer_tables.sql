@@ -0,0 +1,42 @@
+-- Schema as of the prod profile's introduction; the dev and test profiles still let Hibernate create it.
+-- Changes to the entities need a new migration, or the prod profile's schema validation fails at startup.
+
+create table customer (
+    id binary(16) not null,
+    name varchar(50) not null,
+    email varchar(255) not null,
+    email_normalized varchar(255),
+    email_domain varchar(255),
+    annual_spend numeric(38, 2),
+    last_purchase_date date,
+    tier enum ('GOLD', 'PLATINUM', 'SILVER'),
+    version bigint default 0 not null,
+    last_modified timestamp(6) with time zone,
+    primary key (id),
+    constraint uk_customer_email_normalized unique (email_normalized)
+);
+
+create index idx_customer_name on customer (name);
+create index idx_customer_email_domain on customer (email_domain);
+create index idx_customer_annual_spend on customer (annual_spend);
+create index idx_customer_last_purchase_date on customer (last_purchase_date);
+create index idx_customer_tier on customer (tier, id);
+
+create sequence customer_change_id_seq start with 1 increment by 1;
+
+create table customer_change (
+    id bigint not null,
+    feed_sequence bigint,
+    type enum ('CREATED', 'DELETED', 'UPDATED') not null,
+    customer_id binary(16) not null,
+    version bigint,
+    occurred_at timestamp(6) with time zone not null,
+    published_at timestamp(6) with time zone,
+    name varchar(255),
+    email varchar(255),
+    annual_spend numeric(38, 2),
+    last_purchase_date date,
+    tier enum ('GOLD', 'PLATINUM', 'SILVER'),
+    primary key (id),
+    constraint idx_customer_change_sequence unique (feed_sequence)
+);
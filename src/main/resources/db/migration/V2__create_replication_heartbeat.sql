@@ -0,0 +1,7 @@
+-- Written by the primary and read back from replicas to measure their lag (customer.replicas.*)
+
+create table replication_heartbeat (
+    id integer not null,
+    beat timestamp(6) with time zone not null,
+    primary key (id)
+);
@@ -0,0 +1,8 @@
+-- Emails held by customers of the sharded store (customer.store.type=sharded); unused by the other stores
+
+create table customer_email (
+    customer_id binary(16) not null,
+    email_normalized varchar(255) not null,
+    primary key (customer_id),
+    constraint uk_customer_email_claim unique (email_normalized)
+);
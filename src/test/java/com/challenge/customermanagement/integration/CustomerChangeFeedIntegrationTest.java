@@ -0,0 +1,211 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.CustomerManagementApplication;
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.dto.CustomerChanges;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.model.CustomerChangeType;
+import com.challenge.customermanagement.service.CustomerChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerChangeFeedIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerChangeFeed changeFeed;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testFeedReturnsCreateUpdateAndDeleteInOrder() {
+        long since = changeFeed.lastSequence();
+        CustomerResponse created = restTemplate.postForObject("/customers",
+                new CreateCustomerRequest("Feed Customer", "feed@example.com", new BigDecimal("100"), LocalDate.now()), CustomerResponse.class);
+        restTemplate.exchange("/customers/" + created.getId(), HttpMethod.PUT,
+                new HttpEntity<>(new UpdateCustomerRequest("Feed Customer Renamed", null, null, null)), CustomerResponse.class);
+        restTemplate.delete("/customers/" + created.getId());
+
+        List<CustomerChangeEvent> events = new ArrayList<>();
+        for (int poll = 0; poll < 10 && events.size() < 3; poll++) {
+            CustomerChanges changes = restTemplate.getForObject("/customers/changes?since=" + since + "&wait=5", CustomerChanges.class);
+            changes.getChanges().stream().filter(event -> event.getCustomerId().equals(created.getId())).forEach(events::add);
+            since = changes.getNext();
+        }
+
+        assertEquals(List.of(CustomerChangeType.CREATED, CustomerChangeType.UPDATED, CustomerChangeType.DELETED),
+                events.stream().map(CustomerChangeEvent::getType).toList());
+        assertEquals(0L, events.get(0).getVersion());
+        assertEquals(1L, events.get(1).getVersion());
+        assertEquals("Feed Customer Renamed", events.get(1).getCustomer().getName());
+        assertNull(events.get(2).getCustomer());
+        assertTrue(events.get(0).getSequence() < events.get(1).getSequence() && events.get(1).getSequence() < events.get(2).getSequence());
+    }
+
+    @Test
+    void testLongPollCompletesWhenAChangeIsPublished() throws Exception {
+        long since = changeFeed.lastSequence();
+        CompletableFuture<CustomerChanges> poll = CompletableFuture.supplyAsync(() ->
+                restTemplate.getForObject("/customers/changes?since=" + since + "&wait=20", CustomerChanges.class));
+        Thread.sleep(300);
+        CustomerResponse created = restTemplate.postForObject("/customers",
+                new CreateCustomerRequest("Long Poll", "long.poll@example.com", null, null), CustomerResponse.class);
+
+        CustomerChanges changes = poll.get(10, TimeUnit.SECONDS);
+
+        assertFalse(changes.getChanges().isEmpty());
+        assertTrue(changes.getNext() > since);
+        assertTrue(changes.getChanges().stream().allMatch(event -> event.getSequence() > since));
+        assertEquals(changes.getNext(), changes.getChanges().get(changes.getChanges().size() - 1).getSequence());
+        while (changes.getChanges().stream().noneMatch(event -> event.getCustomerId().equals(created.getId()))) {
+            changes = restTemplate.getForObject("/customers/changes?since=" + changes.getNext() + "&wait=5", CustomerChanges.class);
+        }
+    }
+
+    @Test
+    void testEmptyPollWithoutWaitReturnsImmediately() {
+        long head = changeFeed.lastSequence();
+
+        CustomerChanges changes = restTemplate.getForObject("/customers/changes?since=" + (head + 1000) + "&wait=0", CustomerChanges.class);
+
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(head + 1000, changes.getNext());
+    }
+
+    @Test
+    void testServerSentEventsStreamPublishedChanges() throws Exception {
+        long since = changeFeed.lastSequence();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/customers/changes?since=" + since))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            // Headers may only arrive with the first event
+            CompletableFuture<HttpResponse<Stream<String>>> opened = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+            Thread.sleep(300);
+            restTemplate.postForObject("/customers", new CreateCustomerRequest("Sse Customer", "sse@example.com", null, null), CustomerResponse.class);
+            HttpResponse<Stream<String>> response = opened.get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+
+            CompletableFuture<String> event = CompletableFuture.supplyAsync(() -> {
+                Iterator<String> lines = response.body().iterator();
+                String name = null;
+                while (lines.hasNext()) {
+                    String line = lines.next();
+                    if (line.startsWith("event:")) {
+                        name = line.substring("event:".length());
+                    } else if (line.startsWith("data:") && line.contains("sse@example.com")) {
+                        return name;
+                    }
+                }
+                return null;
+            });
+            assertEquals("created", event.get(10, TimeUnit.SECONDS));
+            response.body().close();
+        } finally {
+            // The stream never ends, so close() would wait forever
+            client.shutdownNow();
+        }
+    }
+
+    @Test
+    void testServerSentEventsReconnectResumesAfterLastEventId() throws Exception {
+        long since = changeFeed.lastSequence();
+        CustomerResponse seen = restTemplate.postForObject("/customers",
+                new CreateCustomerRequest("Sse Seen", "sse.seen@example.com", null, null), CustomerResponse.class);
+        CustomerResponse missed = restTemplate.postForObject("/customers",
+                new CreateCustomerRequest("Sse Missed", "sse.missed@example.com", null, null), CustomerResponse.class);
+        long seenSequence = -1;
+        for (long next = since; seenSequence < 0; ) {
+            CustomerChanges changes = restTemplate.getForObject("/customers/changes?since=" + next + "&wait=5", CustomerChanges.class);
+            seenSequence = changes.getChanges().stream().filter(event -> event.getCustomerId().equals(seen.getId()))
+                    .mapToLong(CustomerChangeEvent::getSequence).findFirst().orElse(-1);
+            next = changes.getNext();
+        }
+
+        // What a browser sends on reconnect: the original URL plus the id of the last event it received
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/customers/changes?since=" + since))
+                .header("Accept", "text/event-stream")
+                .header("Last-Event-ID", String.valueOf(seenSequence))
+                .build();
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            HttpResponse<Stream<String>> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).get(10, TimeUnit.SECONDS);
+            CompletableFuture<String> firstCustomer = CompletableFuture.supplyAsync(() -> response.body()
+                    .filter(line -> line.startsWith("data:") && (line.contains(seen.getEmail()) || line.contains(missed.getEmail())))
+                    .findFirst()
+                    .orElse(null));
+
+            assertTrue(firstCustomer.get(10, TimeUnit.SECONDS).contains(missed.getEmail()));
+            response.body().close();
+        } finally {
+            client.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShutdownAnswersOpenConsumersInsteadOfWaitingForThem() throws Exception {
+        // A context of its own, on its own database, so closing it leaves the shared test context alone
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CustomerManagementApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:feedshutdown");
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/customers/changes?since=0";
+            CompletableFuture<HttpResponse<String>> poll = client.sendAsync(HttpRequest.newBuilder(URI.create(base + "&wait=60")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            CompletableFuture<HttpResponse<String>> stream = client.sendAsync(HttpRequest.newBuilder(URI.create(base))
+                    .header("Accept", "text/event-stream").build(), HttpResponse.BodyHandlers.ofString());
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            for (int wait = 0; wait < 100 && meterRegistry.get("customer.changes.consumers").gauge().value() < 2; wait++) {
+                Thread.sleep(50);
+            }
+            assertEquals(2, meterRegistry.get("customer.changes.consumers").gauge().value());
+
+            long started = System.nanoTime();
+            context.close();
+
+            // Graceful shutdown would otherwise wait for both requests for its full 30 second timeout
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(10)) < 0);
+            HttpResponse<String> polled = poll.get(5, TimeUnit.SECONDS);
+            assertEquals(200, polled.statusCode());
+            assertTrue(new ObjectMapper().readValue(polled.body(), CustomerChanges.class).getChanges().isEmpty());
+            assertEquals(200, stream.get(5, TimeUnit.SECONDS).statusCode());
+        } finally {
+            context.close();
+            client.shutdownNow();
+        }
+    }
+}
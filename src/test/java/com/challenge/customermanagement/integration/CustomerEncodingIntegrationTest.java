@@ -0,0 +1,147 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerEncodingIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private CustomerResponse customer;
+
+    @BeforeEach
+    void createCustomers() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 30; i++) {
+            customer = restTemplate.postForObject("/customers", new CreateCustomerRequest("Encoded Customer " + i,
+                    "encoded." + run + "." + i + "@example.com", new BigDecimal("2500.50"), LocalDate.of(2025, 1, 15)), CustomerResponse.class);
+        }
+    }
+
+    @Test
+    void testCborResponseMatchesJson() throws Exception {
+        HttpResponse<byte[]> response = get("/customers/" + customer.getId(), "application/cbor", null);
+
+        assertEquals("application/cbor", response.headers().firstValue("Content-Type").orElseThrow());
+        CustomerResponse decoded = CBORMapper.builder().findAndAddModules().build().readValue(response.body(), CustomerResponse.class);
+        assertEquals(customer, decoded);
+    }
+
+    @Test
+    void testSmileResponseMatchesJson() throws Exception {
+        HttpResponse<byte[]> response = get("/customers?limit=30", "application/x-jackson-smile", null);
+
+        assertEquals("application/x-jackson-smile", response.headers().firstValue("Content-Type").orElseThrow());
+        CustomerPage page = SmileMapper.builder().findAndAddModules().build().readValue(response.body(), CustomerPage.class);
+        assertEquals(30, page.getItems().size());
+        assertTrue(response.body().length < get("/customers?limit=30", "application/json", null).body().length);
+    }
+
+    @Test
+    void testLargeResponseIsZstdCompressedWhenAccepted() throws Exception {
+        HttpResponse<byte[]> response = get("/customers?limit=30", "application/json", "gzip, zstd");
+
+        assertEquals("zstd", response.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(response.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(response.body()))) {
+            assertEquals(30, objectMapper.readValue(in, CustomerPage.class).getItems().size());
+        }
+    }
+
+    @Test
+    void testLargeResponseIsGzipCompressedForOtherClients() throws Exception {
+        HttpResponse<byte[]> response = get("/customers?limit=30", "application/json", "gzip");
+
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertEquals(30, objectMapper.readValue(in, CustomerPage.class).getItems().size());
+        }
+    }
+
+    @Test
+    void testSmallResponseIsNotCompressed() throws Exception {
+        HttpResponse<byte[]> response = get("/customers/" + customer.getId(), "application/json", "zstd");
+
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(response.body().length, response.headers().firstValueAsLong("Content-Length").orElseThrow());
+        assertEquals(customer, objectMapper.readValue(response.body(), CustomerResponse.class));
+    }
+
+    @Test
+    void testEventStreamIsNotCompressed() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/customers/changes?since=0"))
+                .header("Accept", "text/event-stream")
+                .header("Accept-Encoding", "zstd")
+                .build();
+        HttpClient streamClient = HttpClient.newHttpClient();
+        try {
+            HttpResponse<Stream<String>> response = streamClient.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).get(10, TimeUnit.SECONDS);
+            assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+            CompletableFuture<String> data = CompletableFuture.supplyAsync(() -> response.body()
+                    .filter(line -> line.startsWith("data:"))
+                    .findFirst()
+                    .orElse(null));
+            assertTrue(data.get(10, TimeUnit.SECONDS).contains("\"customerId\""));
+            response.body().close();
+        } finally {
+            // The stream never ends, so close() would wait forever
+            streamClient.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStreamedResponseIsZstdCompressedWhenAccepted() throws Exception {
+        HttpResponse<byte[]> response = get("/customers", "application/x-ndjson", "zstd");
+
+        assertEquals("zstd", response.headers().firstValue("Content-Encoding").orElseThrow());
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(response.body()))) {
+            assertTrue(new String(in.readAllBytes()).lines().count() >= 30);
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerImportIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testCsvImportSpanningSeveralChunksReportsInvalidRows() {
+        StringBuilder csv = new StringBuilder("name,email,annualSpend,lastPurchaseDate\n");
+        for (int i = 1; i <= 1200; i++) {
+            if (i == 7) {
+                csv.append("X,not-an-email,-5,\n");
+            } else {
+                csv.append("Csv Import ").append(i).append(",csv.import.").append(i).append("@example.com,")
+                        .append(i * 10).append(',').append(LocalDate.now()).append('\n');
+            }
+        }
+
+        ImportReport report = post(csv.toString(), MediaType.parseMediaType("text/csv"));
+
+        assertTrue(report.isCompleted());
+        assertEquals(1200, report.getRowsRead());
+        assertEquals(1199, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(7, report.getErrors().get(0).getRow());
+        assertEquals(3, report.getErrors().get(0).getErrors().size());
+        assertEquals(1199, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer WHERE email_domain = 'example.com' AND name LIKE 'Csv Import %'", Long.class));
+    }
+
+    @Test
+    void testNdjsonImportRejectsMalformedAndForbiddenRows() {
+        String ndjson = """
+                {"name":"Ndjson One","email":"ndjson.one@example.com","annualSpend":1500,"lastPurchaseDate":"%s"}
+                {"name":"Ndjson Broken",
+                {"id":"123","name":"Ndjson Id","email":"ndjson.id@example.com"}
+
+                {"name":"Ndjson Two","email":"ndjson.two@example.com"}
+                """.formatted(LocalDate.now());
+
+        ImportReport report = post(ndjson, MediaType.APPLICATION_NDJSON);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(2, report.getErrors().get(0).getRow());
+        assertEquals(3, report.getErrors().get(1).getRow());
+        assertEquals("Gold", restTemplate.getForObject("/customers?email=ndjson.one@example.com", CustomerResponse[].class)[0].getTier());
+    }
+
+    private ImportReport post(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<ImportReport> response = restTemplate.postForEntity("/customers/import", new HttpEntity<>(body, headers), ImportReport.class);
+        assertEquals(200, response.getStatusCode().value());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+}
@@ -1,18 +1,34 @@
 package com.challenge.customermanagement.integration;
 
+import com.challenge.customermanagement.dto.BatchItemStatus;
+import com.challenge.customermanagement.dto.BatchResponse;
+import com.challenge.customermanagement.dto.BatchUpdateCustomerRequest;
 import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
 import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -21,6 +37,12 @@ public class CustomerIntegrationTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void testCreateAndRetrieveCustomer() {
         CreateCustomerRequest request = new CreateCustomerRequest("Alice White", "alice@example.com", new BigDecimal("1555"), LocalDate.now().minusMonths(3));
@@ -66,4 +88,227 @@ public class CustomerIntegrationTest {
 
         assertEquals(404, getResponse.getStatusCode().value());
     }
+
+    @Test
+    void testPageThroughAllCustomers() {
+        Set<String> createdIds = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            CreateCustomerRequest request = new CreateCustomerRequest("Page Reader " + i, "page" + i + "@example.com", new BigDecimal("100"), LocalDate.now());
+            createdIds.add(restTemplate.postForEntity("/customers", request, CustomerResponse.class).getBody().getId());
+        }
+
+        Set<String> seenIds = new HashSet<>();
+        String cursor = null;
+        do {
+            String url = cursor == null ? "/customers?limit=2" : "/customers?limit=2&cursor=" + cursor;
+            CustomerPage page = restTemplate.getForObject(url, CustomerPage.class);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(customer -> assertTrue(seenIds.add(customer.getId()), "Customer returned twice"));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        assertTrue(seenIds.containsAll(createdIds));
+    }
+
+    @Test
+    void testGetAllCustomers_RejectsOversizedLimit() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/customers?limit=5000", String.class);
+
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    @Test
+    void testStreamAllCustomersAsNdjson() throws Exception {
+        CreateCustomerRequest request = new CreateCustomerRequest("Stream Reader", "stream@example.com", new BigDecimal("20000"), LocalDate.now());
+        String createdId = restTemplate.postForEntity("/customers", request, CustomerResponse.class).getBody().getId();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.exchange("/customers", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(response.getHeaders().getContentType()));
+        Set<String> streamedIds = new HashSet<>();
+        for (String line : response.getBody().split("\n")) {
+            streamedIds.add(objectMapper.readValue(line, CustomerResponse.class).getId());
+        }
+        assertTrue(streamedIds.contains(createdId));
+    }
+
+    @Test
+    void testBatchCreateUpdateAndDelete() {
+        List<CreateCustomerRequest> createRequests = List.of(
+                new CreateCustomerRequest("Batch One", "batch.one@example.com", new BigDecimal("500"), LocalDate.now()),
+                new CreateCustomerRequest("Batch Two", "not-an-email", new BigDecimal("500"), LocalDate.now()),
+                new CreateCustomerRequest("Batch Three", "batch.three@example.com", new BigDecimal("2500"), LocalDate.now()));
+
+        BatchResponse created = restTemplate.postForObject("/customers:batch", createRequests, BatchResponse.class);
+
+        assertEquals(2, created.getSucceeded());
+        assertEquals(1, created.getFailed());
+        assertEquals(BatchItemStatus.CREATED, created.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.INVALID, created.getResults().get(1).getStatus());
+        assertTrue(created.getResults().get(1).getErrors().containsKey("email"));
+        UUID firstId = UUID.fromString(created.getResults().get(0).getId());
+        UUID thirdId = UUID.fromString(created.getResults().get(2).getId());
+        assertEquals("Batch Three", restTemplate.getForObject("/customers/" + thirdId, CustomerResponse.class).getName());
+
+        List<BatchUpdateCustomerRequest> updateRequests = List.of(
+                new BatchUpdateCustomerRequest(firstId, null, null, new BigDecimal("20000"), null),
+                new BatchUpdateCustomerRequest(UUID.randomUUID(), "Nobody", null, null, null));
+        BatchResponse updated = restTemplate.exchange("/customers:batch", HttpMethod.PATCH, new HttpEntity<>(updateRequests), BatchResponse.class).getBody();
+
+        assertEquals(1, updated.getSucceeded());
+        assertEquals(BatchItemStatus.NOT_FOUND, updated.getResults().get(1).getStatus());
+        assertEquals("Platinum", restTemplate.getForObject("/customers/" + firstId, CustomerResponse.class).getTier());
+
+        List<UUID> deleteIds = List.of(firstId, thirdId, UUID.randomUUID());
+        BatchResponse deleted = restTemplate.exchange("/customers:batch", HttpMethod.DELETE, new HttpEntity<>(deleteIds), BatchResponse.class).getBody();
+
+        assertEquals(2, deleted.getSucceeded());
+        assertEquals(BatchItemStatus.NOT_FOUND, deleted.getResults().get(2).getStatus());
+        assertEquals(404, restTemplate.getForEntity("/customers/" + firstId, String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testBatchCreate_RejectsEmptyBatch() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/customers:batch", List.of(), String.class);
+
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    @Test
+    void testCachedLookupsAreEvictedOnWrite() {
+        CreateCustomerRequest request = new CreateCustomerRequest("Cache Reader", "cache.reader@example.com", new BigDecimal("100"), LocalDate.now());
+        UUID customerId = UUID.fromString(restTemplate.postForEntity("/customers", request, CustomerResponse.class).getBody().getId());
+
+        assertEquals("Cache Reader", restTemplate.getForObject("/customers/" + customerId, CustomerResponse.class).getName());
+        assertEquals(1, restTemplate.getForObject("/customers?email=cache.reader@example.com", CustomerResponse[].class).length);
+
+        HttpEntity<CreateCustomerRequest> update = new HttpEntity<>(new CreateCustomerRequest("Cache Writer", "cache.reader@example.com", null, null));
+        restTemplate.exchange("/customers/" + customerId, HttpMethod.PUT, update, CustomerResponse.class);
+        restTemplate.postForEntity("/customers", new CreateCustomerRequest("Cache Twin", "cache.twin@example.com", null, null), CustomerResponse.class);
+        HttpEntity<CreateCustomerRequest> rename = new HttpEntity<>(new CreateCustomerRequest(null, "Cache.Twin@example.com", null, null));
+        assertEquals(409, restTemplate.exchange("/customers/" + customerId, HttpMethod.PUT, rename, String.class).getStatusCode().value());
+
+        assertEquals("Cache Writer", restTemplate.getForObject("/customers/" + customerId, CustomerResponse.class).getName());
+        assertEquals(1, restTemplate.getForObject("/customers?email=cache.reader@example.com", CustomerResponse[].class).length);
+        assertEquals(0, restTemplate.getForObject("/customers?name=Cache Reader", CustomerResponse[].class).length);
+
+        restTemplate.delete("/customers/" + customerId);
+        assertEquals(0, restTemplate.getForObject("/customers?email=cache.reader@example.com", CustomerResponse[].class).length);
+    }
+
+    @Test
+    void testCreateCustomer_DuplicateEmailReturnsConflict() {
+        restTemplate.postForEntity("/customers", new CreateCustomerRequest("First Owner", "owner@example.com", null, null), CustomerResponse.class);
+
+        ResponseEntity<String> duplicate = restTemplate.postForEntity("/customers",
+                new CreateCustomerRequest("Second Owner", "Owner@Example.com", null, null), String.class);
+
+        assertEquals(409, duplicate.getStatusCode().value());
+        assertEquals(1, restTemplate.getForObject("/customers?email=owner@example.com", CustomerResponse[].class).length);
+    }
+
+    @Test
+    void testCreateCustomer_DuplicateOfRowInsertedOutsideApiReturnsConflict() {
+        // The email filter has not seen this row, so the unique constraint has to catch the duplicate
+        jdbcTemplate.update("INSERT INTO customer (id, name, email, email_normalized, email_domain, version) VALUES (?, ?, ?, ?, ?, 0)",
+                UUID.randomUUID(), "Direct Owner", "direct.owner@example.com", "direct.owner@example.com", "example.com");
+
+        ResponseEntity<String> duplicate = restTemplate.postForEntity("/customers",
+                new CreateCustomerRequest("Api Owner", "direct.owner@example.com", null, null), String.class);
+
+        assertEquals(409, duplicate.getStatusCode().value());
+        assertEquals("A customer with this email already exists", duplicate.getBody());
+    }
+
+    @Test
+    void testCreateCustomer_OtherConstraintViolationReturnsConflict() {
+        jdbcTemplate.execute("ALTER TABLE customer ADD CONSTRAINT ck_customer_test_name CHECK (name <> 'Rejected Name')");
+        try {
+            ResponseEntity<String> rejected = restTemplate.postForEntity("/customers",
+                    new CreateCustomerRequest("Rejected Name", "rejected.name@example.com", null, null), String.class);
+
+            assertEquals(409, rejected.getStatusCode().value());
+            assertNotEquals("A customer with this email already exists", rejected.getBody());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE customer DROP CONSTRAINT ck_customer_test_name");
+        }
+    }
+
+    @Test
+    void testConditionalGetAndIfMatchUpdate() {
+        CreateCustomerRequest request = new CreateCustomerRequest("Etag Reader", "etag.reader@example.com", new BigDecimal("100"), LocalDate.now());
+        ResponseEntity<CustomerResponse> created = restTemplate.postForEntity("/customers", request, CustomerResponse.class);
+        String eTag = created.getHeaders().getETag();
+        String url = "/customers/" + created.getBody().getId();
+        assertNotNull(eTag);
+        assertNotNull(created.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+
+        HttpHeaders ifNoneMatch = new HttpHeaders();
+        ifNoneMatch.setIfNoneMatch(eTag);
+        ResponseEntity<CustomerResponse> notModified = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(ifNoneMatch), CustomerResponse.class);
+        assertEquals(304, notModified.getStatusCode().value());
+        assertNull(notModified.getBody());
+
+        HttpHeaders ifMatch = new HttpHeaders();
+        ifMatch.setIfMatch(eTag);
+        UpdateCustomerRequest update = new UpdateCustomerRequest("Etag Writer", null, null, null);
+        ResponseEntity<CustomerResponse> updated = restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(update, ifMatch), CustomerResponse.class);
+        assertEquals(200, updated.getStatusCode().value());
+        assertNotEquals(eTag, updated.getHeaders().getETag());
+
+        ResponseEntity<String> stale = restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(update, ifMatch), String.class);
+        assertEquals(412, stale.getStatusCode().value());
+
+        ResponseEntity<CustomerResponse> modified = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(ifNoneMatch), CustomerResponse.class);
+        assertEquals(200, modified.getStatusCode().value());
+        assertEquals("Etag Writer", modified.getBody().getName());
+        assertEquals(updated.getHeaders().getETag(), modified.getHeaders().getETag());
+    }
+
+    @Test
+    void testConcurrentUpdatesOfOneCustomerAllApplyOnce() {
+        CreateCustomerRequest request = new CreateCustomerRequest("Busy Writer", "busy.writer@example.com", new BigDecimal("100"), LocalDate.now());
+        String id = restTemplate.postForEntity("/customers", request, CustomerResponse.class).getBody().getId();
+        Long createdVersion = jdbcTemplate.queryForObject("SELECT version FROM customer WHERE id = ?", Long.class, UUID.fromString(id));
+
+        List<CompletableFuture<ResponseEntity<String>>> responses = new ArrayList<>();
+        try (ExecutorService writers = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 32; i++) {
+                UpdateCustomerRequest update = new UpdateCustomerRequest(null, null, new BigDecimal(1000 + i), null);
+                responses.add(CompletableFuture.supplyAsync(() -> restTemplate.exchange("/customers/" + id, HttpMethod.PUT,
+                        new HttpEntity<>(update), String.class), writers));
+            }
+        }
+
+        responses.forEach(response -> assertEquals(200, response.join().getStatusCode().value()));
+        assertEquals(createdVersion + 32, jdbcTemplate.queryForObject("SELECT version FROM customer WHERE id = ?", Long.class, UUID.fromString(id)));
+    }
+
+    @Test
+    void testCacheMetricsAreExposed() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/metrics/cache.gets?tag=cache:customersByName", String.class);
+
+        assertEquals(200, response.getStatusCode().value());
+    }
+
+    @Test
+    void testPrometheusEndpointExportsLatencyAndErrorMetrics() {
+        restTemplate.getForEntity("/customers/" + UUID.randomUUID(), String.class);
+        restTemplate.postForEntity("/customers", new CreateCustomerRequest("X", "not-an-email", null, null), String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        String metrics = response.getBody();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket"), "endpoint latency histogram");
+        assertTrue(metrics.contains("customer_service_seconds_bucket{") && metrics.contains("method=\"getCustomerById\""), "service timers");
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_bucket"), "repository timers");
+        assertTrue(metrics.contains("customer_api_errors_total{error=\"not_found\""), "not found counter");
+        assertTrue(metrics.contains("customer_api_errors_total{error=\"validation\""), "validation counter");
+        assertTrue(metrics.contains("hikaricp_connections_active"), "connection pool metrics");
+        assertTrue(metrics.contains("hibernate_query_executions_total") || metrics.contains("hibernate_statements_total"), "hibernate statistics");
+    }
 }
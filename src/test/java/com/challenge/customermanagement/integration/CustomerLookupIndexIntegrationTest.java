@@ -0,0 +1,88 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.service.CustomerService;
+import com.challenge.customermanagement.service.EmailNormalizationBackfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomerLookupIndexIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private EmailNormalizationBackfill emailNormalizationBackfill;
+
+    @Test
+    void testEmailLookupUsesNormalizedEmailIndex() {
+        String plan = explain("SELECT * FROM customer WHERE email_normalized = 'someone@example.com'");
+
+        // The unique constraint's index
+        assertTrue(plan.contains("UK_CUSTOMER_EMAIL_NORMALIZED"), plan);
+    }
+
+    @Test
+    void testNameLookupUsesNameIndex() {
+        String plan = explain("SELECT * FROM customer WHERE name = 'Someone'");
+
+        assertTrue(plan.contains("IDX_CUSTOMER_NAME"), plan);
+    }
+
+    @Test
+    void testIdsAreTimeOrderedAndStoredAsBinary() {
+        String type = jdbcTemplate.queryForObject("SELECT DATA_TYPE || '(' || CHARACTER_OCTET_LENGTH || ')' FROM INFORMATION_SCHEMA.COLUMNS " +
+                "WHERE TABLE_NAME = 'CUSTOMER' AND COLUMN_NAME = 'ID'", String.class);
+        assertEquals("BINARY(16)", type);
+
+        UUID first = UUID.fromString(customerService.createCustomer(new CreateCustomerRequest("First Created", "first.created@example.com", null, null)).getId());
+        UUID second = UUID.fromString(customerService.createCustomer(new CreateCustomerRequest("Second Created", "second.created@example.com", null, null)).getId());
+
+        assertEquals(7, first.version());
+        assertEquals(7, second.version());
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM customer WHERE name IN ('First Created', 'Second Created') ORDER BY id", String.class);
+        assertEquals(List.of("First Created", "Second Created"), names);
+    }
+
+    @Test
+    void testEmailLookupIsCaseInsensitive() {
+        customerService.createCustomer(new CreateCustomerRequest("Mixed Case", "Mixed.Case@Example.com", new BigDecimal("10"), LocalDate.now()));
+
+        List<CustomerResponse> customers = customerService.getCustomersByEmail("mixed.case@EXAMPLE.com");
+
+        assertEquals(1, customers.size());
+        assertEquals("Mixed.Case@Example.com", customers.get(0).getEmail());
+    }
+
+    @Test
+    void testBackfillPopulatesLegacyRows() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO customer (id, name, email) VALUES (?, ?, ?)", id, "Legacy Row", " Legacy@Example.com");
+
+        emailNormalizationBackfill.backfill();
+
+        String normalized = jdbcTemplate.queryForObject("SELECT email_normalized FROM customer WHERE id = ?", String.class, id);
+        String domain = jdbcTemplate.queryForObject("SELECT email_domain FROM customer WHERE id = ?", String.class, id);
+        assertEquals("legacy@example.com", normalized);
+        assertEquals("example.com", domain);
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
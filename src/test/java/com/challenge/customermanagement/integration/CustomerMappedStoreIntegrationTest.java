@@ -0,0 +1,110 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.service.CustomerService;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.service.CustomerStatistics;
+import com.challenge.customermanagement.service.CustomerTierRecalculationJob;
+import com.challenge.customermanagement.store.CustomerStore;
+import com.challenge.customermanagement.store.MappedCustomerStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerMappedStoreIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerStore customerStore;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerStatistics customerStatistics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerTierRecalculationJob tierRecalculationJob;
+
+    @DynamicPropertySource
+    static void storeProperties(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("customer.store.type", () -> "mapped");
+        registry.add("customer.store.mapped.directory", Files.createTempDirectory("customer-store")::toString);
+    }
+
+    @Test
+    void testCustomersAreServedFromTheMappedStore() {
+        assertInstanceOf(MappedCustomerStore.class, customerStore);
+
+        ResponseEntity<CustomerResponse> created = restTemplate.postForEntity("/customers",
+                new CreateCustomerRequest("Mapped Customer", "Mapped.Customer@example.com", new BigDecimal("1500"), LocalDate.now()), CustomerResponse.class);
+        assertEquals(200, created.getStatusCode().value());
+        String id = created.getBody().getId();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(created.getHeaders().getETag());
+        ResponseEntity<CustomerResponse> updated = restTemplate.exchange("/customers/" + id, HttpMethod.PUT,
+                new HttpEntity<>(Map.of("annualSpend", 20000), headers), CustomerResponse.class);
+        ResponseEntity<String> stale = restTemplate.exchange("/customers/" + id, HttpMethod.PUT,
+                new HttpEntity<>(Map.of("name", "Stale Write"), headers), String.class);
+
+        assertEquals(200, updated.getStatusCode().value());
+        assertEquals("Platinum", updated.getBody().getTier());
+        assertEquals(412, stale.getStatusCode().value());
+        assertEquals("\"1\"", restTemplate.getForEntity("/customers/" + id, CustomerResponse.class).getHeaders().getETag());
+        assertEquals(id, restTemplate.getForObject("/customers?email=mapped.customer@example.com", CustomerResponse[].class)[0].getId());
+        CustomerPage platinum = customerService.getCustomersByTier("Platinum", null, 100);
+        assertTrue(platinum.getItems().stream().anyMatch(customer -> customer.getId().equals(id)));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Long.class));
+
+        customerStatistics.reconcile();
+        assertEquals(1L, customerService.getCustomerStats().getCustomersByTier().get("Platinum"));
+
+        restTemplate.delete("/customers/" + id);
+        assertEquals(404, restTemplate.getForEntity("/customers/" + id, String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testRecalculationRefreshesLapsedAndMissingTiers() {
+        // Stored as they would be after their purchase windows passed or before tiers were stored
+        Customer aged = customerStore.insert(Customer.builder().name("Aging Mapped").email("aging.mapped@example.com")
+                .annualSpend(new BigDecimal("25000")).lastPurchaseDate(LocalDate.now().minusMonths(9)).tier(CustomerTier.PLATINUM).build());
+        Customer untiered = customerStore.insert(Customer.builder().name("Legacy Mapped").email("legacy.mapped@example.com")
+                .annualSpend(new BigDecimal("5000")).lastPurchaseDate(LocalDate.now()).build());
+        customerStatistics.reconcile();
+
+        tierRecalculationJob.recalculateTiers();
+
+        CustomerResponse downgraded = customerStore.findById(aged.getId()).orElseThrow();
+        assertEquals("Silver", downgraded.getTier());
+        assertEquals(aged.getVersion() + 1, downgraded.getVersion());
+        assertEquals("Gold", customerStore.findById(untiered.getId()).orElseThrow().getTier());
+        assertTrue(customerStore.findTierCandidates(null, null, null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.CustomerSearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerSearchIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String domain;
+
+    @BeforeEach
+    void setUp() {
+        // A fresh domain per test keeps the assertions independent of other tests' data
+        domain = "search-" + UUID.randomUUID().toString().substring(0, 8) + ".com";
+        create("Anna Low", new BigDecimal("500"), LocalDate.now().minusMonths(1));
+        create("Andrew Mid", new BigDecimal("4000"), LocalDate.now().minusMonths(2));
+        create("Angela High", new BigDecimal("25000"), LocalDate.now().minusMonths(3));
+        create("Brian High", new BigDecimal("30000"), LocalDate.now().minusMonths(20));
+    }
+
+    @Test
+    void testSearchCombinesFiltersAndSorts() {
+        CustomerSearchResult result = search("emailDomain=" + domain.toUpperCase() + "&namePrefix=An&minSpend=1000&sort=annualSpend&direction=desc");
+
+        assertEquals(List.of("Angela High", "Andrew Mid"), result.getItems().stream().map(CustomerResponse::getName).toList());
+        assertEquals("Platinum", result.getItems().get(0).getTier());
+        assertFalse(result.isHasNext());
+    }
+
+    @Test
+    void testSearchByTierAndPurchaseDateRange() {
+        CustomerSearchResult platinum = search("emailDomain=" + domain + "&tier=Platinum");
+        CustomerSearchResult recent = search("emailDomain=" + domain + "&purchasedFrom=" + LocalDate.now().minusMonths(2).minusDays(1) + "&sort=lastPurchaseDate");
+
+        assertEquals(List.of("Angela High"), platinum.getItems().stream().map(CustomerResponse::getName).toList());
+        assertEquals(List.of("Andrew Mid", "Anna Low"), recent.getItems().stream().map(CustomerResponse::getName).toList());
+    }
+
+    @Test
+    void testSearchPaginates() {
+        CustomerSearchResult first = search("emailDomain=" + domain + "&sort=name&size=3");
+        CustomerSearchResult second = search("emailDomain=" + domain + "&sort=name&size=3&page=1");
+
+        assertEquals(3, first.getItems().size());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of("Brian High"), second.getItems().stream().map(CustomerResponse::getName).toList());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void testSearchRejectsOversizedPageAndUnknownSort() {
+        ResponseEntity<String> oversized = restTemplate.getForEntity("/customers/search?size=1000", String.class);
+        ResponseEntity<String> unknownSort = restTemplate.getForEntity("/customers/search?sort=password", String.class);
+        ResponseEntity<String> invertedRange = restTemplate.getForEntity("/customers/search?minSpend=10&maxSpend=5", String.class);
+
+        assertEquals(400, oversized.getStatusCode().value());
+        assertEquals(400, unknownSort.getStatusCode().value());
+        assertEquals(400, invertedRange.getStatusCode().value());
+    }
+
+    @Test
+    void testDomainFilterUsesIndex() {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT * FROM customer WHERE email_domain = 'example.com'", String.class));
+
+        assertTrue(plan.contains("IDX_CUSTOMER_EMAIL_DOMAIN"), plan);
+    }
+
+    private void create(String name, BigDecimal annualSpend, LocalDate lastPurchaseDate) {
+        String email = name.toLowerCase().replace(' ', '.') + "@" + domain;
+        restTemplate.postForEntity("/customers", new CreateCustomerRequest(name, email, annualSpend, lastPurchaseDate), CustomerResponse.class);
+    }
+
+    private CustomerSearchResult search(String query) {
+        return restTemplate.getForObject("/customers/search?" + query, CustomerSearchResult.class);
+    }
+}
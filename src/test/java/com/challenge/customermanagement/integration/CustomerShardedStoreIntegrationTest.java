@@ -0,0 +1,241 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.CustomerSearchResult;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.service.CustomerService;
+import com.challenge.customermanagement.service.CustomerStatistics;
+import com.challenge.customermanagement.service.CustomerTierRecalculationJob;
+import com.challenge.customermanagement.store.CustomerStore;
+import com.challenge.customermanagement.store.ShardedCustomerStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "customer.store.type=sharded",
+        "customer.store.sharded.count=3",
+        "customer.store.sharded.url=jdbc:h2:mem:shardtest{shard}"
+})
+@ActiveProfiles("test")
+public class CustomerShardedStoreIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerStore customerStore;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerStatistics customerStatistics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerTierRecalculationJob tierRecalculationJob;
+
+    @Test
+    void testCustomersAreSpreadOverShardsAndMergedBackInOrder() {
+        assertInstanceOf(ShardedCustomerStore.class, customerStore);
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(restTemplate.postForObject("/customers", new CreateCustomerRequest("Shard Customer " + i,
+                    run + ".shard" + i + "@example.com", new BigDecimal(i * 1000), LocalDate.now()), CustomerResponse.class).getId());
+        }
+
+        long stored = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            long onShard = shard(shard).queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+            assertTrue(onShard > 0, "shard " + shard + " holds no customers");
+            stored += onShard;
+        }
+        assertTrue(stored >= 12);
+        double inserts = meterRegistry.get("customer.store.shard").tag("operation", "insertAll").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+        assertTrue(inserts >= 12);
+
+        // Keyset pages across shards come back in one id order without gaps
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CustomerPage page = customerService.getAllCustomers(cursor, 5);
+            page.getItems().forEach(customer -> paged.add(customer.getId()));
+            cursor = page.getNext();
+        } while (cursor != null);
+        assertTrue(paged.containsAll(ids));
+        List<UUID> sorted = paged.stream().map(UUID::fromString).sorted(CustomerShardedStoreIntegrationTest::compareUnsigned).toList();
+        assertEquals(sorted, paged.stream().map(UUID::fromString).toList());
+
+        assertEquals(ids.get(7), restTemplate.getForObject("/customers?email=" + run + ".SHARD7@example.com", CustomerResponse[].class)[0].getId());
+        assertEquals(409, restTemplate.postForEntity("/customers",
+                new CreateCustomerRequest("Shard Twin", run + ".shard3@example.com", null, null), String.class).getStatusCode().value());
+
+        CustomerSearchResult richest = restTemplate.getForObject("/customers/search?namePrefix=Shard Customer&sort=annualSpend&direction=desc&size=4&page=1",
+                CustomerSearchResult.class);
+        assertEquals(List.of("Shard Customer 7", "Shard Customer 6", "Shard Customer 5", "Shard Customer 4"),
+                richest.getItems().stream().map(CustomerResponse::getName).toList());
+
+        ResponseEntity<String> updated = restTemplate.exchange("/customers/" + ids.get(0), HttpMethod.PUT,
+                new HttpEntity<>(Map.of("annualSpend", 20000)), String.class);
+        assertEquals(200, updated.getStatusCode().value(), updated.getBody());
+        assertEquals("Platinum", restTemplate.getForObject("/customers/" + ids.get(0), CustomerResponse.class).getTier());
+        customerStatistics.reconcile();
+        assertTrue(customerService.getCustomerStats().getTotalCustomers() >= 12);
+
+        restTemplate.delete("/customers/" + ids.get(1));
+        assertEquals(404, restTemplate.getForEntity("/customers/" + ids.get(1), String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testFailedInsertOnOneShardUndoesTheOthers() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            customers.add(Customer.builder().name("Batch " + i).email(run + ".batch" + i + "@example.com").build());
+        }
+        // Fails bean validation on whichever shard it is assigned to
+        customers.add(Customer.builder().name("").email(run + ".invalid@example.com").build());
+
+        assertThrows(RuntimeException.class, () -> customerStore.insertAll(customers));
+
+        for (int i = 0; i < 12; i++) {
+            assertTrue(customerStore.findByEmailNormalized(run + ".batch" + i + "@example.com").isEmpty());
+        }
+    }
+
+    @Test
+    void testShardWritesAreUndoneWhenTheMainCommitFails() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        CustomerResponse kept = customerService.createCustomer(new CreateCustomerRequest("Kept Customer",
+                run + ".kept@example.com", new BigDecimal("500"), LocalDate.now()));
+        UUID keptId = UUID.fromString(kept.getId());
+
+        failMainCommit(() -> customerService.createCustomer(new CreateCustomerRequest("Lost Customer",
+                run + ".lost@example.com", new BigDecimal("500"), LocalDate.now())));
+        assertTrue(customerStore.findByEmailNormalized(run + ".lost@example.com").isEmpty());
+        assertEquals(0, restTemplate.getForObject("/customers?email=" + run + ".lost@example.com", CustomerResponse[].class).length);
+
+        failMainCommit(() -> customerService.updateCustomer(keptId,
+                new UpdateCustomerRequest("Changed Customer", run + ".changed@example.com", new BigDecimal("20000"), null)));
+        assertEquals("Kept Customer", restTemplate.getForObject("/customers/" + keptId, CustomerResponse.class).getName());
+        assertEquals(kept.getVersion(), customerStore.findById(keptId).orElseThrow().getVersion());
+
+        failMainCommit(() -> customerService.deleteCustomer(keptId));
+        assertEquals("Kept Customer", restTemplate.getForObject("/customers/" + keptId, CustomerResponse.class).getName());
+        assertEquals(kept.getVersion(), customerStore.findById(keptId).orElseThrow().getVersion());
+
+        // Only the create that committed is in the change log, and the emails the failed writes claimed are free again
+        assertEquals(List.of("CREATED"), jdbcTemplate.queryForList("SELECT type FROM customer_change WHERE customer_id = ?",
+                String.class, keptId));
+        assertEquals(200, restTemplate.postForEntity("/customers", new CreateCustomerRequest("Lost Customer",
+                run + ".lost@example.com", null, null), String.class).getStatusCode().value());
+        assertEquals(200, restTemplate.exchange("/customers/" + keptId, HttpMethod.PUT,
+                new HttpEntity<>(Map.of("email", run + ".changed@example.com")), String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testConcurrentCreatesWithOneEmailLetOnlyOneThrough() throws Exception {
+        String email = UUID.randomUUID().toString().substring(0, 8) + ".race@example.com";
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // Each create gets its own id, so the attempts land on different shards
+            List<Callable<Integer>> creates = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                creates.add(() -> restTemplate.postForEntity("/customers", new CreateCustomerRequest("Racing Customer", email, null, null),
+                        String.class).getStatusCode().value());
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> status : executor.invokeAll(creates)) {
+                statuses.add(status.get());
+            }
+
+            assertEquals(1, statuses.stream().filter(status -> status == 200).count(), statuses.toString());
+            assertEquals(7, statuses.stream().filter(status -> status == 409).count(), statuses.toString());
+            assertEquals(1, customerStore.findByEmailNormalized(email).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRecalculationDowngradesAgedPlatinumCustomerOnItsShard() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        CustomerResponse created = customerService.createCustomer(new CreateCustomerRequest("Aging Shard Platinum",
+                run + ".aging@example.com", new BigDecimal("25000"), LocalDate.now()));
+        UUID id = UUID.fromString(created.getId());
+        int aged = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            aged += shard(shard).update("UPDATE customer SET last_purchase_date = ? WHERE id = ?", LocalDate.now().minusMonths(9), id);
+        }
+        assertEquals(1, aged);
+
+        tierRecalculationJob.recalculateTiers();
+
+        CustomerResponse recalculated = customerService.getCustomerById(id);
+        assertEquals("Silver", recalculated.getTier());
+        assertEquals(created.getVersion() + 1, recalculated.getVersion());
+    }
+
+    // The service's writes commit on the shard, then the main transaction they joined fails to commit
+    private void failMainCommit(Runnable write) {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("Main commit failed");
+                }
+            });
+            write.run();
+        }));
+    }
+
+    private static JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:shardtest" + shard, "sa", ""));
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        return Comparator.<UUID, Long>comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+                .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned)
+                .compare(a, b);
+    }
+}
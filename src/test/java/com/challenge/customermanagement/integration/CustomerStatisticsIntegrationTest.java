@@ -0,0 +1,80 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.CustomerStatsResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.service.CustomerService;
+import com.challenge.customermanagement.service.CustomerStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomerStatisticsIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerStatistics customerStatistics;
+
+    @Test
+    void testWritesUpdateStatisticsIncrementally() {
+        customerStatistics.reconcile();
+        CustomerStatsResponse before = customerService.getCustomerStats();
+
+        CustomerResponse created = customerService.createCustomer(new CreateCustomerRequest("Stats Platinum", "stats.platinum@example.com", new BigDecimal("20000.50"), LocalDate.now()));
+        CustomerStatsResponse afterCreate = customerService.getCustomerStats();
+
+        assertEquals(before.getTotalCustomers() + 1, afterCreate.getTotalCustomers());
+        assertEquals(before.getCustomersByTier().get("Platinum") + 1, afterCreate.getCustomersByTier().get("Platinum"));
+        assertEquals(before.getTotalAnnualSpend().add(new BigDecimal("20000.50")), afterCreate.getTotalAnnualSpend());
+        assertEquals(before.getSpendHistogram().get(3).getCustomers() + 1, afterCreate.getSpendHistogram().get(3).getCustomers());
+
+        UpdateCustomerRequest update = new UpdateCustomerRequest();
+        update.setAnnualSpend(new BigDecimal("500"));
+        customerService.updateCustomer(UUID.fromString(created.getId()), update);
+        CustomerStatsResponse afterUpdate = customerService.getCustomerStats();
+
+        assertEquals(before.getCustomersByTier().get("Platinum"), afterUpdate.getCustomersByTier().get("Platinum"));
+        assertEquals(before.getCustomersByTier().get("Silver") + 1, afterUpdate.getCustomersByTier().get("Silver"));
+        assertEquals(before.getSpendHistogram().get(0).getCustomers() + 1, afterUpdate.getSpendHistogram().get(0).getCustomers());
+
+        customerService.deleteCustomer(UUID.fromString(created.getId()));
+        CustomerStatsResponse afterDelete = customerService.getCustomerStats();
+
+        assertEquals(before.getTotalCustomers(), afterDelete.getTotalCustomers());
+        assertEquals(before.getTotalAnnualSpend(), afterDelete.getTotalAnnualSpend());
+        assertEquals(before.getCustomersByTier(), afterDelete.getCustomersByTier());
+    }
+
+    @Test
+    void testReconciliationCorrectsDriftFromDirectWrites() {
+        customerStatistics.reconcile();
+        long before = customerService.getCustomerStats().getTotalCustomers();
+        jdbcTemplate.update("INSERT INTO customer (id, name, email, email_normalized, email_domain, annual_spend, last_purchase_date, tier) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                UUID.randomUUID(), "Direct Insert", "direct.insert@example.com", "direct.insert@example.com", "example.com", new BigDecimal("100"), LocalDate.now(), "SILVER");
+
+        assertEquals(before, customerService.getCustomerStats().getTotalCustomers());
+
+        customerStatistics.reconcile();
+
+        CustomerStatsResponse reconciled = customerService.getCustomerStats();
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+        assertEquals(before + 1, reconciled.getTotalCustomers());
+        assertEquals(rows, reconciled.getTotalCustomers());
+        assertNotNull(reconciled.getLastReconciledAt());
+    }
+}
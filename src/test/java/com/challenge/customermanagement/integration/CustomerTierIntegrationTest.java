@@ -0,0 +1,86 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.dto.UpdateCustomerRequest;
+import com.challenge.customermanagement.service.CustomerService;
+import com.challenge.customermanagement.service.CustomerTierRecalculationJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomerTierIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerTierRecalculationJob tierRecalculationJob;
+
+    @Test
+    void testTierIsStoredAndQueryable() {
+        CustomerResponse created = customerService.createCustomer(new CreateCustomerRequest("Tier Query", "tier.query@example.com", new BigDecimal("25000"), LocalDate.now()));
+
+        String storedTier = jdbcTemplate.queryForObject("SELECT tier FROM customer WHERE id = ?", String.class, UUID.fromString(created.getId()));
+        CustomerPage page = customerService.getCustomersByTier("platinum", null, 1000);
+
+        assertEquals("PLATINUM", storedTier);
+        assertTrue(page.getItems().stream().anyMatch(customer -> customer.getId().equals(created.getId())));
+    }
+
+    @Test
+    void testPartialUpdateRecalculatesStoredTier() {
+        CustomerResponse created = customerService.createCustomer(new CreateCustomerRequest("Tier Update", "tier.update@example.com", new BigDecimal("500"), LocalDate.now().minusMonths(3)));
+        UUID id = UUID.fromString(created.getId());
+
+        CustomerResponse updated = customerService.updateCustomer(id, new UpdateCustomerRequest(null, null, new BigDecimal("1500"), null));
+
+        String storedTier = jdbcTemplate.queryForObject("SELECT tier FROM customer WHERE id = ?", String.class, id);
+        assertEquals("Gold", updated.getTier());
+        assertEquals("GOLD", storedTier);
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM customer WHERE id = ?", Long.class, id));
+    }
+
+    @Test
+    void testTierFilterUsesTierIndex() {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT * FROM customer WHERE tier = 'PLATINUM' ORDER BY id", String.class));
+
+        assertTrue(plan.contains("IDX_CUSTOMER_TIER"), plan);
+    }
+
+    @Test
+    void testRecalculationDowngradesAgedPlatinumCustomer() {
+        CustomerResponse created = customerService.createCustomer(new CreateCustomerRequest("Aging Platinum", "aging@example.com", new BigDecimal("25000"), LocalDate.now()));
+        UUID id = UUID.fromString(created.getId());
+        jdbcTemplate.update("UPDATE customer SET last_purchase_date = ? WHERE id = ?", LocalDate.now().minusMonths(9), id);
+
+        tierRecalculationJob.recalculateTiers();
+
+        assertEquals("Silver", customerService.getCustomerById(id).getTier());
+    }
+
+    @Test
+    void testRecalculationFillsMissingTier() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO customer (id, name, email, email_normalized, email_domain, annual_spend, last_purchase_date) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, "Legacy Gold", "legacy.gold@example.com", "legacy.gold@example.com", "example.com", new BigDecimal("5000"), LocalDate.now());
+
+        tierRecalculationJob.recalculateTiers();
+
+        String storedTier = jdbcTemplate.queryForObject("SELECT tier FROM customer WHERE id = ?", String.class, id);
+        assertEquals("GOLD", storedTier);
+    }
+}
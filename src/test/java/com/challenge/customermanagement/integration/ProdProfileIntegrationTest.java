@@ -0,0 +1,47 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starting at all proves that the Flyway migrations match the entities, since the prod profile validates the schema
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:prodprofile")
+@ActiveProfiles("prod")
+public class ProdProfileIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSchemaComesFromMigrations() {
+        assertEquals("3", jdbcTemplate.queryForObject(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" ORDER BY \"installed_rank\" DESC LIMIT 1", String.class));
+
+        CustomerResponse created = restTemplate.postForObject("/customers",
+                new CreateCustomerRequest("Prod Customer", "prod@example.com", new BigDecimal("1500"), LocalDate.now()), CustomerResponse.class);
+
+        assertEquals("Gold", restTemplate.getForObject("/customers/" + created.getId(), CustomerResponse.class).getTier());
+        assertEquals(409, restTemplate.postForEntity("/customers",
+                new CreateCustomerRequest("Prod Twin", "prod@example.com", null, null), String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testDevelopmentToolingIsOff() {
+        assertEquals(404, restTemplate.getForEntity("/v3/api-docs", String.class).getStatusCode().value());
+        assertEquals(404, restTemplate.getForEntity("/swagger-ui/index.html", String.class).getStatusCode().value());
+        assertEquals(404, restTemplate.getForEntity("/h2-console", String.class).getStatusCode().value());
+    }
+}
@@ -0,0 +1,178 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.datasource.ReplicaMonitor;
+import com.challenge.customermanagement.datasource.ReplicaRoutingDataSource;
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicaprimary",
+        "customer.replicas.enabled=true",
+        "customer.replicas.urls=jdbc:h2:mem:replicatest;DB_CLOSE_DELAY=-1",
+        "customer.replicas.max-lag=PT1M",
+        "customer.replicas.check-interval=PT1H",
+        // Otherwise lookups by id and email are answered from memory without reaching either database
+        "customer.read-index.enabled=false"
+})
+@ActiveProfiles("test")
+public class ReplicaRoutingIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ReplicaMonitor replicaMonitor;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    private Path dumps;
+
+    @Test
+    void testReadsGoToAnUpToDateReplica() {
+        assertInstanceOf(ReplicaRoutingDataSource.class, dataSource);
+        CustomerResponse created = create("Replica Reader");
+        catchUp();
+        // Changed on the replica only: a read that sees the change was served there
+        replica().update("UPDATE customer SET name = 'Seen On Replica' WHERE email = ?", created.getEmail());
+        double replicaReads = reads("replica-0", "replica");
+
+        assertEquals("Seen On Replica", restTemplate.getForObject("/customers/" + created.getId(), CustomerResponse.class).getName());
+        assertEquals("Seen On Replica", restTemplate.getForObject("/customers?email=" + created.getEmail(), CustomerResponse[].class)[0].getName());
+        assertEquals(replicaReads + 2, reads("replica-0", "replica"));
+        // Name lookups are cached, so they stay on the primary
+        assertEquals(1, restTemplate.getForObject("/customers?name=Replica Reader", CustomerResponse[].class).length);
+        assertEquals(0, restTemplate.getForObject("/customers?name=Seen On Replica", CustomerResponse[].class).length);
+        assertEquals(replicaReads + 2, reads("replica-0", "replica"));
+
+        // Writes still go to the primary
+        ResponseEntity<CustomerResponse> updated = restTemplate.exchange("/customers/" + created.getId(), HttpMethod.PUT,
+                new HttpEntity<>(Map.of("annualSpend", 20000)), CustomerResponse.class);
+        assertEquals("Replica Reader", updated.getBody().getName());
+        assertEquals("Platinum", updated.getBody().getTier());
+    }
+
+    @Test
+    void testClientThatJustWroteReadsFromThePrimaryUntilTheReplicaHasTheWrite() {
+        catchUp();
+        ResponseEntity<CustomerResponse> created = restTemplate.postForEntity("/customers", request("Fresh Writer"), CustomerResponse.class);
+        String cookie = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith("customer-last-write="));
+        String email = created.getBody().getEmail();
+
+        // Other clients read the replica, which has not replicated the customer yet
+        assertEquals(0, restTemplate.getForObject("/customers?email=" + email, CustomerResponse[].class).length);
+        double stickyReads = reads("primary", "sticky");
+        assertEquals(1, getWithCookie("/customers?email=" + email, cookie).length);
+        assertEquals(stickyReads + 1, reads("primary", "sticky"));
+
+        catchUp();
+        replica().update("UPDATE customer SET name = 'Seen On Replica' WHERE email = ?", email);
+        assertEquals("Seen On Replica", getWithCookie("/customers?email=" + email, cookie)[0].getName());
+    }
+
+    @Test
+    void testBatchAndImportWritesAlsoKeepTheClientOnThePrimary() {
+        catchUp();
+        CreateCustomerRequest batched = request("Batch Writer");
+        ResponseEntity<String> batch = restTemplate.postForEntity("/customers:batch", List.of(batched), String.class);
+        String cookie = batch.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie, batch.getBody());
+        assertTrue(cookie.startsWith("customer-last-write="));
+        assertEquals(0, restTemplate.getForObject("/customers?email=" + batched.getEmail(), CustomerResponse[].class).length);
+        assertEquals(1, getWithCookie("/customers?email=" + batched.getEmail(), cookie).length);
+
+        String imported = UUID.randomUUID() + "@example.com";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        ResponseEntity<String> importResponse = restTemplate.postForEntity("/customers/import",
+                new HttpEntity<>("name,email\nImport Writer," + imported + "\n", headers), String.class);
+        cookie = importResponse.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie, importResponse.getBody());
+        assertEquals(0, restTemplate.getForObject("/customers?email=" + imported, CustomerResponse[].class).length);
+        assertEquals(1, getWithCookie("/customers?email=" + imported, cookie).length);
+    }
+
+    @Test
+    void testLaggingOrUnreachableReplicaIsSkipped() {
+        CustomerResponse created = create("Lagging Replica");
+        catchUp();
+        replica().update("UPDATE customer SET name = 'Seen On Replica' WHERE email = ?", created.getEmail());
+        assertEquals("Seen On Replica", restTemplate.getForObject("/customers?email=" + created.getEmail(), CustomerResponse[].class)[0].getName());
+
+        replica().update("UPDATE replication_heartbeat SET beat = ?", Instant.now().minus(1, ChronoUnit.HOURS));
+        replicaMonitor.check();
+        double unavailable = reads("primary", "unavailable");
+        assertEquals("Lagging Replica", restTemplate.getForObject("/customers?email=" + created.getEmail(), CustomerResponse[].class)[0].getName());
+        assertEquals(unavailable + 1, reads("primary", "unavailable"));
+
+        replica().execute("DROP TABLE replication_heartbeat");
+        replicaMonitor.check();
+        assertEquals("Lagging Replica", restTemplate.getForObject("/customers/" + created.getId(), CustomerResponse.class).getName());
+        assertEquals(0.0, meterRegistry.get("customer.replica.available").tag("replica", "replica-0").gauge().value());
+    }
+
+    private CustomerResponse create(String name) {
+        return restTemplate.postForObject("/customers", request(name), CustomerResponse.class);
+    }
+
+    private static CreateCustomerRequest request(String name) {
+        return new CreateCustomerRequest(name, UUID.randomUUID() + "@example.com", new BigDecimal("500"), LocalDate.now());
+    }
+
+    private CustomerResponse[] getWithCookie(String uri, String setCookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, setCookie.substring(0, setCookie.indexOf(';')));
+        return restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), CustomerResponse[].class).getBody();
+    }
+
+    // Stands in for replication: the replica becomes a copy of the primary, heartbeat included
+    private void catchUp() {
+        replicaMonitor.check();
+        String dump = dumps.resolve(UUID.randomUUID() + ".sql").toString();
+        new JdbcTemplate(dataSource).execute("SCRIPT TO '" + dump + "'");
+        replica().execute("DROP ALL OBJECTS");
+        replica().execute("RUNSCRIPT FROM '" + dump + "'");
+        replicaMonitor.check();
+    }
+
+    private double reads(String target, String reason) {
+        Counter counter = meterRegistry.find("customer.replica.reads").tag("target", target).tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static JdbcTemplate replica() {
+        return new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replicatest;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+}
@@ -0,0 +1,74 @@
+package com.challenge.customermanagement.integration;
+
+import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.connection-timeout=1000",
+        // Keeps the change publisher's polls from holding a connection while connections are counted
+        "customer.changes.publish-interval=PT1H"
+})
+@ActiveProfiles({"test", "virtual-threads"})
+public class VirtualThreadIntegrationTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testRequestsGet503WhenNoConnectionFreesUp() throws SQLException {
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 10; i++) {
+                held.add(dataSource.getConnection());
+            }
+            ResponseEntity<String> response = restTemplate.getForEntity("/customers?limit=10", String.class);
+
+            assertEquals(503, response.getStatusCode().value());
+            assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertEquals(200, restTemplate.getForEntity("/customers?limit=10", String.class).getStatusCode().value());
+    }
+
+    @Test
+    void testConcurrentRequestsShareBoundedConnections() throws SQLException {
+        CreateCustomerRequest request = new CreateCustomerRequest("Virtual Reader", "virtual@example.com", new BigDecimal("100"), LocalDate.now());
+        String id = restTemplate.postForEntity("/customers", request, CustomerResponse.class).getBody().getId();
+
+        List<CompletableFuture<ResponseEntity<String>>> responses = new ArrayList<>();
+        try (ExecutorService clients = Executors.newFixedThreadPool(32)) {
+            for (int i = 0; i < 200; i++) {
+                String url = i % 2 == 0 ? "/customers/" + id : "/customers?limit=10";
+                responses.add(CompletableFuture.supplyAsync(() -> restTemplate.getForEntity(url, String.class), clients));
+            }
+        }
+
+        responses.forEach(response -> assertEquals(200, response.join().getStatusCode().value()));
+        assertEquals(0, dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections());
+    }
+}
@@ -0,0 +1,33 @@
+package com.challenge.customermanagement.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void generatesVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidGenerator.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1, "timestamp " + timestamp);
+    }
+
+    @Test
+    void idsIncreaseWithinTheSameMillisecond() {
+        UUID previous = TimeOrderedUuidGenerator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedUuidGenerator.next();
+            // Unsigned, as a database compares the 16 bytes
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = next;
+        }
+    }
+}
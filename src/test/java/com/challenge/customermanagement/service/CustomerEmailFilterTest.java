@@ -0,0 +1,100 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class CustomerEmailFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomerEmailFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        CustomerStore customerStore = mock(CustomerStore.class);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            consumer.accept("stored@example.com");
+            return null;
+        }).when(customerStore).forEachEmailNormalized(any());
+        filter = new CustomerEmailFilter(customerStore, meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "expectedCustomers", 10_000L);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+        filter.load();
+    }
+
+    @Test
+    void containsLoadedAndAddedEmails() {
+        filter.recordAdded("added@example.com");
+
+        assertTrue(filter.mightContain("stored@example.com"));
+        assertTrue(filter.mightContain("added@example.com"));
+        assertFalse(filter.mightContain("new@example.com"));
+    }
+
+    @Test
+    void emailAddedInATransactionIsKeptOnlyOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            filter.recordAdded("rolled.back@example.com");
+            filter.recordAdded("committed@example.com");
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+            assertFalse(filter.mightContain("rolled.back@example.com"));
+            synchronizations.get(1).afterCommit();
+            assertFalse(filter.mightContain("rolled.back@example.com"));
+            assertTrue(filter.mightContain("committed@example.com"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void removedEmailIsGoneAndOthersStay() {
+        filter.recordAdded("leaving@example.com");
+
+        filter.recordRemoved("leaving@example.com");
+
+        assertFalse(filter.mightContain("leaving@example.com"));
+        assertTrue(filter.mightContain("stored@example.com"));
+    }
+
+    @Test
+    void changedEmailMovesToTheNewValue() {
+        filter.recordChanged("stored@example.com", "moved@example.com");
+
+        assertFalse(filter.mightContain("stored@example.com"));
+        assertTrue(filter.mightContain("moved@example.com"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        for (int i = 0; i < 10_000; i++) {
+            filter.recordAdded("customer" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("someone.else" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(10_001.0, meterRegistry.get("customer.email.filter.entries").gauge().value());
+    }
+}
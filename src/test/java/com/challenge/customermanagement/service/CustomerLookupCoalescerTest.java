@@ -0,0 +1,201 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CustomerLookupCoalescerTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerStore customerStore = mock(CustomerStore.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void lookupsOfOneIdArrivingDuringAQueryShareTheNextOne() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+        UUID id = UUID.randomUUID();
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerStore.findById(id)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await();
+            return Optional.of(customer(id, "Before"));
+        }).thenReturn(Optional.of(customer(id, "After")));
+
+        Future<Optional<CustomerResponse>> first = executor.submit(() -> coalescer.findById(id));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        // These arrive after the first query started, so it may not have seen a write they just made
+        List<Future<Optional<CustomerResponse>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 19; i++) {
+            lookups.add(executor.submit(() -> coalescer.findById(id)));
+        }
+        awaitLookups("id", 20);
+        release.countDown();
+
+        assertEquals("Before", first.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        List<CustomerResponse> results = new ArrayList<>();
+        for (Future<Optional<CustomerResponse>> lookup : lookups) {
+            results.add(lookup.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        verify(customerStore, times(2)).findById(id);
+        assertTrue(results.stream().allMatch(customer -> customer.getName().equals("After")));
+        // Each caller may set the tier on its own copy
+        assertEquals(19, results.stream().map(System::identityHashCode).distinct().count());
+        assertEquals(10.0, meterRegistry.get("customer.lookup.coalescing.ratio").tag("lookup", "id").gauge().value());
+    }
+
+    @Test
+    void lookupWithNothingInFlightSkipsTheWindow() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ofMinutes(1), 100);
+        UUID id = UUID.randomUUID();
+        when(customerStore.findById(id)).thenReturn(Optional.of(customer(id)));
+
+        assertTrue(executor.submit(() -> coalescer.findById(id)).get(5, TimeUnit.SECONDS).isPresent());
+        verify(customerStore, never()).findAllById(anyCollection());
+    }
+
+    @Test
+    void distinctIdsArrivingDuringAQueryAreReadWithOneQueryOnceItFinishes() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ofMinutes(1), 100);
+        UUID running = UUID.randomUUID();
+        CountDownLatch release = blockLookupsOf(running);
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(customerStore.findAllById(anyCollection())).thenReturn(List.of(customer(ids.get(0)), customer(ids.get(1))));
+
+        Future<Optional<CustomerResponse>> first = executor.submit(() -> coalescer.findById(running));
+        awaitLookups("id", 1);
+        List<Future<Optional<CustomerResponse>>> lookups = new ArrayList<>();
+        for (UUID id : ids) {
+            lookups.add(executor.submit(() -> coalescer.findById(id)));
+        }
+        awaitLookups("id", 4);
+        release.countDown();
+
+        // The batch runs when the query ahead of it finishes, well before its one-minute window
+        assertTrue(first.get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(ids.get(0).toString(), lookups.get(0).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals(ids.get(1).toString(), lookups.get(1).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertTrue(lookups.get(2).get(5, TimeUnit.SECONDS).isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> queried = ArgumentCaptor.forClass(Collection.class);
+        verify(customerStore).findAllById(queried.capture());
+        assertEquals(Set.copyOf(ids), Set.copyOf(queried.getValue()));
+        verify(customerStore).findById(any());
+        assertEquals(4.0, meterRegistry.get("customer.lookup.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void fullBatchRunsWithoutWaitingForTheWindow() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ofMinutes(1), 2);
+        UUID running = UUID.randomUUID();
+        CountDownLatch release = blockLookupsOf(running);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(customerStore.findAllById(anyCollection())).thenReturn(List.of(customer(first), customer(second)));
+
+        Future<Optional<CustomerResponse>> runningLookup = executor.submit(() -> coalescer.findById(running));
+        awaitLookups("id", 1);
+        Future<Optional<CustomerResponse>> firstLookup = executor.submit(() -> coalescer.findById(first));
+        Future<Optional<CustomerResponse>> secondLookup = executor.submit(() -> coalescer.findById(second));
+
+        // Neither the window nor the running query holds up a full batch
+        assertTrue(firstLookup.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(secondLookup.get(5, TimeUnit.SECONDS).isPresent());
+        release.countDown();
+        assertTrue(runningLookup.get(5, TimeUnit.SECONDS).isPresent());
+    }
+
+    @Test
+    void failedQueryFailsEveryCallerAndIsNotRemembered() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+        UUID id = UUID.randomUUID();
+        when(customerStore.findById(id)).thenThrow(new IllegalStateException("boom")).thenReturn(Optional.of(customer(id)));
+
+        assertThrows(IllegalStateException.class, () -> coalescer.findById(id));
+        assertTrue(coalescer.findById(id).isPresent());
+    }
+
+    @Test
+    void lookupsOfOneEmailArrivingDuringAQueryShareTheNextOne() throws Exception {
+        CustomerLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerStore.findByEmailNormalized("jane@example.com")).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await();
+            return List.of();
+        }).thenReturn(List.of(customer(UUID.randomUUID(), "Jane Doe")));
+
+        Future<List<CustomerResponse>> first = executor.submit(() -> coalescer.findByEmailNormalized("jane@example.com"));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        List<Future<List<CustomerResponse>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            lookups.add(executor.submit(() -> coalescer.findByEmailNormalized("jane@example.com")));
+        }
+        awaitLookups("email", 10);
+        release.countDown();
+
+        assertTrue(first.get(5, TimeUnit.SECONDS).isEmpty());
+        for (Future<List<CustomerResponse>> lookup : lookups) {
+            assertEquals(1, lookup.get(5, TimeUnit.SECONDS).size());
+        }
+        verify(customerStore, times(2)).findByEmailNormalized("jane@example.com");
+    }
+
+    // Lookups of id by itself hang in the store until the returned latch is released
+    private CountDownLatch blockLookupsOf(UUID id) {
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerStore.findById(id)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(customer(id));
+        });
+        return release;
+    }
+
+    private CustomerLookupCoalescer coalescer(Duration batchWindow, int maxBatchSize) {
+        return new CustomerLookupCoalescer(customerStore, meterRegistry, true, batchWindow, maxBatchSize);
+    }
+
+    // Callers count themselves before joining a lookup, so give the last ones a moment to get there
+    private void awaitLookups(String lookup, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("customer.lookup.requests").tag("lookup", lookup).functionCounter().count() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+    }
+
+    private static CustomerResponse customer(UUID id) {
+        return customer(id, "Jane Doe");
+    }
+
+    private static CustomerResponse customer(UUID id, String name) {
+        return new CustomerResponse(id.toString(), name, "jane@example.com", null, null, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.challenge.customermanagement.service;
+
+import com.challenge.customermanagement.dto.CustomerChangeEvent;
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.model.CustomerChangeType;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.store.CustomerStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CustomerReadIndexTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomerReadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerReadIndex(mock(CustomerStore.class), meterRegistry);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        index.load();
+    }
+
+    @Test
+    void servesPutCustomerWithAllFields() {
+        UUID id = UUID.randomUUID();
+        Instant modified = Instant.parse("2025-03-01T10:15:30.123456Z");
+        index.put(id, "Jane Doe", "Jane@Example.com", new BigDecimal("1250.5"), LocalDate.of(2025, 2, 1),
+                CustomerTier.GOLD, 3L, modified);
+
+        CustomerResponse customer = index.findById(id);
+
+        assertEquals(id.toString(), customer.getId());
+        assertEquals("Jane Doe", customer.getName());
+        assertEquals("Jane@Example.com", customer.getEmail());
+        assertEquals(new BigDecimal("1250.50"), customer.getAnnualSpend());
+        assertEquals(LocalDate.of(2025, 2, 1), customer.getLastPurchaseDate());
+        assertEquals(CustomerTier.GOLD.getLabel(), customer.getTier());
+        assertEquals(3L, customer.getVersion());
+        assertEquals(modified, customer.getLastModified());
+    }
+
+    @Test
+    void keepsNullFieldsNull() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "Jane Doe", null, null, null, null, null, null);
+
+        CustomerResponse customer = index.findById(id);
+
+        assertNull(customer.getEmail());
+        assertNull(customer.getAnnualSpend());
+        assertNull(customer.getLastPurchaseDate());
+        assertNull(customer.getTier());
+        assertNull(customer.getVersion());
+        assertNull(customer.getLastModified());
+    }
+
+    @Test
+    void findsEveryCustomerSharingAnEmailAndFollowsUpdatesAndDeletes() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        index.put(first, "First", "shared@example.com", null, null, null, 0L, null);
+        index.put(second, "Second", "Shared@Example.com", null, null, null, 0L, null);
+        index.put(third, "Third", "other@example.com", null, null, null, 0L, null);
+
+        assertEquals(2, index.findByEmailNormalized("shared@example.com").size());
+
+        index.put(second, "Second", "moved@example.com", null, null, null, 1L, null);
+        index.remove(first, 0L);
+
+        assertTrue(index.findByEmailNormalized("shared@example.com").isEmpty());
+        List<CustomerResponse> moved = index.findByEmailNormalized("moved@example.com");
+        assertEquals(1, moved.size());
+        assertEquals(1L, moved.get(0).getVersion());
+        assertNull(index.findById(first));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void ignoresPutsThatArriveAfterANewerVersionOrADelete() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "Newer", "newer@example.com", null, null, null, 2L, null);
+        index.put(id, "Older", "older@example.com", null, null, null, 1L, null);
+
+        assertEquals("Newer", index.findById(id).getName());
+        assertTrue(index.findByEmailNormalized("older@example.com").isEmpty());
+
+        index.remove(id, 2L);
+        index.put(id, "Newer", "newer@example.com", null, null, null, 2L, null);
+
+        assertNull(index.findById(id));
+        assertTrue(index.findByEmailNormalized("newer@example.com").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void dropsRowsSupersededByPublishedChanges() {
+        UUID current = UUID.randomUUID();
+        UUID updatedElsewhere = UUID.randomUUID();
+        UUID deletedElsewhere = UUID.randomUUID();
+        index.put(current, "Current", "current@example.com", null, null, null, 2L, null);
+        index.put(updatedElsewhere, "Stale", "stale@example.com", null, null, null, 1L, null);
+        index.put(deletedElsewhere, "Deleted", "deleted@example.com", null, null, null, 1L, null);
+
+        index.recordPublished(List.of(
+                new CustomerChangeEvent(1, CustomerChangeType.UPDATED, current.toString(), 2L, null, null),
+                new CustomerChangeEvent(2, CustomerChangeType.UPDATED, updatedElsewhere.toString(), 2L, null, null),
+                new CustomerChangeEvent(3, CustomerChangeType.DELETED, deletedElsewhere.toString(), null, null, null)));
+
+        assertEquals("Current", index.findById(current).getName());
+        assertNull(index.findById(updatedElsewhere));
+        assertTrue(index.findByEmailNormalized("stale@example.com").isEmpty());
+        assertNull(index.findById(deletedElsewhere));
+        assertEquals(1, index.size());
+
+        // The next write through this instance indexes the customer again
+        index.put(updatedElsewhere, "Fresh", "stale@example.com", null, null, null, 3L, null);
+        assertEquals("Fresh", index.findById(updatedElsewhere).getName());
+    }
+
+    @Test
+    void reclaimsStringSpaceOnRepeatedUpdates() {
+        UUID id = UUID.randomUUID();
+        for (int i = 0; i < 20_000; i++) {
+            index.put(id, "Customer " + i, "customer" + i + "@example.com", null, null, null, (long) i, null);
+        }
+
+        assertEquals("Customer 19999", index.findById(id).getName());
+        assertEquals(1, index.findByEmailNormalized("customer19999@example.com").size());
+        double stringBytes = meterRegistry.get("customer.read.index.memory").tag("structure", "strings").gauge().value();
+        assertEquals(64 * 1024, stringBytes);
+    }
+}
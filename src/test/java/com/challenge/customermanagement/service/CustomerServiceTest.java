@@ -4,14 +4,20 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.challenge.customermanagement.dto.CreateCustomerRequest;
+import com.challenge.customermanagement.dto.CustomerPage;
 import com.challenge.customermanagement.dto.CustomerResponse;
 import com.challenge.customermanagement.dto.UpdateCustomerRequest;
 import com.challenge.customermanagement.exception.CustomerNotFoundException;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.exception.PreconditionFailedException;
 import com.challenge.customermanagement.model.Customer;
-import com.challenge.customermanagement.repository.CustomerRepository;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.store.CustomerStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -21,13 +27,29 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles("test")
 public class CustomerServiceTest {
     @Mock
-    private CustomerRepository customerRepository;
+    private CustomerStore customerStore;
+
+    @Mock
+    private CustomerStatistics customerStatistics;
+
+    @Mock
+    private CustomerReadIndex readIndex;
+
+    @Mock
+    private CustomerWriteEffects writeEffects;
+
+    @Mock
+    private CustomerLookupCoalescer lookupCoalescer;
+
+    @Mock
+    private CustomerEmailFilter emailFilter;
 
     @InjectMocks
     private CustomerService customerService;
@@ -55,7 +77,7 @@ public class CustomerServiceTest {
 
     @Test
     void testCreateCustomer() {
-        when(customerRepository.save(any(Customer.class))).thenReturn(customer);
+        when(customerStore.insert(any(Customer.class))).thenReturn(customer);
 
         CustomerResponse response = customerService.createCustomer(createCustomerRequest);
 
@@ -65,9 +87,53 @@ public class CustomerServiceTest {
         assertEquals("Gold", response.getTier());
     }
 
+    @Test
+    void testCreateCustomer_NewEmailSkipsLookup() {
+        when(customerStore.insert(any(Customer.class))).thenReturn(customer);
+
+        customerService.createCustomer(createCustomerRequest);
+
+        verify(customerStore, never()).findByEmailNormalized(any());
+        verify(writeEffects).created(customer);
+    }
+
+    @Test
+    void testCreateCustomer_DuplicateEmail() {
+        when(emailFilter.mightContain("johndoe@sample.com")).thenReturn(true);
+        when(customerStore.findByEmailNormalized("johndoe@sample.com")).thenReturn(List.of(response(customer)));
+
+        assertThrows(DuplicateEmailException.class, () -> customerService.createCustomer(createCustomerRequest));
+        verify(customerStore, never()).insert(any());
+    }
+
+    @Test
+    void testCreateCustomer_FilterFalsePositive() {
+        when(emailFilter.mightContain("johndoe@sample.com")).thenReturn(true);
+        when(customerStore.findByEmailNormalized("johndoe@sample.com")).thenReturn(List.of());
+        when(customerStore.insert(any(Customer.class))).thenReturn(customer);
+
+        assertNotNull(customerService.createCustomer(createCustomerRequest));
+        verify(emailFilter).recordFalsePositive();
+    }
+
+    @Test
+    void testCreateCustomer_StoresTier() {
+        when(customerStore.insert(any(Customer.class))).thenAnswer(invocation -> {
+            Customer saved = invocation.getArgument(0);
+            saved.setId(customerId);
+            return saved;
+        });
+
+        customerService.createCustomer(createCustomerRequest);
+
+        ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerStore).insert(captor.capture());
+        assertEquals(CustomerTier.GOLD, captor.getValue().getTier());
+    }
+
     @Test
     void testGetCustomerById_CustomerExists() {
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(lookupCoalescer.findById(customerId)).thenReturn(Optional.of(response(customer)));
 
         CustomerResponse response = customerService.getCustomerById(customerId);
 
@@ -77,7 +143,7 @@ public class CustomerServiceTest {
 
     @Test
     void testGetCustomerById_CustomerNotFound() {
-        lenient().when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        when(lookupCoalescer.findById(customerId)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(CustomerNotFoundException.class, () -> customerService.getCustomerById(customerId));
         assertEquals("Customer not found", exception.getMessage());
@@ -101,29 +167,68 @@ public class CustomerServiceTest {
                 .lastPurchaseDate(LocalDate.now().minusMonths(2))
                 .build();
 
-        when(customerRepository.findAll()).thenReturn(List.of(customer1, customer2));
+        when(customerStore.findPage(null, null, 11)).thenReturn(List.of(response(customer1), response(customer2)));
 
-        List<CustomerResponse> customers = customerService.getAllCustomers();
+        CustomerPage page = customerService.getAllCustomers(null, 10);
+        List<CustomerResponse> customers = page.getItems();
 
         assertEquals(2, customers.size());
         assertEquals("Gold", customers.get(0).getTier());
         assertEquals("Platinum", customers.get(1).getTier());
+        assertNull(page.getNext());
 
-        verify(customerRepository, times(1)).findAll();
+        verify(customerStore, times(1)).findPage(null, null, 11);
+    }
+
+    @Test
+    void testGetAllCustomers_ReturnsCursorWhenMoreRowsFollow() {
+        Customer customer1 = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("John Doe")
+                .email("john@companyone.com")
+                .build();
+        Customer customer2 = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("Jane Smith")
+                .email("jane@checkit.com")
+                .build();
+        UUID after = UUID.randomUUID();
+
+        when(customerStore.findPage(null, after, 2)).thenReturn(List.of(response(customer1), response(customer2)));
+
+        CustomerPage page = customerService.getAllCustomers(CustomerCursor.encode(after), 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(customer1.getId(), CustomerCursor.decode(page.getNext()));
+    }
+
+    @Test
+    void testGetAllCustomers_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> customerService.getAllCustomers("not-a-cursor", 10));
     }
 
     @Test
     void testGetCustomersByEmail_NoResults() {
-        when(customerRepository.findAllByEmail("nonexistent@company.com")).thenReturn(List.of());
+        when(lookupCoalescer.findByEmailNormalized("nonexistent@company.com")).thenReturn(List.of());
 
         List<CustomerResponse> response = customerService.getCustomersByEmail("nonexistent@company.com");
 
         assertTrue(response.isEmpty());
     }
 
+    @Test
+    void testGetCustomersByEmail_LooksUpNormalizedEmail() {
+        when(lookupCoalescer.findByEmailNormalized("johndoe@sample.com")).thenReturn(List.of(response(customer)));
+
+        List<CustomerResponse> response = customerService.getCustomersByEmail(" JohnDoe@Sample.com ");
+
+        assertEquals(1, response.size());
+        assertEquals("John Doe", response.get(0).getName());
+    }
+
     @Test
     void testGetCustomersByName_NoResults() {
-        when(customerRepository.findAllByName("Nonexistent Name")).thenReturn(List.of());
+        when(customerStore.findByName("Nonexistent Name")).thenReturn(List.of());
 
         List<CustomerResponse> response = customerService.getCustomersByName("Nonexistent Name");
 
@@ -133,45 +238,167 @@ public class CustomerServiceTest {
 
     @Test
     void testUpdateCustomer() {
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        when(customerRepository.save(any(Customer.class))).thenReturn(customer);
+        customer.setVersion(0L);
+        when(customerStore.update(eq(customerId), any(CustomerPatch.class), isNull())).thenReturn(Optional.of(customer));
 
         CustomerResponse response = customerService.updateCustomer(customerId, updateCustomerRequest);
 
         assertNotNull(response);
         assertEquals("John Doe", response.getName());
+        assertEquals(new BigDecimal("7600"), response.getAnnualSpend());
+        assertEquals(1L, response.getVersion());
+
+        verify(customerStore, never()).findById(any());
+        verify(customerStore, never()).insert(any(Customer.class));
+    }
 
-        verify(customerRepository, times(1)).save(any(Customer.class));
+    @Test
+    void testUpdateCustomer_CustomerNotFound() {
+        when(customerStore.update(eq(customerId), any(CustomerPatch.class), isNull())).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(CustomerNotFoundException.class, () -> customerService.updateCustomer(customerId, updateCustomerRequest));
+        assertEquals("Customer not found", exception.getMessage());
     }
 
     @Test
     void testDeleteCustomer_CustomerNotFound() {
-        when(customerRepository.existsById(customerId)).thenReturn(false);
+        when(customerStore.delete(customerId)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(CustomerNotFoundException.class, () -> customerService.deleteCustomer(customerId));
         assertEquals("Customer not found", exception.getMessage());
 
-        verify(customerRepository, times(1)).existsById(customerId);
+        verify(customerStore, never()).findById(customerId);
+        verifyNoInteractions(writeEffects);
+    }
+
+    @Test
+    void testDeleteCustomer_EvictsCachedEntries() {
+        when(customerStore.delete(customerId)).thenReturn(Optional.of(customer));
+
+        customerService.deleteCustomer(customerId);
+
+        verify(writeEffects).deleted(customerId, customer.getVersion(), CustomerWriteEffects.Previous.of(customer));
+    }
+
+    @Test
+    void testUpdateCustomer_EvictsPreviousAndNewLookupKeys() {
+        customer.setVersion(0L);
+        when(customerStore.update(eq(customerId), any(CustomerPatch.class), isNull())).thenReturn(Optional.of(customer));
+
+        customerService.updateCustomer(customerId, new UpdateCustomerRequest("Johnny Doe", "johnny@sample.com", null, null));
+
+        ArgumentCaptor<CustomerWriteEffects.Previous> previous = ArgumentCaptor.forClass(CustomerWriteEffects.Previous.class);
+        verify(writeEffects).updated(previous.capture(), eq(customer));
+        assertEquals("John Doe", previous.getValue().name());
+        assertEquals("johndoe@sample.com", previous.getValue().emailNormalized());
+        assertEquals("Johnny Doe", customer.getName());
+        assertEquals("johnny@sample.com", customer.getEmail());
+    }
+
+    @Test
+    void testUpdateCustomer_EmailTakenByAnotherCustomer() {
+        CustomerResponse other = response(customer);
+        other.setId(UUID.randomUUID().toString());
+        when(emailFilter.mightContain("johnny@sample.com")).thenReturn(true);
+        when(customerStore.findByEmailNormalized("johnny@sample.com")).thenReturn(List.of(other));
+
+        assertThrows(DuplicateEmailException.class,
+                () -> customerService.updateCustomer(customerId, new UpdateCustomerRequest(null, "Johnny@Sample.com", null, null)));
+        verify(customerStore, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateCustomer_KeepingOwnEmail() {
+        customer.setVersion(0L);
+        when(emailFilter.mightContain("johndoe@sample.com")).thenReturn(true);
+        when(customerStore.findByEmailNormalized("johndoe@sample.com")).thenReturn(List.of(response(customer)));
+        when(customerStore.update(eq(customerId), any(CustomerPatch.class), isNull())).thenReturn(Optional.of(customer));
+
+        assertNotNull(customerService.updateCustomer(customerId, new UpdateCustomerRequest(null, "johndoe@sample.com", null, null)));
+    }
+
+    @Test
+    void testUpdateCustomer_IfMatchVersionMismatch() {
+        when(customerStore.update(eq(customerId), any(CustomerPatch.class), eq(Set.of(2L)))).thenReturn(Optional.empty());
+        when(customerStore.exists(customerId)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> customerService.updateCustomer(customerId, updateCustomerRequest, Set.of(2L)));
+
+        verifyNoInteractions(writeEffects);
+    }
+
+    @Test
+    void testPatchFor_TierBoundsMatchEvaluateTier() {
+        // The update statement compares purchase dates against these bounds instead of counting months
+        for (LocalDate today : List.of(LocalDate.of(2024, 3, 31), LocalDate.of(2024, 2, 29), LocalDate.of(2023, 8, 30))) {
+            CustomerPatch patch = customerService.patchFor(updateCustomerRequest, today, null);
+            CustomerMapper mapper = new CustomerMapper();
+            for (LocalDate date = today.minusMonths(15); !date.isAfter(today); date = date.plusDays(1)) {
+                Customer platinumSpend = Customer.builder().annualSpend(new BigDecimal("10000")).lastPurchaseDate(date).build();
+                Customer goldSpend = Customer.builder().annualSpend(new BigDecimal("1000")).lastPurchaseDate(date).build();
+
+                assertEquals(mapper.evaluateTier(platinumSpend, today) == CustomerTier.PLATINUM,
+                        date.isAfter(patch.platinumPurchasedAfter()), today + " / " + date);
+                assertEquals(mapper.evaluateTier(goldSpend, today) == CustomerTier.GOLD,
+                        date.isAfter(patch.goldPurchasedAfter()), today + " / " + date);
+            }
+        }
     }
 
     @Test
     void testCalculateTier_Silver() {
-        Customer freshCustomer = new Customer(UUID.randomUUID(), "Ian Evans", "IanEvans@yahoo.com", new BigDecimal("588"), LocalDate.now());
+        Customer freshCustomer = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("Ian Evans")
+                .email("IanEvans@yahoo.com")
+                .annualSpend(new BigDecimal("588"))
+                .lastPurchaseDate(LocalDate.now())
+                .build();
         String tier = customerService.calculateTier(freshCustomer);
         assertEquals("Silver", tier);
     }
 
     @Test
     void testCalculateTier_Gold() {
-        Customer freshCustomer = new Customer(UUID.randomUUID(), "Peter Guzman", "peter.guzman@gmail.com", new BigDecimal("5166"), LocalDate.now().minusMonths(6));
+        Customer freshCustomer = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("Peter Guzman")
+                .email("peter.guzman@gmail.com")
+                .annualSpend(new BigDecimal("5166"))
+                .lastPurchaseDate(LocalDate.now().minusMonths(6))
+                .build();
         String tier = customerService.calculateTier(freshCustomer);
         assertEquals("Gold", tier);
     }
 
     @Test
     void testCalculateTier_Platinum() {
-        Customer freshCustomer = new Customer(UUID.randomUUID(), "Erica Free", "erica.free@company.com", new BigDecimal("15555"), LocalDate.now().minusMonths(3));
+        Customer freshCustomer = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("Erica Free")
+                .email("erica.free@company.com")
+                .annualSpend(new BigDecimal("15555"))
+                .lastPurchaseDate(LocalDate.now().minusMonths(3))
+                .build();
         String tier = customerService.calculateTier(freshCustomer);
         assertEquals("Platinum", tier);
     }
+
+    @Test
+    void testCalculateTier_PlatinumSpendOutsideWindowIsSilver() {
+        Customer lapsedCustomer = Customer.builder()
+                .id(UUID.randomUUID())
+                .name("Lapsed Spender")
+                .email("lapsed@company.com")
+                .annualSpend(new BigDecimal("15555"))
+                .lastPurchaseDate(LocalDate.now().minusMonths(8))
+                .build();
+        String tier = customerService.calculateTier(lapsedCustomer);
+        assertEquals("Silver", tier);
+    }
+
+    private static CustomerResponse response(Customer customer) {
+        return new CustomerResponse(customer.getId(), customer.getName(), customer.getEmail(), customer.getAnnualSpend(),
+                customer.getLastPurchaseDate(), customer.getTier());
+    }
 }
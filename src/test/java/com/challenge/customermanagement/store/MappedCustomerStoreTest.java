@@ -0,0 +1,242 @@
+package com.challenge.customermanagement.store;
+
+import com.challenge.customermanagement.dto.CustomerResponse;
+import com.challenge.customermanagement.exception.DuplicateEmailException;
+import com.challenge.customermanagement.model.Customer;
+import com.challenge.customermanagement.model.CustomerTier;
+import com.challenge.customermanagement.repository.CustomerPatch;
+import com.challenge.customermanagement.repository.CustomerSearchCriteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCustomerStoreTest {
+    @TempDir
+    private Path directory;
+
+    private MappedCustomerStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void testWritesSurviveReopen() throws IOException {
+        Customer kept = store.insert(customer("Kept Customer", "Kept@Example.com", "1500.5", CustomerTier.GOLD));
+        Customer deleted = store.insert(customer("Deleted Customer", "deleted@example.com", null, CustomerTier.SILVER));
+
+        assertEquals("Kept Customer", store.update(kept.getId(), patch("Renamed Customer", "20000"), Set.of(0L)).orElseThrow().getName());
+        assertEquals("Deleted Customer", store.delete(deleted.getId()).orElseThrow().getName());
+
+        store.close();
+        store = open();
+
+        CustomerResponse reloaded = store.findById(kept.getId()).orElseThrow();
+        assertEquals("Renamed Customer", reloaded.getName());
+        assertEquals("Kept@Example.com", reloaded.getEmail());
+        assertEquals(new BigDecimal("20000.00"), reloaded.getAnnualSpend());
+        assertEquals("Platinum", reloaded.getTier());
+        assertEquals(1L, reloaded.getVersion());
+        assertTrue(store.findById(deleted.getId()).isEmpty());
+        assertEquals(1, store.findByEmailNormalized("kept@example.com").size());
+    }
+
+    @Test
+    void testUpdateWithStaleVersionIsRejected() {
+        Customer customer = store.insert(customer("Versioned Customer", "versioned@example.com", "10", CustomerTier.SILVER));
+
+        assertTrue(store.update(customer.getId(), patch("Other Name", null), Set.of(3L)).isEmpty());
+        assertTrue(store.update(UUID.randomUUID(), patch("Other Name", null), null).isEmpty());
+        assertEquals("Versioned Customer", store.findById(customer.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testDuplicateEmailIsRejected() {
+        Customer first = store.insert(customer("First Owner", "owner@example.com", "10", CustomerTier.SILVER));
+        Customer second = store.insert(customer("Second Owner", "other@example.com", "10", CustomerTier.SILVER));
+
+        assertThrows(DuplicateEmailException.class, () -> store.insert(customer("Copy Owner", " Owner@Example.com", "10", CustomerTier.SILVER)));
+        assertThrows(DuplicateEmailException.class, () -> store.insertAll(List.of(
+                customer("Batch One", "batch@example.com", "10", CustomerTier.SILVER),
+                customer("Batch Two", "BATCH@example.com", "10", CustomerTier.SILVER))));
+        assertThrows(DuplicateEmailException.class, () -> store.update(second.getId(), emailPatch("owner@example.com"), null));
+        assertTrue(store.update(first.getId(), emailPatch("owner@example.com"), null).isPresent());
+        assertEquals(List.of(first.getId().toString()), store.findByEmailNormalized("owner@example.com").stream().map(CustomerResponse::getId).toList());
+        assertTrue(store.findByEmailNormalized("batch@example.com").isEmpty());
+    }
+
+    @Test
+    void testLogIsCompactedWhileOpen() throws IOException {
+        Customer updated = store.insert(customer("Updated Customer", "updated@example.com", "10", CustomerTier.SILVER));
+        store.insert(customer("Streamed Customer", "streamed@example.com", "10", CustomerTier.SILVER));
+        List<String> streamed = new ArrayList<>();
+
+        // The 17th superseded record crosses the threshold of 16 while the stream is between records
+        store.forEach(response -> {
+            if (streamed.isEmpty()) {
+                for (int i = 1; i <= 17; i++) {
+                    store.update(updated.getId(), patch("Updated " + i, null), null);
+                }
+            }
+            streamed.add(response.getName());
+        });
+
+        assertEquals(List.of("Updated Customer", "Streamed Customer"), streamed);
+        try (RandomAccessFile log = new RandomAccessFile(directory.resolve(MappedCustomerStore.FILE_NAME).toFile(), "r")) {
+            log.seek(3L * MappedCustomerStore.RECORD_SIZE);
+            assertEquals(0, log.read());
+        }
+        assertEquals("Updated 17", store.findById(updated.getId()).orElseThrow().getName());
+        assertEquals(17L, store.findById(updated.getId()).orElseThrow().getVersion());
+        store.close();
+        store = open();
+        assertEquals("Updated 17", store.findById(updated.getId()).orElseThrow().getName());
+        assertEquals(2, store.findPage(null, null, 10).size());
+    }
+
+    @Test
+    void testWritesDuringCompactionAreKept() throws Exception {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            customers.add(store.insert(customer("Writer " + i, "writer" + i + "@example.com", "10", CustomerTier.SILVER)));
+        }
+
+        // Every writer crosses the threshold many times, so compactions copy while the others keep appending
+        try (ExecutorService writers = Executors.newFixedThreadPool(customers.size())) {
+            List<Future<?>> done = new ArrayList<>();
+            for (Customer customer : customers) {
+                done.add(writers.submit(() -> {
+                    for (int i = 1; i <= 200; i++) {
+                        store.update(customer.getId(), patch(customer.getName() + " v" + i, null), null);
+                    }
+                }));
+            }
+            for (Future<?> writer : done) {
+                writer.get();
+            }
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (Customer customer : customers) {
+                CustomerResponse stored = store.findById(customer.getId()).orElseThrow();
+                assertEquals(customer.getName() + " v200", stored.getName());
+                assertEquals(200L, stored.getVersion());
+                assertEquals(List.of(customer.getId().toString()),
+                        store.findByName(customer.getName() + " v200").stream().map(CustomerResponse::getId).toList());
+                assertEquals(1, store.findByEmailNormalized(customer.getEmail()).size());
+            }
+            assertEquals(4, store.findPage(null, null, 10).size());
+            store.close();
+            store = open();
+        }
+    }
+
+    @Test
+    void testNameAndEmailLookupsFollowWrites() {
+        Customer renamed = store.insert(customer("Shared Name", "renamed@example.com", "10", CustomerTier.SILVER));
+        Customer kept = store.insert(customer("Shared Name", "kept@example.com", "10", CustomerTier.SILVER));
+        Customer deleted = store.insert(customer("Shared Name", "deleted@example.com", "10", CustomerTier.SILVER));
+
+        store.update(renamed.getId(), patch("New Name", null), null);
+        store.update(kept.getId(), emailPatch("moved@example.com"), null);
+        store.delete(deleted.getId());
+
+        assertEquals(List.of(kept.getId().toString()), store.findByName("Shared Name").stream().map(CustomerResponse::getId).toList());
+        assertEquals(List.of(renamed.getId().toString()), store.findByName("New Name").stream().map(CustomerResponse::getId).toList());
+        assertTrue(store.findByEmailNormalized("kept@example.com").isEmpty());
+        assertTrue(store.findByEmailNormalized("deleted@example.com").isEmpty());
+        assertEquals(1, store.findByEmailNormalized("moved@example.com").size());
+        assertDoesNotThrow(() -> store.insert(customer("Reused Email", "kept@example.com", "10", CustomerTier.SILVER)));
+    }
+
+    @Test
+    void testTornRecordIsDiscardedOnReplay() throws IOException {
+        Customer first = store.insert(customer("First Customer", "first@example.com", "100", CustomerTier.SILVER));
+        Customer second = store.insert(customer("Second Customer", "second@example.com", "200", CustomerTier.SILVER));
+        store.close();
+
+        try (RandomAccessFile log = new RandomAccessFile(directory.resolve(MappedCustomerStore.FILE_NAME).toFile(), "rw")) {
+            log.seek(2L * MappedCustomerStore.RECORD_SIZE + 200);
+            log.write(new byte[]{1, 2, 3});
+        }
+        store = open();
+
+        assertTrue(store.findById(first.getId()).isPresent());
+        assertTrue(store.findById(second.getId()).isEmpty());
+        Customer third = store.insert(customer("Third Customer", "third@example.com", "300", CustomerTier.SILVER));
+        assertTrue(store.findById(third.getId()).isPresent());
+    }
+
+    @Test
+    void testPagesAndSearchFollowIdOrder() {
+        for (int i = 0; i < 25; i++) {
+            store.insert(customer("Paged " + i, "paged" + i + "@example.com", String.valueOf(i * 1000), i % 2 == 0 ? CustomerTier.GOLD : CustomerTier.SILVER));
+        }
+
+        List<CustomerResponse> first = store.findPage(null, null, 10);
+        List<CustomerResponse> second = store.findPage(null, UUID.fromString(first.get(9).getId()), 100);
+        List<CustomerResponse> gold = store.findPage(CustomerTier.GOLD, null, 100);
+        List<CustomerResponse> bySpend = store.search(new CustomerSearchCriteria("Paged", null, new BigDecimal("5000"), null,
+                null, null, null, "annualSpend", true), 0, 3);
+
+        assertEquals(10, first.size());
+        assertEquals(15, second.size());
+        assertEquals(25, Stream.concat(first.stream(), second.stream()).map(CustomerResponse::getId).distinct().count());
+        assertEquals(13, gold.size());
+        assertEquals(List.of("Paged 24", "Paged 23", "Paged 22"), bySpend.stream().map(CustomerResponse::getName).toList());
+        assertEquals(20, store.countByAnnualSpend(new BigDecimal("5000"), null));
+    }
+
+    private MappedCustomerStore open() throws IOException {
+        MappedCustomerStore opened = new MappedCustomerStore(directory.toString(), false, 16);
+        opened.open();
+        return opened;
+    }
+
+    private static Customer customer(String name, String email, String spend, CustomerTier tier) {
+        return Customer.builder()
+                .name(name)
+                .email(email)
+                .annualSpend(spend == null ? null : new BigDecimal(spend))
+                .lastPurchaseDate(LocalDate.now())
+                .tier(tier)
+                .build();
+    }
+
+    private static CustomerPatch emailPatch(String email) {
+        LocalDate today = LocalDate.now();
+        String normalized = Customer.normalizeEmail(email);
+        return new CustomerPatch(null, email, normalized, Customer.emailDomain(normalized), null, null, Instant.now(),
+                new BigDecimal("10000"), today.minusMonths(7), new BigDecimal("1000"), today.minusMonths(13));
+    }
+
+    private static CustomerPatch patch(String name, String spend) {
+        LocalDate today = LocalDate.now();
+        return new CustomerPatch(name, null, null, null, spend == null ? null : new BigDecimal(spend), null, Instant.now(),
+                new BigDecimal("10000"), today.minusMonths(7), new BigDecimal("1000"), today.minusMonths(13));
+    }
+}